@@ -0,0 +1,89 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Writes bytecode/RuntimeMethods.java from the public instance methods declared in the runtime
+ * class files (Integer.j, Boolean.j, Array.j). Runs as a single-file program before compilation:
+ * java src/build/java/RuntimeMethodsGenerator.java src/main/java/examples src/main/java/bytecode/RuntimeMethods.java
+ */
+public class RuntimeMethodsGenerator {
+    private static final List<String> RUNTIME_CLASSES = List.of("Integer", "Boolean", "Array");
+    private static final Pattern METHOD = Pattern.compile("^\\.method public (\\w+)\\(([^)]*)\\)(\\S+)$");
+    private static final Pattern DESCRIPTOR = Pattern.compile("\\[*(?:L[^;]+;|[BCDFIJSZ])");
+
+    public static void main(String[] args) throws IOException {
+        Path runtimeDirectory = Path.of(args[0]);
+        List<String> entries = new ArrayList<>();
+        for (String owner : RUNTIME_CLASSES) {
+            for (String line : Files.readAllLines(runtimeDirectory.resolve(owner + ".j"))) {
+                Matcher method = METHOD.matcher(line.trim());
+                if (!method.matches() || method.group(1).equals("<init>")) {
+                    continue;
+                }
+                int arity = 0;
+                for (Matcher parameter = DESCRIPTOR.matcher(method.group(2)); parameter.find(); ) {
+                    arity++;
+                }
+                entries.add(String.format("            entry(\"%s\", \"%s\", %d, \"%s\", \"%s\")",
+                        owner, method.group(1), arity, method.group(2), method.group(3)));
+            }
+        }
+
+        String source = """
+                package bytecode;
+
+                import java.util.HashMap;
+                import java.util.List;
+                import java.util.Map;
+
+                // Generated by src/build/java/RuntimeMethodsGenerator.java from the runtime class files; do not edit.
+                public final class RuntimeMethods {
+                    private record Key(String owner, String name, int arity) {
+                    }
+
+                    private record Entry(Key key, Method method) {
+                    }
+
+                    private static final List<Entry> ENTRIES = List.of(
+                %s);
+
+                    private static final Map<Key, Method> METHODS = new HashMap<>();
+                    private static final Map<Key, Method> BY_NAME = new HashMap<>();
+
+                    static {
+                        for (Entry entry : ENTRIES) {
+                            METHODS.put(entry.key(), entry.method());
+                            BY_NAME.putIfAbsent(new Key(null, entry.key().name(), entry.key().arity()), entry.method());
+                        }
+                    }
+
+                    private RuntimeMethods() {
+                    }
+
+                    public static Method find(String owner, String name, int arity) {
+                        return METHODS.get(new Key(owner, name, arity));
+                    }
+
+                    // For receivers of unknown type: the first runtime class, in Integer, Boolean, Array order, with such a method
+                    public static Method findAny(String name, int arity) {
+                        return BY_NAME.get(new Key(null, name, arity));
+                    }
+
+                    public static boolean isRuntimeClass(String className) {
+                        return %s;
+                    }
+
+                    private static Entry entry(String owner, String name, int arity, String signature, String returnType) {
+                        return new Entry(new Key(owner, name, arity), new Method(name, owner, signature, returnType));
+                    }
+                }
+                """.formatted(String.join(",\n", entries),
+                String.join(" || ", RUNTIME_CLASSES.stream().map(owner -> "\"" + owner + "\".equals(className)").toList()));
+        Files.writeString(Path.of(args[1]), source);
+    }
+}
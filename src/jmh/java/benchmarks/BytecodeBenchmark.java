@@ -0,0 +1,27 @@
+package benchmarks;
+
+import ast.ASTNode;
+import bytecode.BytecodeGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import output.DiscardingOutput;
+
+@State(Scope.Thread)
+public class BytecodeBenchmark extends PhaseBenchmark {
+    private ASTNode optimized;
+
+    @Setup(Level.Trial)
+    public void prepare(GeneratedProgram program) {
+        optimized = program.optimize();
+    }
+
+    @Benchmark
+    public long generate() {
+        BytecodeGenerator generator = new BytecodeGenerator(new DiscardingOutput());
+        generator.generate(optimized);
+        return generator.getInstructionCount();
+    }
+}
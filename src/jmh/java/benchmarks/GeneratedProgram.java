@@ -0,0 +1,57 @@
+package benchmarks;
+
+import ast.ASTNode;
+import lexical.LexerEngine;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import semantic.SemanticAnalyzer;
+import sintax.SintaxisAnalyzer;
+import token.Token;
+
+import java.util.List;
+
+/**
+ * Synthetic program shared by the phase benchmarks, together with the input of every phase. The
+ * size parameters can be overridden from the command line, e.g. -p classes=16 -p statementDepth=5.
+ */
+@State(Scope.Benchmark)
+public class GeneratedProgram {
+    @Param({"4", "16"})
+    public int classes;
+
+    @Param({"8"})
+    public int methodsPerClass;
+
+    @Param({"3"})
+    public int statementDepth;
+
+    @Param({"true"})
+    public boolean arrays;
+
+    @Param({"42"})
+    public long seed;
+
+    String source;
+    List<Token> tokens;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        source = new ProgramGenerator(classes, methodsPerClass, statementDepth, arrays, seed).generate();
+        tokens = new LexerEngine(source).tokenize();
+    }
+
+    ASTNode parse() {
+        return new SintaxisAnalyzer(tokens).parse();
+    }
+
+    ASTNode optimize() {
+        ASTNode root = parse();
+        SemanticAnalyzer analyzer = new SemanticAnalyzer();
+        analyzer.analyze(root);
+        analyzer.optimize(root);
+        return root;
+    }
+}
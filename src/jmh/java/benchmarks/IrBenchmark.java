@@ -0,0 +1,59 @@
+package benchmarks;
+
+import ast.ASTNode;
+import ir.ConstantPropagation;
+import ir.ControlFlowGraph;
+import ir.DominatorTree;
+import ir.IRBuilder;
+import ir.SSABuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import semantic.SemanticAnalyzer;
+
+import java.util.List;
+
+/**
+ * IR construction for every method of the analyzed program. Lowering leaves the tree as it is, so
+ * it is analyzed once per trial. Each benchmark includes the steps before it: SSA conversion minus
+ * lowering is the cost of the dominator tree and renaming, and so on. With the default method count
+ * and depth a class has about 220 statements, so classes=16 gives the cost of some 3.5k statements.
+ */
+@State(Scope.Thread)
+public class IrBenchmark extends PhaseBenchmark {
+    private ASTNode analyzed;
+
+    @Setup(Level.Trial)
+    public void prepare(GeneratedProgram program) {
+        analyzed = program.parse();
+        new SemanticAnalyzer().analyze(analyzed);
+    }
+
+    @Benchmark
+    public List<ControlFlowGraph> lower() {
+        return new IRBuilder().build(analyzed);
+    }
+
+    @Benchmark
+    public List<ControlFlowGraph> convertToSsa() {
+        List<ControlFlowGraph> graphs = new IRBuilder().build(analyzed);
+        SSABuilder ssaBuilder = new SSABuilder();
+        for (ControlFlowGraph cfg : graphs) {
+            ssaBuilder.convert(cfg);
+        }
+        return graphs;
+    }
+
+    @Benchmark
+    public int propagateConstants() {
+        int constants = 0;
+        SSABuilder ssaBuilder = new SSABuilder();
+        for (ControlFlowGraph cfg : new IRBuilder().build(analyzed)) {
+            DominatorTree dominators = ssaBuilder.convert(cfg);
+            constants += new ConstantPropagation(cfg, dominators).getConstantReads().size();
+        }
+        return constants;
+    }
+}
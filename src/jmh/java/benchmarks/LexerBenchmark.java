@@ -0,0 +1,14 @@
+package benchmarks;
+
+import lexical.LexerEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import token.Token;
+
+import java.util.List;
+
+public class LexerBenchmark extends PhaseBenchmark {
+    @Benchmark
+    public List<Token> tokenize(GeneratedProgram program) {
+        return new LexerEngine(program.source).tokenize();
+    }
+}
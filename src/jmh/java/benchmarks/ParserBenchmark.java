@@ -0,0 +1,11 @@
+package benchmarks;
+
+import ast.ASTNode;
+import org.openjdk.jmh.annotations.Benchmark;
+
+public class ParserBenchmark extends PhaseBenchmark {
+    @Benchmark
+    public ASTNode parse(GeneratedProgram program) {
+        return program.parse();
+    }
+}
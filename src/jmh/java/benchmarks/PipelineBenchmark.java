@@ -0,0 +1,13 @@
+package benchmarks;
+
+import ast.ASTNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import output.DiscardingOutput;
+import pipeline.Compiler;
+
+public class PipelineBenchmark extends PhaseBenchmark {
+    @Benchmark
+    public ASTNode compile(GeneratedProgram program) {
+        return new Compiler(null, new DiscardingOutput()).compile(program.source);
+    }
+}
@@ -0,0 +1,134 @@
+package benchmarks;
+
+import bytecode.OutputFormat;
+import bytecode.RuntimeClasses;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import output.ClassOutput;
+import output.DirectoryOutput;
+import pipeline.Compiler;
+import semantic.ExecutionProfile;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Generated code rather than the compiler: a loop whose if statement almost always takes its else
+ * branch and calls a method too large for the default inlining. The plain build is optimized as
+ * usual; the pgo build is compiled once instrumented, trained on the same input and compiled again
+ * with the profile it wrote, which lays the else branch out first, inlines the call and unrolls
+ * the loop.
+ */
+@State(Scope.Benchmark)
+public class ProfileGuidedBenchmark extends PhaseBenchmark {
+    private static final String SOURCE = """
+            class Kernel is
+                this() is
+                end
+
+                method mix(a: Integer, b: Integer) Integer is
+                    return a.Mult(3).Plus(b.Mult(5)).Minus(a.Rem(7)).Plus(b.Rem(11)).Minus(a.Mult(b).Rem(13))
+                end
+
+                method rarely(a: Integer) Integer is
+                    return a.Mult(a).Rem(97)
+                end
+
+                method run(n: Integer) Integer is
+                    var i: Integer
+                    i := 0
+                    var sum: Integer
+                    sum := 0
+                    while i.LessEqual(n) loop
+                        if sum.Less(0) then
+                            sum := sum.Plus(rarely(i))
+                        else
+                            sum := sum.Plus(mix(i, sum)).Rem(1000003)
+                        end
+                        i := i.Plus(1)
+                    end
+                    return sum
+                end
+            end
+            """;
+
+    @Param({"plain", "pgo"})
+    public String build;
+
+    @Param({"100000"})
+    public int iterations;
+
+    private Object kernel;
+    private Method run;
+    private Object argument;
+
+    @Setup(Level.Trial)
+    public void compile() throws Exception {
+        Path classes;
+        if (build.equals("pgo")) {
+            Path profileFile = Files.createTempFile("kernel", ".profile");
+            Path instrumented = compile(compiler -> compiler.instrument(profileFile));
+            try (URLClassLoader loader = load(instrumented)) {
+                invoke(loader);
+                // Saves the counters now rather than when the benchmark JVM exits
+                ((Runnable) loader.loadClass("$Profile").getConstructor().newInstance()).run();
+            }
+            ExecutionProfile profile = ExecutionProfile.read(profileFile);
+            classes = compile(compiler -> compiler.setProfile(profile));
+        } else {
+            classes = compile(compiler -> { });
+        }
+        // Left open: the benchmark calls into it until the trial ends
+        prepare(load(classes));
+    }
+
+    @Benchmark
+    public Object run() throws Exception {
+        return run.invoke(kernel, argument);
+    }
+
+    private interface Configuration {
+        void apply(Compiler compiler);
+    }
+
+    private static Path compile(Configuration configuration) throws IOException {
+        Path directory = Files.createTempDirectory("kernel");
+        try (ClassOutput output = new DirectoryOutput(directory, DirectoryOutput.DEFAULT_BATCH_SIZE)) {
+            Map<String, byte[]> runtime = RuntimeClasses.load(Path.of(RuntimeClasses.DEFAULT_DIRECTORY), OutputFormat.CLASS);
+            for (Map.Entry<String, byte[]> runtimeClass : runtime.entrySet()) {
+                output.write(runtimeClass.getKey(), runtimeClass.getValue());
+            }
+            Compiler compiler = new Compiler(null, output, OutputFormat.CLASS);
+            configuration.apply(compiler);
+            compiler.compile("Kernel.txt", SOURCE);
+            compiler.finish();
+        }
+        return directory;
+    }
+
+    private static URLClassLoader load(Path classes) throws IOException {
+        return new URLClassLoader(new URL[]{classes.toUri().toURL()}, null);
+    }
+
+    private void invoke(URLClassLoader loader) throws Exception {
+        prepare(loader);
+        run();
+    }
+
+    private void prepare(URLClassLoader loader) throws Exception {
+        Class<?> kernelClass = loader.loadClass("Kernel");
+        Class<?> integerClass = loader.loadClass("Integer");
+        kernel = kernelClass.getConstructor().newInstance();
+        run = kernelClass.getMethod("run", integerClass);
+        argument = integerClass.getMethod("valueOf", int.class).invoke(null, iterations);
+    }
+}
@@ -0,0 +1,92 @@
+package benchmarks;
+
+import java.util.Random;
+
+/**
+ * Deterministic generator of valid source programs for the benchmarks. The same parameters and
+ * seed always give the same program. Every class has a constructor and a number of methods; a
+ * method body is a while loop whose body holds an if statement with the next, shallower loop in
+ * its then branch, down to the requested statement depth. Methods after the first call their
+ * predecessor, and with array usage on each loop also stores into and reads from a local array.
+ */
+public class ProgramGenerator {
+    private static final String[] OPERATIONS = {"Plus", "Minus", "Mult"};
+
+    private final int classes;
+    private final int methodsPerClass;
+    private final int statementDepth;
+    private final boolean arrays;
+    private final long seed;
+
+    public ProgramGenerator(int classes, int methodsPerClass, int statementDepth, boolean arrays, long seed) {
+        this.classes = classes;
+        this.methodsPerClass = methodsPerClass;
+        this.statementDepth = statementDepth;
+        this.arrays = arrays;
+        this.seed = seed;
+    }
+
+    public String generate() {
+        Random random = new Random(seed);
+        StringBuilder source = new StringBuilder();
+        for (int c = 0; c < classes; c++) {
+            source.append("class C").append(c).append(" is\n")
+                    .append("    this() is\n")
+                    .append("    end\n");
+            for (int m = 0; m < methodsPerClass; m++) {
+                appendMethod(source, m, random);
+            }
+            source.append("end\n\n");
+        }
+        return source.toString();
+    }
+
+    private void appendMethod(StringBuilder source, int index, Random random) {
+        source.append("    method m").append(index).append("(n: Integer, k: Integer) Integer is\n");
+        line(source, 2, "var i: Integer");
+        line(source, 2, "i := 0");
+        line(source, 2, "var sum: Integer");
+        line(source, 2, "sum := " + random.nextInt(100));
+        if (arrays) {
+            line(source, 2, "var values: Array[Integer](" + (16 + random.nextInt(16)) + ")");
+        }
+        appendLoop(source, 2, statementDepth, index, random);
+        line(source, 2, "return sum");
+        source.append("    end\n");
+    }
+
+    private void appendLoop(StringBuilder source, int indent, int depth, int methodIndex, Random random) {
+        line(source, indent, "while i.LessEqual(n) loop");
+        line(source, indent + 1, "sum := sum." + operation(random) + "(i." + operation(random) + "(k))");
+        if (methodIndex > 0) {
+            line(source, indent + 1, "sum := sum.Plus(m" + (methodIndex - 1) + "(i, k))");
+        }
+        if (arrays) {
+            line(source, indent + 1, "values.set(i, sum)");
+            line(source, indent + 1, "sum := values.get(i)");
+        }
+        if (depth > 1) {
+            line(source, indent + 1, "if sum.LessEqual(" + random.nextInt(1000) + ") then");
+            appendLoop(source, indent + 2, depth - 1, methodIndex, random);
+            line(source, indent + 1, "else");
+            line(source, indent + 2, "sum := sum.Minus(" + (1 + random.nextInt(9)) + ")");
+            line(source, indent + 1, "end");
+        }
+        line(source, indent + 1, "i := i.Plus(1)");
+        line(source, indent, "end");
+    }
+
+    private static String operation(Random random) {
+        return OPERATIONS[random.nextInt(OPERATIONS.length)];
+    }
+
+    private static void line(StringBuilder source, int indent, String text) {
+        source.append("    ".repeat(indent)).append(text).append("\n");
+    }
+
+    // Prints a program, e.g. to try it with the compiler: ProgramGenerator <classes> <methods> <depth> <arrays> [seed]
+    public static void main(String[] args) {
+        System.out.print(new ProgramGenerator(Integer.parseInt(args[0]), Integer.parseInt(args[1]),
+                Integer.parseInt(args[2]), Boolean.parseBoolean(args[3]), args.length > 4 ? Long.parseLong(args[4]) : 42).generate());
+    }
+}
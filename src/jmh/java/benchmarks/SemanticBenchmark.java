@@ -0,0 +1,40 @@
+package benchmarks;
+
+import ast.ASTNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import semantic.SemanticAnalyzer;
+
+/**
+ * Analysis and optimization measured on their own: the tree is parsed (and for optimize analyzed)
+ * per invocation outside of the measured method, as both phases change it in place.
+ */
+@State(Scope.Thread)
+public class SemanticBenchmark extends PhaseBenchmark {
+    private ASTNode parsed;
+    private ASTNode analyzed;
+    private SemanticAnalyzer analyzedBy;
+
+    @Setup(Level.Invocation)
+    public void prepare(GeneratedProgram program) {
+        parsed = program.parse();
+        analyzed = program.parse();
+        analyzedBy = new SemanticAnalyzer();
+        analyzedBy.analyze(analyzed);
+    }
+
+    @Benchmark
+    public ASTNode analyze() {
+        new SemanticAnalyzer().analyze(parsed);
+        return parsed;
+    }
+
+    @Benchmark
+    public ASTNode optimize() {
+        analyzedBy.optimize(analyzed);
+        return analyzed;
+    }
+}
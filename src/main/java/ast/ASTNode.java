@@ -9,6 +9,11 @@ public class ASTNode {
     private final String nodeTypeInfo;
     private final List<ASTNode> children;
     private ASTNode parent;
+    // Type of an expression node, filled in once by the semantic analyzer
+    private String expressionType;
+    // Parameter types of the user method a MethodCall resolves to, which picks among overloads;
+    // filled in by the semantic analyzer, null for calls of runtime methods
+    private List<String> parameterTypes;
 
     public ASTNode(String nodeType) {
         this(nodeType, null, null);
@@ -54,10 +59,55 @@ public class ASTNode {
         return nodeTypeInfo;
     }
 
+    public String getExpressionType() {
+        return expressionType;
+    }
+
+    public void setExpressionType(String expressionType) {
+        this.expressionType = expressionType;
+    }
+
+    public List<String> getParameterTypes() {
+        return parameterTypes;
+    }
+
+    public void setParameterTypes(List<String> parameterTypes) {
+        this.parameterTypes = parameterTypes;
+    }
+
     public List<ASTNode> getChildren() {
         return children;
     }
 
+    // Deep copy of the subtree rooted at this node, without the parent link of the root
+    public ASTNode copy() {
+        ASTNode copy = new ASTNode(nodeType, nodeName, nodeTypeInfo);
+        copy.expressionType = expressionType;
+        copy.parameterTypes = parameterTypes;
+        for (ASTNode child : children) {
+            copy.addChild(child.copy());
+        }
+        return copy;
+    }
+
+    // Size of the subtree rooted at this node
+    public long countNodes() {
+        long count = 1;
+        for (ASTNode child : children) {
+            count += child.countNodes();
+        }
+        return count;
+    }
+
+    public void replaceChild(ASTNode oldChild, ASTNode newChild) {
+        int index = children.indexOf(oldChild);
+        if (index >= 0) {
+            children.set(index, newChild);
+            newChild.setParent(this);
+            oldChild.setParent(null);
+        }
+    }
+
     public void removeChild(ASTNode child) {
         if (children.remove(child)) {
             child.setParent(null); // Clear the parent reference in the removed child.
@@ -1,55 +1,96 @@
 package bytecode;
 
 import ast.ASTNode;
+import diagnostics.MethodGeneratedEvent;
+import output.ClassOutput;
 
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.logging.Logger;
 
+/**
+ * Emits every class of the program into the instruction model ({@link GeneratedClass},
+ * {@link GeneratedMethod}, {@link Instruction}) and hands the finished class to the serializer of
+ * the output format: {@link JasminWriter} for Jasmin text, {@link ClassFileWriter} for class files.
+ */
 public class BytecodeGenerator {
+    // Extra instructions a single method may spend on expanding Integer intrinsics in place
+    private static final int INTRINSIC_BUDGET = 256;
+
+    // -Dcompiler.peephole=false leaves method bodies as generated, e.g. to compare instruction counts
+    private static final boolean PEEPHOLE = !"false".equals(System.getProperty("compiler.peephole"));
+
+    private static final Map<String, Opcode> INTEGER_ARITHMETIC = Map.of(
+            "Plus", Opcode.IADD, "Minus", Opcode.ISUB, "Mult", Opcode.IMUL, "Div", Opcode.IDIV, "Rem", Opcode.IREM);
+
+    private static final Map<String, Opcode> INTEGER_COMPARISONS = Map.of(
+            "Less", Opcode.IF_ICMPLT, "LessEqual", Opcode.IF_ICMPLE, "Greater", Opcode.IF_ICMPGT,
+            "GreaterEqual", Opcode.IF_ICMPGE, "Equal", Opcode.IF_ICMPEQ);
+
+    private static final MemberRef SYSTEM_OUT = new MemberRef("java/lang/System", "out", "Ljava/io/PrintStream;");
+
+    private static final MemberRef INTEGER_VALUE = new MemberRef("Integer", "value", "I");
+
+    private static final MemberRef INTEGER_GET_VALUE = new MemberRef("Integer", "getValue", "()I");
+
+    private static final MemberRef BOOLEAN_GET_BOOL = new MemberRef("Boolean", "getBool", "()Ljava/lang/String;");
+
+    private static final MemberRef STRING_EQUALS = new MemberRef("java/lang/String", "equals", "(Ljava/lang/Object;)Z");
+
     private final Logger log = Logger.getLogger(this.getClass().getName());
 
-    private final StringBuilder bytecode;
+    // Jasmin text of the class being written, reused from class to class
+    private final StringBuilder jasmin = new StringBuilder();
+
+    private final ClassOutput output;
+
+    private final OutputFormat format;
 
     private String className;
 
-    private Map<String, Method> methods = new HashMap<>();
+    // Fields and methods of every class generated so far, used to resolve members inherited by later classes.
+    // Methods of the runtime classes are not here but in the generated RuntimeMethods table.
+    private final Map<String, ClassModel> classModels = new HashMap<>();
+
+    private ClassModel currentClass;
+
+    private GeneratedClass generatedClass;
+
+    private GeneratedMethod currentMethod;
 
-    private List<Param> params = new ArrayList<>();
+    // Arguments and locals of the method being generated; fields are looked up in classModels
+    private final List<Param> locals = new ArrayList<>();
 
-    private String ifNum = "A";
+    // Where tail calls of the current method jump back to, or null
+    private Label tailCallEntry;
 
-    private String whileNum = "B";
+    private int intrinsicBudget;
+
+    private String methodReturnType;
+
+    private String superClassName;
+
+    // Whether new C() creates the current class, through a declared or the default constructor
+    private boolean noArgConstructor;
+
+    private long instructionCount;
+
+    private String mainClass;
 
     public BytecodeGenerator() {
-        this.bytecode = new StringBuilder();
-        methods.put("getValue", new Method("getValue", "Integer", "", "LInteger;"));
-        methods.put("Plus", new Method("Plus", "Integer", "LInteger;", "LInteger;"));
-        methods.put("Minus", new Method("Minus", "Integer", "LInteger;", "LInteger;"));
-        methods.put("Mult", new Method("Mult", "Integer", "LInteger;", "LInteger;"));
-        methods.put("Div", new Method("Div", "Integer", "LInteger;", "LInteger;"));
-        methods.put("Rem", new Method("Rem", "Integer", "LInteger;", "LInteger;"));
-        methods.put("Less", new Method("Less", "Integer", "LInteger;", "LBoolean;"));
-        methods.put("LessEqual", new Method("LessEqual", "Integer", "LInteger;", "LBoolean;"));
-        methods.put("Greater", new Method("Greater", "Integer", "LInteger;", "LBoolean;"));
-        methods.put("GreaterEqual", new Method("GreaterEqual", "Integer", "LInteger;", "LBoolean;"));
-        methods.put("Equal", new Method("Equal", "Integer", "LInteger;", "LBoolean;"));
-        methods.put("toReal", new Method("toReal", "Integer", "", "LReal;"));
-        methods.put("toBoolean", new Method("toBoolean", "Integer", "", "LBoolean;"));
-        methods.put("UnaryMinus", new Method("UnaryMinus", "Integer", "", "LInteger;"));
-        methods.put("toInteger", new Method("toInteger", "Boolean", "", "LInteger;"));
-        methods.put("Or", new Method("Or", "Boolean", "LBoolean;", "LBoolean;"));
-        methods.put("And", new Method("And", "Boolean", "LBoolean;", "LBoolean;"));
-        methods.put("Xor", new Method("Xor", "Boolean", "LBoolean;", "LBoolean;"));
-        methods.put("Not", new Method("Not", "Boolean", "", "LBoolean;"));
-        methods.put("getBool", new Method("getBool", "Boolean", "", "Ljava/lang/String;"));
-        methods.put("Length", new Method("Length", "Array", "", "LInteger;"));
-        methods.put("get", new Method("get", "Array", "I", "Ljava/lang/Object;"));
-        methods.put("set", new Method("set", "Array", "ILjava/lang/Object;", "V"));
+        this(ClassOutput.fromSystemProperties());
+    }
+
+    public BytecodeGenerator(ClassOutput output) {
+        this(output, OutputFormat.fromSystemProperties());
+    }
 
+    // Classes may be batched by the output; generate flushes it before returning, closing is up to the caller
+    public BytecodeGenerator(ClassOutput output, OutputFormat format) {
+        this.output = output;
+        this.format = format;
     }
 
     public void generate(ASTNode root) {
@@ -57,30 +98,67 @@ public class BytecodeGenerator {
             throw new IllegalArgumentException("Root node must be of type 'Program'");
         }
 
-        for (ASTNode child : root.getChildren()) {
-            if ("class".equals(child.getNodeType())) {
-                generateClass(child);
+        try {
+            for (ASTNode child : root.getChildren()) {
+                if ("class".equals(child.getNodeType())) {
+                    generateClass(child);
+                }
+            }
+        } finally {
+            // Classes completed before a failure are written all the same
+            try {
+                output.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
         }
     }
 
+    // Class generated by an earlier run, e.g. of an incremental build, that later classes may use or extend
+    public void addClassModel(ClassModel model) {
+        classModels.put(model.getName(), model);
+    }
+
+    public Map<String, ClassModel> getClassModels() {
+        return classModels;
+    }
+
+    // First class generated so far that declares main, the entry point of a packaged program
+    public String getMainClass() {
+        return mainClass;
+    }
+
+    // Instructions emitted so far, labels and directives excluded
+    public long getInstructionCount() {
+        return instructionCount;
+    }
+
     private void generateClass(ASTNode classNode) {
         className = classNode.getNodeName();
-        bytecode.append(".class public ").append(className).append("\n");
 
-        String superClassName = "";
-        boolean ok = true;
+        String superClassName = "java/lang/Object";
         for (ASTNode child : classNode.getChildren()) {
             if (child.getNodeType().equals("extends")) {
-                ok = false;
                 superClassName = child.getNodeName();
                 break;
             }
         }
+        this.superClassName = superClassName;
+        currentClass = new ClassModel(className, superClassName);
+        classModels.put(className, currentClass);
+        generatedClass = new GeneratedClass(className, superClassName);
 
-        if (ok) {
-            bytecode.append(".super java/lang/Object\n\n");
-            superClassName = "java/lang/Object";
+        boolean declaresConstructor = false;
+        noArgConstructor = false;
+        for (ASTNode child : classNode.getChildren()) {
+            if (child.getNodeType().equals("constructor")) {
+                declaresConstructor = true;
+                noArgConstructor |= child.getChildren().stream().noneMatch(arg -> arg.getNodeType().equals("argument"));
+            }
+        }
+        if (!declaresConstructor) {
+            generateDefaultConstructor(classNode);
+            noArgConstructor = true;
         }
 
         for (ASTNode child : classNode.getChildren()) {
@@ -95,88 +173,78 @@ public class BytecodeGenerator {
                     generateMethod(child);
                     break;
                 case "extends":
-                    String parentClassName = child.getNodeName();
-                    bytecode.append(".super ").append(parentClassName).append("\n\n");
-                    inheritFromParentClass(parentClassName);
+                    // Inherited fields and methods stay in the parent class and are reached through JVM resolution
                     break;
                 default:
                     throw new UnsupportedOperationException("Unknown class element: " + child.getNodeType());
             }
         }
 
-        try (FileOutputStream fos = new FileOutputStream("/Users/demanzverev/IdeaProjects/compiler-construction/src/main/java/examples/" + className + ".j")) {
-            fos.write(bytecode.toString().getBytes());
-            log.info("Generated class " + className);
-            bytecode.setLength(0);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        writeClass();
     }
 
-    private void inheritFromParentClass(String parentClassName) {
-        String parentFileName = "/Users/demanzverev/IdeaProjects/compiler-construction/src/main/java/examples/" + parentClassName + ".j";
-
+    // Counters of an instrumented build, see ProfileClass; keys hold the profile point of every
+    // counter index the ProfileCounter statements of the classes generated for the build use
+    public void generateProfileClass(List<String> keys, Path profileFile) {
+        className = ProfileClass.NAME;
+        generatedClass = ProfileClass.generate(keys, profileFile.toAbsolutePath().toString());
         try {
-            String parentFileContent = Files.readString(Paths.get(parentFileName));
-
-            String fields = extractSection(parentFileContent, ".field", "\n");
-            String methods = extractSection(parentFileContent, ".method", ".end method");
-
-            bytecode.append(fields).append("\n");
-            bytecode.append(methods).append("\n");
-
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to load parent class: " + parentFileName, e);
+            writeClass();
+        } finally {
+            try {
+                output.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
         }
     }
 
-    private String extractSection(String fileContent, String startMarker, String endMarker) {
-        StringBuilder section = new StringBuilder();
-
-        String[] lines = fileContent.split("\n");
-        boolean inSection = false;
-
-        for (String line : lines) {
-            if (line.startsWith(startMarker)) {
-                inSection = true;
-            }
-            if (inSection) {
-                section.append(line).append("\n");
-            }
-            if (line.startsWith(endMarker)) {
-                inSection = false;
+    private void writeClass() {
+        try {
+            if (format == OutputFormat.CLASS) {
+                output.write(format.fileName(className), ClassFileWriter.write(generatedClass, this::superClassOf));
+            } else {
+                JasminWriter.write(generatedClass, jasmin);
+                output.write(format.fileName(className), jasmin);
+                jasmin.setLength(0);
             }
+            log.fine(() -> "Generated class " + className);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+    }
 
-        return section.toString();
+    // Superclass of a class generated so far; the runtime and library classes are not known here
+    private String superClassOf(String name) {
+        ClassModel model = classModels.get(name);
+        return model == null ? null : model.getSuperName();
     }
 
     private void generateClassDeclaration(ASTNode varNode) {
         String fieldName = varNode.getNodeName();
         String fieldType = mapType(varNode.getNodeTypeInfo());
-        var param = new Param(fieldName, varNode.getNodeTypeInfo(), className, true, null, false, null);
-        bytecode.append(".field private ").append(fieldName).append(" ").append(fieldType).append("\n");
-        param.setType(fieldType);
-        params.add(param);
+        generatedClass.getFields().add(new GeneratedClass.Field("protected", fieldName, fieldType));
+        currentClass.getFields().put(fieldName, fieldType);
     }
 
     private void generateConstructor(ASTNode constructorNode, String superClassName) {
-        bytecode.append("\n.method public <init>(");
+        MethodGeneratedEvent event = new MethodGeneratedEvent();
+        event.begin();
+        StringBuilder descriptor = new StringBuilder("(");
 
         Map types = new HashMap<String, String>();
         int k = 1;
         for (ASTNode arg : constructorNode.getChildren()) {
             if ("argument".equals(arg.getNodeType())) {
-                bytecode.append(mapType(arg.getNodeTypeInfo()));
+                descriptor.append(mapType(arg.getNodeTypeInfo()));
                 types.put(arg.getNodeName(), Integer.toString(k++));
             }
         }
 
-        bytecode.append(")V\n");
-        bytecode.append("    .limit stack 1000\n");
-        bytecode.append("    .limit locals 1000\n");
-        bytecode.append("    aload_0\n");
-        bytecode.append("    invokespecial ").append(superClassName).append("/<init>()V\n");
+        descriptor.append(")V");
+        beginMethod("public", "<init>", descriptor.toString());
+        load(0);
+        emit(Opcode.INVOKESPECIAL, new MemberRef(superClassName, "<init>", "()V"));
 
         for (ASTNode child : constructorNode.getChildren()) {
             if ("assignment".equals(child.getNodeType())) {
@@ -184,29 +252,51 @@ public class BytecodeGenerator {
             }
         }
 
-        bytecode.append("    return\n");
-        bytecode.append(".end method\n");
+        emit(Opcode.RETURN);
+        finishMethod(event, constructorNode, "<init>");
+    }
+
+    // Like the implicit constructor of Java, for a class that declares none
+    private void generateDefaultConstructor(ASTNode classNode) {
+        MethodGeneratedEvent event = new MethodGeneratedEvent();
+        event.begin();
+        beginMethod("public", "<init>", "()V");
+        load(0);
+        emit(Opcode.INVOKESPECIAL, new MemberRef(superClassName, "<init>", "()V"));
+        emit(Opcode.RETURN);
+        finishMethod(event, classNode, "<init>");
     }
 
     private void generateMethod(ASTNode methodNode) {
+        MethodGeneratedEvent event = new MethodGeneratedEvent();
+        event.begin();
         String methodName = methodNode.getNodeName();
         Method method = new Method();
         method.setName(methodName);
+        locals.clear();
         method.setClassName(className);
         int k = 1;
         String returnType = "V";
-        if (methodName.equals("main"))
-            bytecode.append(".method public static main([Ljava/lang/String;)V\n");
-        else {
-            bytecode.append("\n.method public ").append(methodName).append("(");
+        if (methodName.equals("main")) {
+            beginMethod("public static", "main", "([Ljava/lang/String;)V");
+            if (mainClass == null)
+                mainClass = className;
+            if (noArgConstructor) {
+                // The program has no use for the arguments array; its slot holds the instance main
+                // runs on, so that main can call the other methods and read the fields
+                emit(Opcode.NEW, className);
+                emit(Opcode.DUP);
+                invoke(Opcode.INVOKESPECIAL, className, "<init>", "()V");
+                emit(Opcode.ASTORE, 0);
+            }
+        } else {
             StringBuilder methodSignature = new StringBuilder();
             for (ASTNode child : methodNode.getChildren()) {
                 if ("argument".equals(child.getNodeType())) {
                     var param = new Param(child.getNodeName(), null, className, false, methodName, true, Integer.toString(k++));
-                    bytecode.append(mapType(child.getNodeTypeInfo()));
                     methodSignature.append(mapType(child.getNodeTypeInfo()));
                     param.setType(mapType(child.getNodeTypeInfo()));
-                    params.add(param);
+                    locals.add(param);
                 }
                 if ("ReturnType".equals(child.getNodeType())) {
                     returnType = mapType(child.getNodeName());
@@ -214,14 +304,17 @@ public class BytecodeGenerator {
             }
             method.setSignature(methodSignature.toString());
             method.setReturnType(returnType);
-            methods.put(methodName, method);
-            bytecode.append(")").append(returnType).append("\n");
+            currentClass.getMethods().put(methodKey(methodName, methodSignature.toString()), method);
+            beginMethod("public", methodName, "(" + methodSignature + ")" + returnType);
         }
 
-        bytecode.append("    .limit stack 1000\n");
-        bytecode.append("    .limit locals 1000\n");
-
-        bytecode.append("aload_0\n");
+        load(0);
+        intrinsicBudget = INTRINSIC_BUDGET;
+        methodReturnType = returnType;
+        // Tail calls jump back here after storing the new argument values
+        tailCallEntry = containsTailCall(methodNode) ? new Label() : null;
+        if (tailCallEntry != null)
+            mark(tailCallEntry);
 
         for (ASTNode child : methodNode.getChildren()) {
             switch (child.getNodeType()) {
@@ -236,15 +329,21 @@ public class BytecodeGenerator {
                 case "ReturnStatement":
                     generateReturnStatement(child, returnType);
                     break;
+                case "TailCall":
+                    generateTailCall(child);
+                    break;
                 case "IfStatement":
                     generateIfStatement(child);
                     break;
                 case "WhileStatement":
                     generateWhileStatement(child);
                     break;
+                case "ProfileCounter":
+                    generateProfileCounter(child);
+                    break;
                 case "declaration":
                     var param = new Param(child.getNodeName(), mapType(child.getNodeTypeInfo()), className, false, methodName, true, Integer.toString(k++));
-                    params.add(param);
+                    locals.add(param);
                     generateDeclarationInMethod(param, child);
                     break;
                 case "identifier":
@@ -252,19 +351,108 @@ public class BytecodeGenerator {
                         break;
                     var localParam = findParam(child.getNodeName(), className);
                     assert localParam != null;
-                    if (localParam.getIsMethodParam())
-                        bytecode.append("aload").append((Integer.parseInt(localParam.getLocalPosition()) > 3 ? " " : "_")).append(localParam.getLocalPosition())
-                                .append("\n");
-                    else
-                        bytecode.append("getfield ").append(className).append("/")
-                                .append(localParam.getName()).append(localParam.getType()).append("\n");
+                    loadVariable(localParam);
                     generateMethodCall(child.getChildren().get(0));
                     break;
                 default:
                     throw new UnsupportedOperationException("Unknown method element: " + child.getNodeType());
             }
         }
-        bytecode.append(".end method\n");
+        finishMethod(event, methodNode, methodName);
+    }
+
+    private void beginMethod(String access, String name, String descriptor) {
+        currentMethod = new GeneratedMethod(access, name, descriptor);
+    }
+
+    private void finishMethod(MethodGeneratedEvent event, ASTNode methodNode, String methodName) {
+        if (PEEPHOLE) {
+            currentMethod.setCode(PeepholeOptimizer.optimize(currentMethod.getCode()));
+        }
+        int instructions = 0;
+        for (Instruction instruction : currentMethod.getCode()) {
+            if (!instruction.isLabel()) {
+                instructions++;
+            }
+        }
+        instructionCount += instructions;
+        generatedClass.getMethods().add(currentMethod);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.className = className;
+            event.methodName = methodName;
+            event.nodes = methodNode.countNodes();
+            event.instructions = instructions;
+            event.commit();
+        }
+    }
+
+    private void emit(Opcode opcode) {
+        currentMethod.getCode().add(Instruction.of(opcode));
+    }
+
+    private void emit(Opcode opcode, Object operand) {
+        currentMethod.getCode().add(Instruction.of(opcode, operand));
+    }
+
+    private void mark(Label label) {
+        currentMethod.getCode().add(Instruction.label(label));
+    }
+
+    private void load(int slot) {
+        emit(Opcode.ALOAD, slot);
+    }
+
+    private void load(Param param) {
+        load(Integer.parseInt(param.getLocalPosition()));
+    }
+
+    // Local variable, or field of this
+    private void loadVariable(Param param) {
+        if (param.getIsMethodParam()) {
+            load(param);
+        } else {
+            load(0);
+            getField(param);
+        }
+    }
+
+    // Local variable, or field of this, which the caller loaded before the value
+    private void store(Param param) {
+        if (param.getIsMethodParam())
+            emit(Opcode.ASTORE, Integer.parseInt(param.getLocalPosition()));
+        else
+            emit(Opcode.PUTFIELD, new MemberRef(className, param.getName(), param.getType()));
+    }
+
+    // Field of the current class; the receiver is up to the caller
+    private void getField(Param param) {
+        emit(Opcode.GETFIELD, new MemberRef(className, param.getName(), param.getType()));
+    }
+
+    // Number or quoted string literal as written in the source
+    private void ldc(String literal) {
+        emit(Opcode.LDC, JasminReader.constant(literal));
+    }
+
+    private void invoke(Opcode opcode, String owner, String name, String descriptor) {
+        emit(opcode, new MemberRef(owner, name, descriptor));
+    }
+
+    // Boolean on the stack compared the way the runtime prints it; jumps when it is false
+    private void branchIfFalse(Label target) {
+        emit(Opcode.INVOKEVIRTUAL, BOOLEAN_GET_BOOL);
+        emit(Opcode.LDC, "true");
+        emit(Opcode.INVOKEVIRTUAL, STRING_EQUALS);
+        emit(Opcode.IFEQ, target);
+    }
+
+    private void branchIfTrue(Label target) {
+        emit(Opcode.INVOKEVIRTUAL, BOOLEAN_GET_BOOL);
+        emit(Opcode.LDC, "true");
+        emit(Opcode.INVOKEVIRTUAL, STRING_EQUALS);
+        emit(Opcode.IFNE, target);
     }
 
     private void generateDeclarationInMethod(Param param, ASTNode child) {
@@ -272,31 +460,50 @@ public class BytecodeGenerator {
             return;
         }
         var target = child.getChildren().get(0);
-        if (target.getNodeType().equals("ConstructorCall")) {
-            bytecode.append("new ").append(target.getNodeName().startsWith("Array") ? "Array": target.getNodeName()).append("\ndup\n");
+        if (target.getNodeType().equals("ConstructorCall") && isBoxedType(target.getNodeName())
+                && target.getChildren().size() == 1 && target.getChildren().get(0).getNodeType().equals("NumberLiteral")) {
+            generateBoxedLiteral(target.getNodeName(), target.getChildren().get(0).getNodeName());
+            store(param);
+        } else if (target.getNodeType().equals("ConstructorCall")
+                // var m: T := T() is parsed as a call of a method named T, or of a subclass of T
+                || target.getNodeType().equals("MethodCall") && (target.getNodeName().equals(child.getNodeTypeInfo())
+                        || classModels.containsKey(target.getNodeName()))) {
+            String owner = target.getNodeName().startsWith("Array") ? "Array" : target.getNodeName();
+            emit(Opcode.NEW, owner);
+            emit(Opcode.DUP);
 
             StringBuilder constructorType = new StringBuilder();
             for (ASTNode child2 : target.getChildren()) {
                 switch (child2.getNodeType()) {
                     case "NumberLiteral":
-                        bytecode.append("ldc ").append(child2.getNodeName()).append("\n");
-                        constructorType.append("I");
+                        // Only the runtime Array takes an int; user constructors take Integer
+                        if (owner.equals("Array")) {
+                            ldc(child2.getNodeName());
+                            constructorType.append("I");
+                        } else {
+                            generateBoxedLiteral("Integer", child2.getNodeName());
+                            constructorType.append("LInteger;");
+                        }
                         break;
                     case "StringLiteral":
-                        bytecode.append("ldc ").append(child2.getNodeName()).append("\n");
+                        ldc(child2.getNodeName());
                         constructorType.append("Ljava/lang/String;");
                         break;
                     case "identifier":
                         var param2 = findParam(child2.getNodeName(), className);
-                        bytecode.append("aload").append((Integer.parseInt(param2.getLocalPosition()) > 3 ? " " : "_"))
-                                .append(param2.getLocalPosition()).append("\n");
+                        loadVariable(param2);
                         constructorType.append(param2.getType());
                         break;
                 }
             }
-            bytecode.append("invokespecial ").append(target.getNodeName().startsWith("Array") ? "Array": target.getNodeName())
-                    .append("/<init>(").append(constructorType).append(")V\n");
-            bytecode.append("astore").append((Integer.parseInt(param.getLocalPosition()) > 3 ? " " : "_")).append(param.getLocalPosition()).append("\n");
+            invoke(Opcode.INVOKESPECIAL, owner, "<init>", "(" + constructorType + ")V");
+            store(param);
+        } else {
+            // var x: Integer := 10 and the like are stored the way an assignment stores them
+            generateOperand(target);
+            if (target.getNodeType().equals("MethodCall") && target.getNodeName().equals("get"))
+                emit(Opcode.CHECKCAST, param.getType().substring(1, param.getType().length() - 1));
+            store(param);
         }
     }
 
@@ -306,28 +513,38 @@ public class BytecodeGenerator {
                 case "identifier":
                     var param = findParam(returnNode.getChildren().get(0).getNodeName(), className);
                     assert param != null;
-                    bytecode.append("aload");
-                    bytecode.append((Integer.parseInt(param.getLocalPosition()) > 3 ? " " : "_")).append(param.getLocalPosition()).append("\n");
+                    loadVariable(param);
+                    break;
+                case "StringLiteral":
+                    ldc(returnNode.getChildren().get(0).getNodeName());
+                    break;
+                case "NumberLiteral", "BoolLiteral":
+                    // Literals are what ConstantFolder leaves of a constant expression; a method
+                    // returning Integer or Boolean returns them boxed
+                    if (returnType.equals("I"))
+                        ldc(returnNode.getChildren().get(0).getNodeName());
+                    else
+                        generateOperand(returnNode.getChildren().get(0));
                     break;
-                case "StringLiteral", "NumberLiteral":
-                    bytecode.append("ldc ").append(returnNode.getChildren().get(0).getNodeName()).append("\n");
+                case "MethodCall":
+                    generateMethodCall(returnNode.getChildren().get(0));
                     break;
                 case "FieldAccess":
                     var cur = returnNode.getChildren().get(0).getChildren().get(0);
                     var param2 = findParam(cur.getNodeName(), className);
-                    bytecode.append("getfield ").append(className).append("/").append(cur.getNodeName()).append(" ").append(param2.getType()).append("\n");
+                    emit(Opcode.GETFIELD, new MemberRef(className, cur.getNodeName(), param2.getType()));
                     break;
                 default:
                     break;
             }
 
             if (returnType.equals("I")) {
-                bytecode.append("    ireturn\n");
+                emit(Opcode.IRETURN);
             } else {
-                bytecode.append("    areturn\n");
+                emit(Opcode.ARETURN);
             }
         } else {
-            bytecode.append("    return\n");
+            emit(Opcode.RETURN);
         }
     }
 
@@ -337,31 +554,20 @@ public class BytecodeGenerator {
             switch (child.getNodeType()) {
                 case "StringLiteral":
                     assert param != null;
-                    bytecode.append("aload_0\n").append("ldc ")
-                            .append(child.getNodeName()).append("\n")
-                            .append("putfield ").append(className)
-                            .append("/").append(assignNode.getNodeName()).append(" ")
-                            .append(param.getType())
-                            .append("\n");
+                    load(0);
+                    ldc(child.getNodeName());
+                    emit(Opcode.PUTFIELD, new MemberRef(className, assignNode.getNodeName(), param.getType()));
                     break;
                 case "NumberLiteral":
-                    bytecode.append("new Integer\ndup\n")
-                            .append("ldc ").append(child.getNodeName()).append("\n")
-                            .append("invokespecial Integer/<init>(I)V\n")
-                            .append("putfield ").append(className)
-                            .append("/").append(assignNode.getNodeName()).append(" ")
-                            .append(param.getType())
-                            .append("\n");
+                    load(0);
+                    generateBoxedLiteral("Integer", child.getNodeName());
+                    emit(Opcode.PUTFIELD, new MemberRef(className, assignNode.getNodeName(), param.getType()));
                     break;
                 case "identifier":
                     assert param != null;
-                    bytecode.append("aload_0\n").append("aload")
-                            .append((Integer.parseInt((String) types.get(child.getNodeName())) > 3 ? " " : "_"))
-                            .append(types.get(child.getNodeName()))
-                            .append("\n").append("putfield ").append(className)
-                            .append("/").append(assignNode.getNodeName()).append(" ")
-                            .append(param.getType())
-                            .append("\n");
+                    load(0);
+                    load(Integer.parseInt((String) types.get(child.getNodeName())));
+                    emit(Opcode.PUTFIELD, new MemberRef(className, assignNode.getNodeName(), param.getType()));
                 case "MethodCall":
                     break;
             }
@@ -373,76 +579,104 @@ public class BytecodeGenerator {
         var value = assignNode.getChildren().get(1);
         var param = findParam(identifier.getNodeName(), className);
         assert param != null;
+        // arr := arr.set(i, x) changes the array in place, set returns nothing
+        boolean inPlace = value.getNodeType().equals("MethodCall") && value.getNodeName().equals("set")
+                && param.getType().equals("LArray;");
+        if (!param.getIsMethodParam() && !inPlace)
+            load(0);
 
         switch (value.getNodeType()) {
-            case "NumberLiteral", "StringLiteral":
-                bytecode.append("new Integer\n" +
-                                "dup\n").append("ldc ").append(value.getNodeName()).append("\n")
-                        .append("invokespecial Integer/<init>(I)V\n")
-                        .append("astore").append((Integer.parseInt(param.getLocalPosition()) > 3 ? " " : "_")).append(param.getLocalPosition()).append("\n");
+            case "NumberLiteral":
+                generateBoxedLiteral("Integer", value.getNodeName());
+                store(param);
+                break;
+            case "BoolLiteral":
+                generateBoxedLiteral("Boolean", value.getNodeName().equals("true") ? "1" : "0");
+                store(param);
+                break;
+            case "identifier":
+                var source = findParam(value.getNodeName(), className);
+                assert source != null;
+                loadVariable(source);
+                store(param);
+                break;
+            case "StringLiteral":
+                ldc(value.getNodeName());
+                store(param);
                 break;
             case "MethodCall":
                 generateMethodCall(value);
                 if (value.getNodeName().equals("get"))
-                    bytecode.append("checkcast ").append(param.getType().substring(1, param.getType().length() - 1)).append("\n");
-                if (!param.getType().startsWith("["))
-                    bytecode.append("astore").append((Integer.parseInt(param.getLocalPosition()) > 3 ? " " : "_")).append(param.getLocalPosition()).append("\n");
+                    emit(Opcode.CHECKCAST, param.getType().substring(1, param.getType().length() - 1));
+                if (!inPlace)
+                    store(param);
                 break;
         }
     }
 
     private void generateMethodCall(ASTNode methodCallNode) {
         String methodName = methodCallNode.getNodeName();
-        if (methodName.equals("Plus") || methodName.equals("Minus") || methodName.equals("Mult")
-                || methodName.equals("Div") || methodName.equals("Rem") || methodName.equals("Less")
-                || methodName.equals("LessEqual") || methodName.equals("Greater") || methodName.equals("GreaterEqual")
-                || methodName.equals("Equal")) {
+        Method target = methodName.equals("print") ? null : resolveMethod(methodCallNode);
+        if (target != null && target.getClassName().equals("Integer")
+                && (INTEGER_ARITHMETIC.containsKey(methodName) || INTEGER_COMPARISONS.containsKey(methodName))) {
+            if (tryExpandIntrinsic(methodCallNode)) {
+                return;
+            }
             for (ASTNode child : methodCallNode.getChildren()) {
                 switch (child.getNodeType()) {
                     case "identifier":
                         var localParam = findParam(child.getNodeName(), className);
                         assert localParam != null;
-                        if (localParam.getIsMethodParam())
-                            bytecode.append("aload").append((Integer.parseInt(localParam.getLocalPosition()) > 3 ? " " : "_")).append(localParam.getLocalPosition())
-                                    .append("\n");
-                        else
-                            bytecode.append("getfield ").append(className).append("/")
-                                    .append(localParam.getName()).append(localParam.getType()).append("\n");
+                        loadVariable(localParam);
                         break;
                     case "NumberLiteral":
-                        bytecode.append("ldc ").append(child.getNodeName()).append("\n");
+                        generateBoxedLiteral("Integer", child.getNodeName());
+                        break;
+                    case "MethodCall":
+                        generateMethodCall(child);
                         break;
                 }
             }
-            bytecode.append("invokevirtual ").append(methods.get(methodName).getClassName()).append("/").append(methodName)
-                    .append("(").append(methods.get(methodName).getSignature()).append(")")
-                    .append(methods.get(methodName).getReturnType()).append("\n");
+            invoke(Opcode.INVOKEVIRTUAL, "Integer", methodName, "(" + target.getSignature() + ")" + target.getReturnType());
         } else
         if (methodName.equals("print")) {
 
-            bytecode.append("getstatic java/lang/System/out Ljava/io/PrintStream;\n");
+            emit(Opcode.GETSTATIC, SYSTEM_OUT);
 
             var param = findParam(methodCallNode.getChildren().get(0).getNodeName(), className);
 
             var returnType = "";
             switch (methodCallNode.getChildren().get(0).getNodeType()) {
                 case "StringLiteral":
-                    bytecode.append("ldc ").append(methodCallNode.getChildren().get(0).getNodeName()).append("\n");
+                    ldc(methodCallNode.getChildren().get(0).getNodeName());
                     returnType = "Ljava/lang/String;";
                     break;
                 case "NumberLiteral":
-                    bytecode.append("ldc ").append(methodCallNode.getChildren().get(0).getNodeName()).append("\n");
+                    ldc(methodCallNode.getChildren().get(0).getNodeName());
                     returnType = "I";
                     break;
                 case "identifier":
-                    bytecode.append("aload").append((Integer.parseInt(param.getLocalPosition()) > 3 ? " " : "_")).append(param.getLocalPosition()).append("\n");
+                    loadVariable(param);
                     var param2 = findParam(methodCallNode.getChildren().get(0).getNodeName(), className);
                     if (param2.getType().equals("LInteger;"))
-                        bytecode.append("invokevirtual Integer/getValue()I\n");
+                        emit(Opcode.INVOKEVIRTUAL, INTEGER_GET_VALUE);
                     if (param2.getType().equals("LBoolean;"))
-                        bytecode.append("invokevirtual Boolean/getBool()Ljava/lang/String;\n");
+                        emit(Opcode.INVOKEVIRTUAL, BOOLEAN_GET_BOOL);
                     break;
                 case "MethodCall":
+                    // The analyzer recorded what the call returns, which picks the println overload
+                    ASTNode argument = methodCallNode.getChildren().get(0);
+                    generateMethodCall(argument);
+                    if ("Integer".equals(argument.getExpressionType())) {
+                        emit(Opcode.INVOKEVIRTUAL, INTEGER_GET_VALUE);
+                        returnType = "I";
+                    } else if ("Boolean".equals(argument.getExpressionType())) {
+                        emit(Opcode.INVOKEVIRTUAL, BOOLEAN_GET_BOOL);
+                        returnType = "Ljava/lang/String;";
+                    } else {
+                        returnType = "String".equals(argument.getExpressionType()) ? "Ljava/lang/String;" : "Ljava/lang/Object;";
+                    }
+                    param = null;
                     break;
             }
             if (param != null) {
@@ -454,82 +688,223 @@ public class BytecodeGenerator {
                     else
                         returnType = param.getType();
             }
-            bytecode.append("invokevirtual java/io/PrintStream/println(").append(returnType).append(")V\n");
+            invoke(Opcode.INVOKEVIRTUAL, "java/io/PrintStream", "println", "(" + returnType + ")V");
         } else {
-            for (ASTNode child : methodCallNode.getChildren()) {
-                var param = findParam(child.getNodeName(), className);
-                switch (child.getNodeType()) {
-                    case "StringLiteral", "NumberLiteral":
-                        bytecode.append("ldc ").append(child.getNodeName()).append("\n");
-                        break;
-                    case "identifier":
-                        bytecode.append("aload").append((Integer.parseInt(param.getLocalPosition()) > 3 ? " " : "_")).append(param.getLocalPosition()).append("\n");
-                        break;
+            if (target == null)
+                throw new UnsupportedOperationException("Unknown method: " + methodName);
+            // An unqualified call has only the arguments as children and runs on this
+            ASTNode parent = methodCallNode.getParent();
+            boolean onThis = (parent == null || !parent.getNodeType().equals("identifier"))
+                    && target.getArity() == methodCallNode.getChildren().size();
+            if (onThis)
+                load(0);
+            String descriptor = "(" + target.getSignature() + ")" + target.getReturnType();
+            // Children before the arguments are the receiver
+            List<ASTNode> children = methodCallNode.getChildren();
+            List<String> parameterTypes = Descriptors.argumentTypes(descriptor);
+            int receivers = children.size() - parameterTypes.size();
+            for (int i = 0; i < children.size(); i++) {
+                if (i < receivers)
+                    generateOperand(children.get(i));
+                else
+                    generateArgument(children.get(i), parameterTypes.get(i - receivers));
+            }
+            // Call sites proven monomorphic carry the class that defines the method
+            String owner = methodCallNode.getNodeTypeInfo();
+            if (owner == null)
+                invoke(Opcode.INVOKEVIRTUAL, target.getClassName(), methodName, descriptor);
+            else if (onThis && (owner.equals(className) || owner.equals(superClassName)))
+                invoke(Opcode.INVOKESPECIAL, owner, methodName, descriptor);
+            else
+                invoke(Opcode.INVOKEVIRTUAL, owner, methodName, descriptor);
+        }
+    }
+
+    // Mirrors the analyzer: a call proven monomorphic names its owner, an unqualified call of a method of
+    // the current class has only arguments as children, otherwise the first child is the receiver whose
+    // type selects the runtime or user class. In the statement form x.method(args) the receiver is the
+    // parent identifier.
+    private Method resolveMethod(ASTNode methodCallNode) {
+        String methodName = methodCallNode.getNodeName();
+        List<ASTNode> children = methodCallNode.getChildren();
+        // The overload the analyzer resolved the call to, if it is a user method
+        String key = null;
+        if (methodCallNode.getParameterTypes() != null) {
+            StringBuilder signature = new StringBuilder();
+            for (String parameterType : methodCallNode.getParameterTypes())
+                signature.append(mapType(parameterType));
+            key = methodKey(methodName, signature.toString());
+        }
+        if (methodCallNode.getNodeTypeInfo() != null)
+            return findUserMethod(methodCallNode.getNodeTypeInfo(), methodName, -1, key);
+
+        ASTNode parent = methodCallNode.getParent();
+        if (parent != null && parent.getNodeType().equals("identifier"))
+            return findMethod(typeOf(parent), methodName, children.size(), key);
+
+        Method own = findUserMethod(className, methodName, children.size(), key);
+        if (own != null || children.isEmpty())
+            return own;
+        Method method = findMethod(typeOf(children.get(0)), methodName, children.size() - 1, key);
+        return method != null ? method : RuntimeMethods.findAny(methodName, children.size() - 1);
+    }
+
+    private Method findMethod(String receiverClass, String methodName, int arity, String key) {
+        if (receiverClass == null)
+            return RuntimeMethods.findAny(methodName, arity);
+        if (RuntimeMethods.isRuntimeClass(receiverClass))
+            return RuntimeMethods.find(receiverClass, methodName, arity);
+        return findUserMethod(receiverClass, methodName, arity, key);
+    }
+
+    // User methods live in the table of the class that declares them, keyed by name and parameter
+    // descriptors. With the key of the resolved overload only that one matches; without it the
+    // method is looked up by arity, where -1 matches any, and has to be the only candidate.
+    private Method findUserMethod(String className, String methodName, int arity, String key) {
+        for (ClassModel model = classModels.get(className); model != null; model = classModels.get(model.getSuperName())) {
+            if (key != null) {
+                Method method = model.getMethods().get(key);
+                if (method != null)
+                    return method;
+                continue;
+            }
+            Method found = null;
+            for (Method method : model.getMethods().values()) {
+                if (method.getName().equals(methodName) && (arity < 0 || method.getArity() == arity)) {
+                    if (found != null)
+                        throw new UnsupportedOperationException("Cannot tell which overload of " + className + "."
+                                + methodName + " is called");
+                    found = method;
                 }
             }
-            bytecode.append("invokevirtual ").append(methods.get(methodName).getClassName()).append("/").append(methodName)
-                    .append("(").append(methods.get(methodName).getSignature()).append(")")
-                    .append(methods.get(methodName).getReturnType()).append("\n");
+            if (found != null)
+                return found;
+        }
+        return null;
+    }
+
+    private static String methodKey(String methodName, String signature) {
+        return methodName + "(" + signature + ")";
+    }
+
+    // Class of a receiver: the analyzer's type for expressions, the declared type for variables
+    private String typeOf(ASTNode receiver) {
+        String type = receiver.getExpressionType();
+        if (type == null && receiver.getNodeType().equals("identifier")) {
+            Param param = findParam(receiver.getNodeName(), className);
+            if (param != null && param.getType() != null && param.getType().startsWith("L"))
+                type = param.getType().substring(1, param.getType().length() - 1);
         }
+        if (type != null && type.startsWith("Array"))
+            return "Array";
+        return type;
     }
 
     private void generateIfStatement(ASTNode ifStatementNode) {
-        String elseLabel = ifNum + "C";
-        String endLabel = ifNum + "D";
+        // The profile-guided build marks the ifs whose else branch ran more often than the then
+        // branch; that one is laid out first so the common path falls through without a jump
+        boolean elseFirst = "ElseBlock".equals(ifStatementNode.getNodeTypeInfo());
+        Label otherLabel = new Label();
+        Label endLabel = new Label();
+        ASTNode thenBlock = null;
+        ASTNode elseBlock = null;
         for (ASTNode child : ifStatementNode.getChildren()) {
             switch (child.getNodeType()) {
                 case "identifier":
                     var param2 = findParam(child.getNodeName(), className);
-                    bytecode.append("aload").append((Integer.parseInt(param2.getLocalPosition()) > 3 ? " " : "_")).append(param2.getLocalPosition()).append("\n");
-                    bytecode.append("invokevirtual Boolean/getBool()Ljava/lang/String;\nldc \"true\"\n" +
-                            "invokevirtual java/lang/String/equals(Ljava/lang/Object;)Z\n" +
-                            "ifeq ").append(elseLabel).append("\n");
-                    break;
-                case "ThenBlock", "ElseBlock":
-                    if (child.getNodeType().equals("ElseBlock"))
-                        bytecode.append(elseLabel).append(":\n");
-                    for (ASTNode child2 : child.getChildren()) {
-                        switch (child2.getNodeType()) {
-                            case "assignment":
-                                generateAssignmentInMethod(child2);
-                                break;
-                            case "MethodCall":
-                                generateMethodCall(child2);
-                                break;
-                            case "IfStatement":
-                                generateIfStatement(child2);
-                                break;
-                            case "WhileStatement":
-                                generateWhileStatement(child2);
-                                break;
-                            default:
-                                throw new UnsupportedOperationException("Unknown ifStatement element: " + child2.getNodeType());
-                        }
-                    }
-                    if (child.getNodeType().equals("ThenBlock"))
-                        bytecode.append("goto ").append(endLabel).append("\n");
-                    else
-                        bytecode.append(endLabel).append(":\n");
+                    loadVariable(param2);
+                    break;
+                case "MethodCall":
+                    generateMethodCall(child);
                     break;
+                case "ThenBlock":
+                    thenBlock = child;
+                    break;
+                case "ElseBlock":
+                    elseBlock = child;
+                    break;
+            }
+        }
+        if (elseFirst) {
+            branchIfTrue(otherLabel);
+            generateBlock(elseBlock);
+            emit(Opcode.GOTO, endLabel);
+            mark(otherLabel);
+            generateBlock(thenBlock);
+        } else {
+            branchIfFalse(otherLabel);
+            generateBlock(thenBlock);
+            emit(Opcode.GOTO, endLabel);
+            mark(otherLabel);
+            if (elseBlock != null)
+                generateBlock(elseBlock);
+        }
+        mark(endLabel);
+    }
+
+    private void generateBlock(ASTNode block) {
+        for (ASTNode child : block.getChildren()) {
+            switch (child.getNodeType()) {
+                case "assignment":
+                    generateAssignmentInMethod(child);
+                    break;
+                case "MethodCall":
+                    generateMethodCall(child);
+                    break;
+                case "IfStatement":
+                    generateIfStatement(child);
+                    break;
+                case "WhileStatement":
+                    generateWhileStatement(child);
+                    break;
+                case "ReturnStatement":
+                    generateReturnStatement(child, methodReturnType);
+                    break;
+                case "TailCall":
+                    generateTailCall(child);
+                    break;
+                case "ProfileCounter":
+                    generateProfileCounter(child);
+                    break;
+                default:
+                    throw new UnsupportedOperationException("Unknown ifStatement element: " + child.getNodeType());
             }
         }
-        ifNum += "A";
+    }
+
+    // Adds one to the counter the node names in the shared array of ProfileClass
+    private void generateProfileCounter(ASTNode counterNode) {
+        emit(Opcode.GETSTATIC, ProfileClass.COUNTERS);
+        emit(Opcode.LDC, Integer.parseInt(counterNode.getNodeName()));
+        emit(Opcode.DUP2);
+        emit(Opcode.LALOAD);
+        emit(Opcode.LCONST_1);
+        emit(Opcode.LADD);
+        emit(Opcode.LASTORE);
     }
 
     private void generateWhileStatement(ASTNode whileStatementNode) {
-        bytecode.append(whileNum).append(":\n");
-        var whileEnd = whileNum + "E";
-        for (ASTNode child : whileStatementNode.getChildren()) {
-            if (child.getNodeType().equals("identifier") && child.getChildren().isEmpty()) {
-                var param2 = findParam(child.getNodeName(), className);
-                bytecode.append("aload").append((Integer.parseInt(param2.getLocalPosition()) > 3 ? " " : "_")).append(param2.getLocalPosition()).append("\n");
-                bytecode.append("invokevirtual Boolean/getBool()Ljava/lang/String;\nldc \"true\"\n" +
-                        "invokevirtual java/lang/String/equals(Ljava/lang/Object;)Z\n" +
-                        "ifeq ").append(whileEnd).append("\n");
-                break;
+        Label whileStart = new Label();
+        Label whileEnd = new Label();
+        mark(whileStart);
+        // The parser adds the condition after the body; a call there is tested like a variable
+        ASTNode condition = whileStatementNode.getChildren().getLast();
+        if (condition.getNodeType().equals("MethodCall")) {
+            generateMethodCall(condition);
+            branchIfFalse(whileEnd);
+        } else {
+            for (ASTNode child : whileStatementNode.getChildren()) {
+                if (child.getNodeType().equals("identifier") && child.getChildren().isEmpty()) {
+                    var param2 = findParam(child.getNodeName(), className);
+                    loadVariable(param2);
+                    branchIfFalse(whileEnd);
+                    break;
+                }
             }
         }
         for (ASTNode child : whileStatementNode.getChildren()) {
+            if (child == condition && condition.getNodeType().equals("MethodCall"))
+                continue;
             switch (child.getNodeType()) {
                 case "assignment":
                     generateAssignmentInMethod(child);
@@ -543,24 +918,163 @@ public class BytecodeGenerator {
                 case "WhileStatement":
                     generateWhileStatement(child);
                     break;
+                case "ReturnStatement":
+                    generateReturnStatement(child, methodReturnType);
+                    break;
+                case "TailCall":
+                    generateTailCall(child);
+                    break;
+                case "ProfileCounter":
+                    generateProfileCounter(child);
+                    break;
                 case "identifier":
                     if (child.getChildren().isEmpty())
                         break;
                     var localParam = findParam(child.getNodeName(), className);
                     assert localParam != null;
-                    if (localParam.getIsMethodParam())
-                        bytecode.append("aload").append((Integer.parseInt(localParam.getLocalPosition()) > 3 ? " " : "_")).append(localParam.getLocalPosition())
-                                .append("\n");
-                    else
-                        bytecode.append("getfield ").append(className).append("/")
-                                .append(localParam.getName()).append(localParam.getType()).append("\n");
+                    loadVariable(localParam);
                     generateMethodCall(child.getChildren().get(0));
                     break;
                 default:
                     break;
             }
         }
-        bytecode.append("goto ").append(whileNum).append("\n").append(whileEnd).append(":\n");
+        emit(Opcode.GOTO, whileStart);
+        mark(whileEnd);
+    }
+
+    // Integer arithmetic and comparisons are a handful of instructions in Integer.j, so with both
+    // operands at hand the body is emitted directly on the int values instead of an invokevirtual
+    private boolean tryExpandIntrinsic(ASTNode methodCallNode) {
+        String methodName = methodCallNode.getNodeName();
+        int cost = INTEGER_ARITHMETIC.containsKey(methodName) ? 3 : 8;
+        if (methodCallNode.getChildren().size() != 2 || cost > intrinsicBudget) {
+            return false;
+        }
+        for (ASTNode child : methodCallNode.getChildren()) {
+            if (child.getNodeType().equals("NumberLiteral"))
+                continue;
+            // A nested call qualifies when the analyzer typed it as Integer; its result is unboxed like a variable
+            if (child.getNodeType().equals("MethodCall") && "Integer".equals(child.getExpressionType()))
+                continue;
+            if (!child.getNodeType().equals("identifier"))
+                return false;
+            var localParam = findParam(child.getNodeName(), className);
+            if (localParam == null || !localParam.getType().equals("LInteger;"))
+                return false;
+        }
+        intrinsicBudget -= cost;
+
+        for (ASTNode child : methodCallNode.getChildren()) {
+            if (child.getNodeType().equals("NumberLiteral")) {
+                ldc(child.getNodeName());
+                continue;
+            }
+            if (child.getNodeType().equals("MethodCall")) {
+                generateMethodCall(child);
+                emit(Opcode.GETFIELD, INTEGER_VALUE);
+                continue;
+            }
+            var localParam = findParam(child.getNodeName(), className);
+            loadVariable(localParam);
+            emit(Opcode.GETFIELD, INTEGER_VALUE);
+        }
+
+        if (INTEGER_ARITHMETIC.containsKey(methodName)) {
+            emit(INTEGER_ARITHMETIC.get(methodName));
+            invoke(Opcode.INVOKESTATIC, "Integer", "valueOf", "(I)LInteger;");
+        } else {
+            Label trueLabel = new Label();
+            Label endLabel = new Label();
+            emit(INTEGER_COMPARISONS.get(methodName), trueLabel);
+            emit(Opcode.ICONST_0);
+            emit(Opcode.GOTO, endLabel);
+            mark(trueLabel);
+            emit(Opcode.ICONST_1);
+            mark(endLabel);
+            invoke(Opcode.INVOKESTATIC, "Boolean", "valueOf", "(I)LBoolean;");
+        }
+        return true;
+    }
+
+    // Self-recursive call in tail position: all new argument values are computed first, then stored
+    // into the argument slots (1..n) in reverse order, so an argument can be read by a later one
+    private void generateTailCall(ASTNode tailCallNode) {
+        List<ASTNode> arguments = tailCallNode.getChildren();
+        for (ASTNode argument : arguments) {
+            generateOperand(argument);
+        }
+        // Slots follow the descriptor; TailCallEliminator only rewrites methods whose arguments are
+        // all references, the only kind of local this generator stores
+        List<String> types = Descriptors.argumentTypes(currentMethod.getDescriptor());
+        int[] slots = new int[types.size()];
+        for (int i = 0, slot = 1; i < types.size(); slot += Descriptors.slots(types.get(i)), i++) {
+            if (!types.get(i).startsWith("L") && !types.get(i).startsWith("[")) {
+                throw new UnsupportedOperationException("Tail call with a primitive argument: " + types.get(i));
+            }
+            slots[i] = slot;
+        }
+        for (int i = slots.length - 1; i >= 0; i--) {
+            emit(Opcode.ASTORE, slots[i]);
+        }
+        emit(Opcode.GOTO, tailCallEntry);
+    }
+
+    private void generateOperand(ASTNode operand) {
+        switch (operand.getNodeType()) {
+            case "identifier":
+                var param = findParam(operand.getNodeName(), className);
+                assert param != null;
+                loadVariable(param);
+                break;
+            case "NumberLiteral":
+                generateBoxedLiteral("Integer", operand.getNodeName());
+                break;
+            case "BoolLiteral":
+                generateBoxedLiteral("Boolean", operand.getNodeName().equals("true") ? "1" : "0");
+                break;
+            case "StringLiteral":
+                ldc(operand.getNodeName());
+                break;
+            case "MethodCall":
+                generateMethodCall(operand);
+                break;
+            default:
+                throw new UnsupportedOperationException("Unknown operand: " + operand.getNodeType());
+        }
+    }
+
+    // Argument as the parameter takes it: boxed, or an int for runtime methods such as Array.get
+    private void generateArgument(ASTNode argument, String parameterType) {
+        if (parameterType.equals("I") && argument.getNodeType().equals("NumberLiteral")) {
+            ldc(argument.getNodeName());
+            return;
+        }
+        generateOperand(argument);
+        if (parameterType.equals("I"))
+            emit(Opcode.GETFIELD, INTEGER_VALUE);
+    }
+
+    private boolean containsTailCall(ASTNode node) {
+        if (node.getNodeType().equals("TailCall")) {
+            return true;
+        }
+        for (ASTNode child : node.getChildren()) {
+            if (containsTailCall(child)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isBoxedType(String type) {
+        return type.equals("Integer") || type.equals("Boolean");
+    }
+
+    // Boxed runtime values come from the shared valueOf caches instead of a fresh new/<init> pair.
+    private void generateBoxedLiteral(String type, String value) {
+        ldc(value);
+        invoke(Opcode.INVOKESTATIC, type, "valueOf", "(I)L" + type + ";");
     }
 
     private String mapType(String type) {
@@ -574,18 +1088,30 @@ public class BytecodeGenerator {
             case "Boolean":
                 return "LBoolean;";
             default:
-                if (!type.startsWith("Array"))
-                    return "L" + type + ";";
-                return "[" + mapType(type.substring(6, type.length() - 1));
+                // Array[T] is the runtime Array class whatever T is, as in the constructor call
+                if (type.startsWith("Array"))
+                    return "LArray;";
+                return "L" + type + ";";
         }
     }
 
+    // A local of the current method, else a field of the class or of an ancestor
     private Param findParam(String paramName, String className) {
-        for (Param param : params) {
-            if (param.getName().equals(paramName) && param.getClassOwner().equals(className)) {
+        // Latest first, so a redeclared local resolves to its last declaration
+        for (Param param : locals.reversed()) {
+            if (param.getName().equals(paramName)) {
                 return param;
             }
         }
+
+        // Fields declared by an ancestor are accessed through the current class, where the JVM resolves them
+        for (ClassModel ancestor = classModels.get(className); ancestor != null;
+             ancestor = classModels.get(ancestor.getSuperName())) {
+            String fieldType = ancestor.getFields().get(paramName);
+            if (fieldType != null) {
+                return new Param(paramName, fieldType, className, true, null, false, null);
+            }
+        }
         return null;
     }
-}
\ No newline at end of file
+}
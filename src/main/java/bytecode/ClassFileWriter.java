@@ -0,0 +1,346 @@
+package bytecode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Serializes a class to the binary class file format. From version 51 on the JVM verifies methods
+ * only by type checking against the StackMapTable, without falling back to type inference, so every
+ * method carries the frames {@link StackMapFrames} computes; code no path reaches is left out since
+ * it could not be given a frame.
+ */
+final class ClassFileWriter {
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int MAJOR_VERSION = 51;
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_PROTECTED = 0x0004;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private static final int SAME_LOCALS_1_STACK_ITEM = 64;
+    private static final int SAME_LOCALS_1_STACK_ITEM_EXTENDED = 247;
+    private static final int SAME_FRAME_EXTENDED = 251;
+    private static final int FULL_FRAME = 255;
+
+    private static final int WIDE = 0xc4;
+    private static final int LDC_W = 0x13;
+
+    private final ConstantPool pool = new ConstantPool();
+    private final String className;
+    private final UnaryOperator<String> superClassOf;
+
+    private ClassFileWriter(String className, UnaryOperator<String> superClassOf) {
+        this.className = className;
+        this.superClassOf = superClassOf;
+    }
+
+    // For a class whose frames only merge values of the same class, or of classes extending Object
+    static byte[] write(GeneratedClass generatedClass) {
+        return write(generatedClass, name -> null);
+    }
+
+    // The hierarchy names the superclass of a class, or null for one it does not know
+    static byte[] write(GeneratedClass generatedClass, UnaryOperator<String> superClassOf) {
+        try {
+            return new ClassFileWriter(generatedClass.getName(), superClassOf).writeClass(generatedClass);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] writeClass(GeneratedClass generatedClass) throws IOException {
+        // The body refers to the constant pool, which precedes it in the file
+        ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+        DataOutputStream body = new DataOutputStream(bodyBytes);
+        body.writeShort(ACC_PUBLIC | ACC_SUPER);
+        body.writeShort(pool.classRef(generatedClass.getName()));
+        body.writeShort(pool.classRef(generatedClass.getSuperName()));
+        body.writeShort(0);
+
+        body.writeShort(generatedClass.getFields().size());
+        for (GeneratedClass.Field field : generatedClass.getFields()) {
+            body.writeShort(accessFlags(field.access()));
+            body.writeShort(pool.utf8(field.name()));
+            body.writeShort(pool.utf8(field.descriptor()));
+            body.writeShort(0);
+        }
+
+        body.writeShort(generatedClass.getMethods().size());
+        for (GeneratedMethod method : generatedClass.getMethods()) {
+            body.writeShort(accessFlags(method.getAccess()));
+            body.writeShort(pool.utf8(method.getName()));
+            body.writeShort(pool.utf8(method.getDescriptor()));
+            body.writeShort(1);
+            writeCode(body, method);
+        }
+        body.writeShort(0);
+
+        ByteArrayOutputStream classBytes = new ByteArrayOutputStream(bodyBytes.size() + 1024);
+        DataOutputStream out = new DataOutputStream(classBytes);
+        out.writeInt(MAGIC);
+        out.writeShort(0);
+        out.writeShort(MAJOR_VERSION);
+        pool.writeTo(out);
+        bodyBytes.writeTo(out);
+        return classBytes.toByteArray();
+    }
+
+    private void writeCode(DataOutputStream out, GeneratedMethod method) throws IOException {
+        List<Instruction> code = method.getCode();
+        StackMapFrames frames = StackMapFrames.compute(className, method, superClassOf);
+        // Sizes depend only on operands and constant pool indexes, so offsets are known before encoding
+        Map<Label, Integer> labelOffsets = new IdentityHashMap<>();
+        int[] offsets = new int[code.size() + 1];
+        for (int i = 0; i < code.size(); i++) {
+            Instruction instruction = code.get(i);
+            if (instruction.isLabel()) {
+                labelOffsets.put(instruction.getLabel(), offsets[i]);
+            }
+            offsets[i + 1] = offsets[i] + (frames.isReachable(i) ? size(instruction) : 0);
+        }
+
+        ByteArrayOutputStream codeBytes = new ByteArrayOutputStream(offsets[code.size()]);
+        DataOutputStream bytecode = new DataOutputStream(codeBytes);
+        for (int i = 0; i < code.size(); i++) {
+            if (frames.isReachable(i)) {
+                encode(bytecode, code.get(i), offsets[i], labelOffsets);
+            }
+        }
+        byte[] stackMapTable = stackMapTable(code, offsets, frames);
+
+        out.writeShort(pool.utf8("Code"));
+        out.writeInt(12 + codeBytes.size() + (stackMapTable == null ? 0 : 6 + stackMapTable.length));
+        out.writeShort(method.computeMaxStack());
+        out.writeShort(method.computeMaxLocals());
+        out.writeInt(codeBytes.size());
+        codeBytes.writeTo(out);
+        out.writeShort(0);
+        if (stackMapTable == null) {
+            out.writeShort(0);
+        } else {
+            out.writeShort(1);
+            out.writeShort(pool.utf8("StackMapTable"));
+            out.writeInt(stackMapTable.length);
+            out.write(stackMapTable);
+        }
+    }
+
+    // One frame per offset that a branch targets, each written relative to the one before in the
+    // shortest form that describes it; null when the method has no branch
+    private byte[] stackMapTable(List<Instruction> code, int[] offsets, StackMapFrames frames) throws IOException {
+        // Of several labels at one offset the last has the frame merged from all of them
+        TreeMap<Integer, StackMapFrames.Frame> targets = new TreeMap<>();
+        for (int i = 0; i < code.size(); i++) {
+            Instruction instruction = code.get(i);
+            if (instruction.isLabel() && frames.isReachable(i) && frames.isBranchTarget(instruction.getLabel())) {
+                targets.put(offsets[i], frames.frameAt(i));
+            }
+        }
+        if (targets.isEmpty()) {
+            return null;
+        }
+
+        ByteArrayOutputStream tableBytes = new ByteArrayOutputStream();
+        DataOutputStream table = new DataOutputStream(tableBytes);
+        table.writeShort(targets.size());
+        List<VerificationType> previousLocals = frameLocals(frames.initialFrame());
+        int previousOffset = -1;
+        for (Map.Entry<Integer, StackMapFrames.Frame> target : targets.entrySet()) {
+            int delta = target.getKey() - previousOffset - 1;
+            List<VerificationType> locals = frameLocals(target.getValue());
+            List<VerificationType> stack = target.getValue().stack();
+            int added = locals.size() - previousLocals.size();
+            if (locals.equals(previousLocals) && stack.isEmpty()) {
+                if (delta < 64) {
+                    table.writeByte(delta);
+                } else {
+                    table.writeByte(SAME_FRAME_EXTENDED);
+                    table.writeShort(delta);
+                }
+            } else if (locals.equals(previousLocals) && stack.size() == 1) {
+                if (delta < 64) {
+                    table.writeByte(SAME_LOCALS_1_STACK_ITEM + delta);
+                } else {
+                    table.writeByte(SAME_LOCALS_1_STACK_ITEM_EXTENDED);
+                    table.writeShort(delta);
+                }
+                writeType(table, stack.getFirst(), offsets);
+            } else if (stack.isEmpty() && added != 0 && Math.abs(added) <= 3
+                    && (added > 0 ? locals.subList(0, previousLocals.size()).equals(previousLocals)
+                    : previousLocals.subList(0, locals.size()).equals(locals))) {
+                // Chop frames drop up to three locals and are numbered below same_frame_extended, append
+                // frames add up to three and are numbered above it
+                table.writeByte(SAME_FRAME_EXTENDED + added);
+                table.writeShort(delta);
+                for (VerificationType type : locals.subList(Math.min(locals.size(), previousLocals.size()), locals.size())) {
+                    writeType(table, type, offsets);
+                }
+            } else {
+                table.writeByte(FULL_FRAME);
+                table.writeShort(delta);
+                table.writeShort(locals.size());
+                for (VerificationType type : locals) {
+                    writeType(table, type, offsets);
+                }
+                table.writeShort(stack.size());
+                for (VerificationType type : stack) {
+                    writeType(table, type, offsets);
+                }
+            }
+            previousLocals = locals;
+            previousOffset = target.getKey();
+        }
+        return tableBytes.toByteArray();
+    }
+
+    // Locals as a frame lists them: one entry for a long or double, no trailing unused slots
+    private static List<VerificationType> frameLocals(StackMapFrames.Frame frame) {
+        List<VerificationType> locals = new ArrayList<>();
+        List<VerificationType> slots = frame.locals();
+        for (int i = 0; i < slots.size(); i++) {
+            locals.add(slots.get(i));
+            if (slots.get(i).isWide()) {
+                i++;
+            }
+        }
+        while (!locals.isEmpty() && locals.getLast().equals(VerificationType.TOP)) {
+            locals.removeLast();
+        }
+        return locals;
+    }
+
+    private void writeType(DataOutputStream out, VerificationType type, int[] offsets) throws IOException {
+        out.writeByte(type.tag());
+        if (type.tag() == VerificationType.OBJECT_TAG) {
+            out.writeShort(pool.classRef(type.className()));
+        } else if (type.tag() == VerificationType.UNINITIALIZED_TAG) {
+            out.writeShort(offsets[type.newIndex()]);
+        }
+    }
+
+    private int size(Instruction instruction) {
+        if (instruction.isLabel()) {
+            return 0;
+        }
+        Opcode opcode = instruction.getOpcode();
+        return switch (opcode.getOperand()) {
+            case NONE -> 1;
+            case BYTE, ARRAY_TYPE -> 2;
+            case SHORT, BRANCH, FIELD, METHOD, CLASS -> 3;
+            case CONSTANT -> pool.constant(instruction.getOperand()) < 256 ? 2 : 3;
+            case LOCAL -> {
+                int local = instruction.getLocal();
+                yield local <= 3 ? 1 : local <= 255 ? 2 : 4;
+            }
+            case INCREMENT -> {
+                Increment increment = (Increment) instruction.getOperand();
+                yield increment.local() <= 255 && increment.delta() == (byte) increment.delta() ? 3 : 6;
+            }
+        };
+    }
+
+    private void encode(DataOutputStream out, Instruction instruction, int offset, Map<Label, Integer> labels)
+            throws IOException {
+        if (instruction.isLabel()) {
+            return;
+        }
+        Opcode opcode = instruction.getOpcode();
+        switch (opcode.getOperand()) {
+            case NONE -> out.writeByte(opcode.getCode());
+            case BYTE -> {
+                out.writeByte(opcode.getCode());
+                out.writeByte((Integer) instruction.getOperand());
+            }
+            case SHORT -> {
+                out.writeByte(opcode.getCode());
+                out.writeShort((Integer) instruction.getOperand());
+            }
+            case CONSTANT -> {
+                int index = pool.constant(instruction.getOperand());
+                if (index < 256) {
+                    out.writeByte(opcode.getCode());
+                    out.writeByte(index);
+                } else {
+                    out.writeByte(LDC_W);
+                    out.writeShort(index);
+                }
+            }
+            case LOCAL -> {
+                int local = instruction.getLocal();
+                if (local <= 3) {
+                    out.writeByte(opcode.getShortForm() + local);
+                } else if (local <= 255) {
+                    out.writeByte(opcode.getCode());
+                    out.writeByte(local);
+                } else {
+                    out.writeByte(WIDE);
+                    out.writeByte(opcode.getCode());
+                    out.writeShort(local);
+                }
+            }
+            case INCREMENT -> {
+                Increment increment = (Increment) instruction.getOperand();
+                if (increment.local() <= 255 && increment.delta() == (byte) increment.delta()) {
+                    out.writeByte(opcode.getCode());
+                    out.writeByte(increment.local());
+                    out.writeByte(increment.delta());
+                } else {
+                    out.writeByte(WIDE);
+                    out.writeByte(opcode.getCode());
+                    out.writeShort(increment.local());
+                    out.writeShort(increment.delta());
+                }
+            }
+            case BRANCH -> {
+                int jump = labels.get(instruction.getTarget()) - offset;
+                if (jump != (short) jump) {
+                    throw new IllegalStateException("Branch offset out of range: " + jump);
+                }
+                out.writeByte(opcode.getCode());
+                out.writeShort(jump);
+            }
+            case FIELD -> {
+                out.writeByte(opcode.getCode());
+                out.writeShort(pool.fieldRef(instruction.getMember()));
+            }
+            case METHOD -> {
+                out.writeByte(opcode.getCode());
+                out.writeShort(pool.methodRef(instruction.getMember()));
+            }
+            case CLASS -> {
+                out.writeByte(opcode.getCode());
+                out.writeShort(pool.classRef((String) instruction.getOperand()));
+            }
+            case ARRAY_TYPE -> {
+                out.writeByte(opcode.getCode());
+                out.writeByte(Descriptors.arrayTypeCode((String) instruction.getOperand()));
+            }
+        }
+    }
+
+    private static int accessFlags(String access) {
+        int flags = 0;
+        for (String keyword : access.split(" ")) {
+            flags |= switch (keyword) {
+                case "public" -> ACC_PUBLIC;
+                case "private" -> ACC_PRIVATE;
+                case "protected" -> ACC_PROTECTED;
+                case "static" -> ACC_STATIC;
+                case "final" -> ACC_FINAL;
+                default -> 0;
+            };
+        }
+        return flags;
+    }
+}
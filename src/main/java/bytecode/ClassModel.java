@@ -0,0 +1,16 @@
+package bytecode;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Getter
+@RequiredArgsConstructor
+public class ClassModel {
+    private final String name;
+    private final String superName;
+    private final Map<String, String> fields = new LinkedHashMap<>();
+    private final Map<String, Method> methods = new LinkedHashMap<>();
+}
@@ -0,0 +1,71 @@
+package bytecode;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Limits of a method body, derived by following its control flow
+final class CodeAnalysis {
+    private CodeAnalysis() {
+    }
+
+    static Map<Label, Integer> labelPositions(List<Instruction> code) {
+        Map<Label, Integer> positions = new HashMap<>();
+        for (int i = 0; i < code.size(); i++) {
+            if (code.get(i).isLabel()) {
+                positions.put(code.get(i).getLabel(), i);
+            }
+        }
+        return positions;
+    }
+
+    // Deepest operand stack over all reachable instructions. Every instruction is visited with the
+    // depth of the first path that reaches it; generated code has the same depth on all paths.
+    static int maxStack(List<Instruction> code) {
+        Map<Label, Integer> positions = labelPositions(code);
+        int[] depths = new int[code.size()];
+        Arrays.fill(depths, -1);
+        Deque<Integer> pending = new ArrayDeque<>();
+        int max = 0;
+        if (!code.isEmpty()) {
+            depths[0] = 0;
+            pending.push(0);
+        }
+        while (!pending.isEmpty()) {
+            int i = pending.pop();
+            int depth = depths[i];
+            for (; i < code.size(); i++) {
+                Instruction instruction = code.get(i);
+                depths[i] = depth;
+                depth += instruction.pushes() - instruction.pops();
+                max = Math.max(max, depth);
+                if (instruction.isBranch()) {
+                    int target = positions.get(instruction.getTarget());
+                    if (depths[target] < 0) {
+                        depths[target] = depth;
+                        pending.push(target);
+                    }
+                }
+                if (instruction.isTerminal() || i + 1 < code.size() && depths[i + 1] >= 0) {
+                    break;
+                }
+            }
+        }
+        return max;
+    }
+
+    // Receiver and arguments, then every slot a load, store or iinc touches
+    static int maxLocals(GeneratedMethod method) {
+        int max = (method.isStatic() ? 0 : 1) + Descriptors.argumentSlots(method.getDescriptor());
+        for (Instruction instruction : method.getCode()) {
+            int local = instruction.getLocal();
+            if (local >= 0) {
+                max = Math.max(max, local + 1);
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,108 @@
+package bytecode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+// Constant pool of one class file; every constant is added once and referred to by its index
+final class ConstantPool {
+    private static final int UTF8 = 1;
+    private static final int INTEGER = 3;
+    private static final int FLOAT = 4;
+    private static final int CLASS = 7;
+    private static final int STRING = 8;
+    private static final int FIELD_REF = 9;
+    private static final int METHOD_REF = 10;
+    private static final int NAME_AND_TYPE = 12;
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final DataOutputStream data = new DataOutputStream(bytes);
+    private final Map<Object, Integer> indexes = new HashMap<>();
+    private int count = 1;
+
+    int utf8(String value) {
+        return add(UTF8 + ":" + value, () -> data.writeUTF(value), UTF8);
+    }
+
+    int classRef(String internalName) {
+        int name = utf8(internalName);
+        return add(CLASS + ":" + internalName, () -> data.writeShort(name), CLASS);
+    }
+
+    int string(String value) {
+        int utf8 = utf8(value);
+        return add(STRING + ":" + value, () -> data.writeShort(utf8), STRING);
+    }
+
+    int integer(int value) {
+        return add(INTEGER + ":" + value, () -> data.writeInt(value), INTEGER);
+    }
+
+    int floatValue(float value) {
+        return add(FLOAT + ":" + Float.floatToIntBits(value), () -> data.writeFloat(value), FLOAT);
+    }
+
+    // Index for ldc of an Integer, Float or String constant
+    int constant(Object value) {
+        if (value instanceof Integer integer) {
+            return integer(integer);
+        }
+        if (value instanceof Float floatValue) {
+            return floatValue(floatValue);
+        }
+        return string((String) value);
+    }
+
+    int fieldRef(MemberRef field) {
+        return memberRef(FIELD_REF, field);
+    }
+
+    int methodRef(MemberRef method) {
+        return memberRef(METHOD_REF, method);
+    }
+
+    int size() {
+        return count;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeShort(count);
+        bytes.writeTo(out);
+    }
+
+    private int memberRef(int tag, MemberRef member) {
+        int owner = classRef(member.owner());
+        int name = utf8(member.name());
+        int descriptor = utf8(member.descriptor());
+        int nameAndType = add(NAME_AND_TYPE + ":" + member.name() + ":" + member.descriptor(), () -> {
+            data.writeShort(name);
+            data.writeShort(descriptor);
+        }, NAME_AND_TYPE);
+        return add(tag + ":" + member, () -> {
+            data.writeShort(owner);
+            data.writeShort(nameAndType);
+        }, tag);
+    }
+
+    private interface Entry {
+        void write() throws IOException;
+    }
+
+    private int add(String key, Entry entry, int tag) {
+        Integer index = indexes.get(key);
+        if (index != null) {
+            return index;
+        }
+        try {
+            data.writeByte(tag);
+            entry.write();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        indexes.put(key, count);
+        return count++;
+    }
+}
@@ -0,0 +1,78 @@
+package bytecode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Helpers over JVM type and method descriptors such as LInteger; or (ILjava/lang/Object;)V
+final class Descriptors {
+    private Descriptors() {
+    }
+
+    // Operand stack or local variable slots a value of the type takes
+    static int slots(String type) {
+        return switch (type) {
+            case "V" -> 0;
+            case "J", "D" -> 2;
+            default -> 1;
+        };
+    }
+
+    static List<String> argumentTypes(String methodDescriptor) {
+        List<String> types = new ArrayList<>();
+        int i = 1;
+        while (methodDescriptor.charAt(i) != ')') {
+            int start = i;
+            while (methodDescriptor.charAt(i) == '[') {
+                i++;
+            }
+            if (methodDescriptor.charAt(i) == 'L') {
+                i = methodDescriptor.indexOf(';', i);
+            }
+            i++;
+            types.add(methodDescriptor.substring(start, i));
+        }
+        return types;
+    }
+
+    static int argumentSlots(String methodDescriptor) {
+        int slots = 0;
+        for (String type : argumentTypes(methodDescriptor)) {
+            slots += slots(type);
+        }
+        return slots;
+    }
+
+    static String returnType(String methodDescriptor) {
+        return methodDescriptor.substring(methodDescriptor.indexOf(')') + 1);
+    }
+
+    // Descriptor of an array of the primitive type newarray names, e.g. [J for long
+    static String primitiveArray(String typeName) {
+        return switch (typeName) {
+            case "boolean" -> "[Z";
+            case "char" -> "[C";
+            case "float" -> "[F";
+            case "double" -> "[D";
+            case "byte" -> "[B";
+            case "short" -> "[S";
+            case "int" -> "[I";
+            case "long" -> "[J";
+            default -> throw new IllegalArgumentException("Not a primitive type: " + typeName);
+        };
+    }
+
+    // Operand byte of newarray for a primitive type name
+    static int arrayTypeCode(String typeName) {
+        return switch (typeName) {
+            case "boolean" -> 4;
+            case "char" -> 5;
+            case "float" -> 6;
+            case "double" -> 7;
+            case "byte" -> 8;
+            case "short" -> 9;
+            case "int" -> 10;
+            case "long" -> 11;
+            default -> throw new IllegalArgumentException("Not a primitive type: " + typeName);
+        };
+    }
+}
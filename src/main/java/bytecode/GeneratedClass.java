@@ -0,0 +1,23 @@
+package bytecode;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A class as the serializers see it: header, fields and method bodies. Access is written with the
+ * Jasmin keywords, e.g. "protected" or "private static".
+ */
+@Getter
+@RequiredArgsConstructor
+final class GeneratedClass {
+    record Field(String access, String name, String descriptor) {
+    }
+
+    private final String name;
+    private final String superName;
+    private final List<Field> fields = new ArrayList<>();
+    private final List<GeneratedMethod> methods = new ArrayList<>();
+}
@@ -0,0 +1,36 @@
+package bytecode;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Method header and body. The limits are computed from the code unless they were given, as in a
+ * Jasmin file with .limit directives.
+ */
+@Getter
+@Setter
+@RequiredArgsConstructor
+final class GeneratedMethod {
+    private final String access;
+    private final String name;
+    private final String descriptor;
+    private List<Instruction> code = new ArrayList<>();
+    private int maxStack = -1;
+    private int maxLocals = -1;
+
+    boolean isStatic() {
+        return access.contains("static");
+    }
+
+    int computeMaxStack() {
+        return maxStack >= 0 ? maxStack : CodeAnalysis.maxStack(code);
+    }
+
+    int computeMaxLocals() {
+        return maxLocals >= 0 ? maxLocals : CodeAnalysis.maxLocals(this);
+    }
+}
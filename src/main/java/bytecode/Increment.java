@@ -0,0 +1,5 @@
+package bytecode;
+
+// Operand of iinc: local slot and the constant added to it
+record Increment(int local, int delta) {
+}
@@ -0,0 +1,112 @@
+package bytecode;
+
+import lombok.Getter;
+
+/**
+ * Entry of a method body: an opcode with its operand, or the position of a label. The operand
+ * depends on the opcode: the local slot for loads and stores, an Integer for bipush and sipush, an
+ * Integer, Float or String for ldc, a {@link Label} for branches, a {@link MemberRef} for field and
+ * method instructions, an internal class name for new, anewarray and checkcast, a primitive type
+ * name such as long for newarray and an {@link Increment} for iinc. Labels stay in the list, so a
+ * rewrite that needs adjacent instructions never reaches across a jump target.
+ */
+@Getter
+final class Instruction {
+    private final Opcode opcode;
+    private final Object operand;
+    private final Label label;
+
+    private Instruction(Opcode opcode, Object operand, Label label) {
+        this.opcode = opcode;
+        this.operand = operand;
+        this.label = label;
+    }
+
+    static Instruction of(Opcode opcode) {
+        return new Instruction(opcode, null, null);
+    }
+
+    static Instruction of(Opcode opcode, Object operand) {
+        return new Instruction(opcode, operand, null);
+    }
+
+    static Instruction label(Label label) {
+        return new Instruction(null, null, label);
+    }
+
+    boolean isLabel() {
+        return label != null;
+    }
+
+    boolean is(Opcode opcode) {
+        return this.opcode == opcode;
+    }
+
+    boolean isLoad() {
+        return opcode == Opcode.ALOAD || opcode == Opcode.ILOAD;
+    }
+
+    boolean isStore() {
+        return opcode == Opcode.ASTORE || opcode == Opcode.ISTORE;
+    }
+
+    boolean isBranch() {
+        return opcode != null && opcode.isBranch();
+    }
+
+    boolean isTerminal() {
+        return opcode != null && opcode.isTerminal();
+    }
+
+    // Local slot of a load, store or iinc; -1 otherwise
+    int getLocal() {
+        if (isLoad() || isStore()) {
+            return (Integer) operand;
+        }
+        return opcode == Opcode.IINC ? ((Increment) operand).local() : -1;
+    }
+
+    Label getTarget() {
+        return (Label) operand;
+    }
+
+    MemberRef getMember() {
+        return (MemberRef) operand;
+    }
+
+    // Operand stack slots taken by the instruction
+    int pops() {
+        if (label != null) {
+            return 0;
+        }
+        if (opcode.getPops() >= 0) {
+            return opcode.getPops();
+        }
+        String descriptor = getMember().descriptor();
+        return switch (opcode) {
+            case PUTSTATIC -> Descriptors.slots(descriptor);
+            case PUTFIELD -> 1 + Descriptors.slots(descriptor);
+            case INVOKESTATIC -> Descriptors.argumentSlots(descriptor);
+            default -> 1 + Descriptors.argumentSlots(descriptor);
+        };
+    }
+
+    // Operand stack slots left by the instruction
+    int pushes() {
+        if (label != null) {
+            return 0;
+        }
+        if (opcode.getPushes() >= 0) {
+            return opcode.getPushes();
+        }
+        String descriptor = getMember().descriptor();
+        return Descriptors.slots(opcode.getOperand() == Opcode.Operand.METHOD
+                ? Descriptors.returnType(descriptor) : descriptor);
+    }
+
+    @Override
+    public String toString() {
+        return label != null ? "label@" + Integer.toHexString(System.identityHashCode(label))
+                : operand == null ? opcode.getMnemonic() : opcode.getMnemonic() + " " + operand;
+    }
+}
@@ -0,0 +1,135 @@
+package bytecode;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads a class from the Jasmin subset the runtime classes (Integer.j, Boolean.j, Array.j) and the
+ * generator use: .class, .super, .field, .method with .limit, labels and the instructions of
+ * {@link Opcode}.
+ */
+final class JasminReader {
+    private static final Pattern LOCAL_SHORT_FORM = Pattern.compile("([ai](?:load|store))_(\\d)");
+
+    private JasminReader() {
+    }
+
+    static GeneratedClass read(CharSequence text) {
+        String name = null;
+        GeneratedClass generatedClass = null;
+        GeneratedMethod method = null;
+        Map<String, Label> labels = new HashMap<>();
+
+        for (String rawLine : text.toString().split("\n")) {
+            String line = rawLine.strip();
+            if (line.isEmpty() || line.startsWith(";")) {
+                continue;
+            }
+            if (line.startsWith(".class ")) {
+                name = lastWord(line);
+            } else if (line.startsWith(".super ")) {
+                generatedClass = new GeneratedClass(name, lastWord(line));
+            } else if (line.startsWith(".field ")) {
+                String[] words = line.split("\\s+");
+                String access = String.join(" ", Arrays.copyOfRange(words, 1, words.length - 2));
+                generatedClass.getFields().add(new GeneratedClass.Field(access, words[words.length - 2], words[words.length - 1]));
+            } else if (line.startsWith(".method ")) {
+                String[] words = line.split("\\s+");
+                String signature = words[words.length - 1];
+                String access = String.join(" ", Arrays.copyOfRange(words, 1, words.length - 1));
+                int parenthesis = signature.indexOf('(');
+                method = new GeneratedMethod(access, signature.substring(0, parenthesis), signature.substring(parenthesis));
+                labels.clear();
+            } else if (line.startsWith(".limit stack ")) {
+                method.setMaxStack(Integer.parseInt(lastWord(line)));
+            } else if (line.startsWith(".limit locals ")) {
+                method.setMaxLocals(Integer.parseInt(lastWord(line)));
+            } else if (line.equals(".end method")) {
+                generatedClass.getMethods().add(method);
+                method = null;
+            } else if (line.endsWith(":")) {
+                method.getCode().add(Instruction.label(label(labels, line.substring(0, line.length() - 1))));
+            } else {
+                method.getCode().add(instruction(line, labels));
+            }
+        }
+        return generatedClass;
+    }
+
+    private static Instruction instruction(String line, Map<String, Label> labels) {
+        int space = line.indexOf(' ');
+        String mnemonic = space < 0 ? line : line.substring(0, space);
+        String operand = space < 0 ? null : line.substring(space + 1).strip();
+
+        Matcher shortForm = LOCAL_SHORT_FORM.matcher(mnemonic);
+        if (shortForm.matches()) {
+            return Instruction.of(Opcode.forMnemonic(shortForm.group(1)), Integer.parseInt(shortForm.group(2)));
+        }
+        Opcode opcode = Opcode.forMnemonic(mnemonic);
+        return switch (opcode.getOperand()) {
+            case NONE -> Instruction.of(opcode);
+            case BYTE, SHORT, LOCAL -> Instruction.of(opcode, Integer.parseInt(operand));
+            case CONSTANT -> Instruction.of(opcode, constant(operand));
+            case INCREMENT -> {
+                String[] parts = operand.split("\\s+");
+                yield Instruction.of(opcode, new Increment(Integer.parseInt(parts[0]), Integer.parseInt(parts[1])));
+            }
+            case BRANCH -> Instruction.of(opcode, label(labels, operand));
+            case FIELD -> {
+                int space2 = operand.indexOf(' ');
+                String owner = operand.substring(0, space2);
+                int slash = owner.lastIndexOf('/');
+                yield Instruction.of(opcode, new MemberRef(owner.substring(0, slash), owner.substring(slash + 1),
+                        operand.substring(space2 + 1).strip()));
+            }
+            case METHOD -> {
+                int parenthesis = operand.indexOf('(');
+                int slash = operand.lastIndexOf('/', parenthesis);
+                yield Instruction.of(opcode, new MemberRef(operand.substring(0, slash),
+                        operand.substring(slash + 1, parenthesis), operand.substring(parenthesis)));
+            }
+            case CLASS, ARRAY_TYPE -> Instruction.of(opcode, operand);
+        };
+    }
+
+    // Integer, Float or String constant as written after ldc
+    static Object constant(String literal) {
+        if (literal.startsWith("\"")) {
+            return unquote(literal);
+        }
+        if (literal.contains(".") || literal.contains("e") || literal.contains("E")) {
+            return Float.parseFloat(literal);
+        }
+        return Integer.parseInt(literal);
+    }
+
+    static String unquote(String literal) {
+        StringBuilder value = new StringBuilder(literal.length());
+        for (int i = 1; i < literal.length() - 1; i++) {
+            char c = literal.charAt(i);
+            if (c == '\\' && i + 1 < literal.length() - 1) {
+                char escaped = literal.charAt(++i);
+                value.append(switch (escaped) {
+                    case 'n' -> '\n';
+                    case 't' -> '\t';
+                    case 'r' -> '\r';
+                    default -> escaped;
+                });
+            } else {
+                value.append(c);
+            }
+        }
+        return value.toString();
+    }
+
+    private static Label label(Map<String, Label> labels, String name) {
+        return labels.computeIfAbsent(name, k -> new Label());
+    }
+
+    private static String lastWord(String line) {
+        return line.substring(line.lastIndexOf(' ') + 1);
+    }
+}
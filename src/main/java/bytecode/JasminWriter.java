@@ -0,0 +1,80 @@
+package bytecode;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// Serializes a class as Jasmin assembler text; labels are numbered per method in order of appearance
+final class JasminWriter {
+    private JasminWriter() {
+    }
+
+    static void write(GeneratedClass generatedClass, StringBuilder out) {
+        out.append(".class public ").append(generatedClass.getName()).append('\n')
+                .append(".super ").append(generatedClass.getSuperName()).append("\n\n");
+        for (GeneratedClass.Field field : generatedClass.getFields()) {
+            out.append(".field ").append(field.access()).append(' ').append(field.name()).append(' ')
+                    .append(field.descriptor()).append('\n');
+        }
+        for (GeneratedMethod method : generatedClass.getMethods()) {
+            out.append("\n.method ").append(method.getAccess()).append(' ').append(method.getName())
+                    .append(method.getDescriptor()).append('\n')
+                    .append("    .limit stack ").append(method.computeMaxStack()).append('\n')
+                    .append("    .limit locals ").append(method.computeMaxLocals()).append('\n');
+            Map<Label, String> names = new IdentityHashMap<>();
+            for (Instruction instruction : method.getCode()) {
+                if (instruction.isLabel()) {
+                    out.append(name(names, instruction.getLabel())).append(":\n");
+                } else {
+                    out.append("    ");
+                    writeInstruction(instruction, names, out);
+                    out.append('\n');
+                }
+            }
+            out.append(".end method\n");
+        }
+    }
+
+    private static void writeInstruction(Instruction instruction, Map<Label, String> names, StringBuilder out) {
+        Opcode opcode = instruction.getOpcode();
+        switch (opcode.getOperand()) {
+            case NONE -> out.append(opcode.getMnemonic());
+            case LOCAL -> {
+                int local = instruction.getLocal();
+                out.append(opcode.getMnemonic()).append(local <= 3 ? '_' : ' ').append(local);
+            }
+            case INCREMENT -> {
+                Increment increment = (Increment) instruction.getOperand();
+                out.append("iinc ").append(increment.local()).append(' ').append(increment.delta());
+            }
+            case BRANCH -> out.append(opcode.getMnemonic()).append(' ').append(name(names, instruction.getTarget()));
+            case CONSTANT -> {
+                out.append("ldc ");
+                if (instruction.getOperand() instanceof String string) {
+                    quote(string, out);
+                } else {
+                    out.append(instruction.getOperand());
+                }
+            }
+            default -> out.append(opcode.getMnemonic()).append(' ').append(instruction.getOperand());
+        }
+    }
+
+    private static String name(Map<Label, String> names, Label label) {
+        return names.computeIfAbsent(label, k -> "L" + names.size());
+    }
+
+    private static void quote(String value, StringBuilder out) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\t' -> out.append("\\t");
+                default -> out.append(c);
+            }
+        }
+        out.append('"');
+    }
+}
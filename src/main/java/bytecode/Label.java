@@ -0,0 +1,8 @@
+package bytecode;
+
+/**
+ * Jump target inside a method body. Labels are compared by identity; the serializers name or
+ * number them when the method is written.
+ */
+final class Label {
+}
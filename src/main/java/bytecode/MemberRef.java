@@ -0,0 +1,9 @@
+package bytecode;
+
+// Field or method referenced by an instruction, e.g. Integer/value I or Integer/valueOf(I)LInteger;
+record MemberRef(String owner, String name, String descriptor) {
+    @Override
+    public String toString() {
+        return owner + "/" + name + (descriptor.startsWith("(") ? "" : " ") + descriptor;
+    }
+}
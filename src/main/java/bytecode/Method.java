@@ -14,4 +14,17 @@ public class Method {
     private String className;
     private String signature;
     private String returnType;
+
+    // Number of parameters, counted from the signature, which is the concatenation of their descriptors
+    public int getArity() {
+        int arity = 0;
+        for (int i = 0; signature != null && i < signature.length(); i++) {
+            char c = signature.charAt(i);
+            if (c == 'L')
+                i = signature.indexOf(';', i);
+            if (c != '[')
+                arity++;
+        }
+        return arity;
+    }
 }
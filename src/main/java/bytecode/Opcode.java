@@ -0,0 +1,140 @@
+package bytecode;
+
+/**
+ * JVM instructions the generator and the runtime classes use. Loads and stores take the local slot
+ * as operand; the serializers pick the one-byte form (aload_0 .. aload_3) for the low slots. The
+ * stack counts are in slots, so a long counts twice.
+ */
+enum Opcode {
+    NOP(0x00, Operand.NONE, 0, 0),
+    ICONST_M1(0x02, Operand.NONE, 0, 1),
+    ICONST_0(0x03, Operand.NONE, 0, 1),
+    ICONST_1(0x04, Operand.NONE, 0, 1),
+    ICONST_2(0x05, Operand.NONE, 0, 1),
+    ICONST_3(0x06, Operand.NONE, 0, 1),
+    ICONST_4(0x07, Operand.NONE, 0, 1),
+    ICONST_5(0x08, Operand.NONE, 0, 1),
+    LCONST_1(0x0a, Operand.NONE, 0, 2),
+    BIPUSH(0x10, Operand.BYTE, 0, 1),
+    SIPUSH(0x11, Operand.SHORT, 0, 1),
+    LDC(0x12, Operand.CONSTANT, 0, 1),
+    ILOAD(0x15, 0x1a, Operand.LOCAL, 0, 1),
+    ALOAD(0x19, 0x2a, Operand.LOCAL, 0, 1),
+    LALOAD(0x2f, Operand.NONE, 2, 2),
+    AALOAD(0x32, Operand.NONE, 2, 1),
+    ISTORE(0x36, 0x3b, Operand.LOCAL, 1, 0),
+    ASTORE(0x3a, 0x4b, Operand.LOCAL, 1, 0),
+    LASTORE(0x50, Operand.NONE, 4, 0),
+    AASTORE(0x53, Operand.NONE, 3, 0),
+    POP(0x57, Operand.NONE, 1, 0),
+    POP2(0x58, Operand.NONE, 2, 0),
+    DUP(0x59, Operand.NONE, 1, 2),
+    DUP2(0x5c, Operand.NONE, 2, 4),
+    IADD(0x60, Operand.NONE, 2, 1),
+    LADD(0x61, Operand.NONE, 4, 2),
+    ISUB(0x64, Operand.NONE, 2, 1),
+    IMUL(0x68, Operand.NONE, 2, 1),
+    IDIV(0x6c, Operand.NONE, 2, 1),
+    IREM(0x70, Operand.NONE, 2, 1),
+    INEG(0x74, Operand.NONE, 1, 1),
+    IAND(0x7e, Operand.NONE, 2, 1),
+    IOR(0x80, Operand.NONE, 2, 1),
+    IXOR(0x82, Operand.NONE, 2, 1),
+    IINC(0x84, Operand.INCREMENT, 0, 0),
+    I2F(0x86, Operand.NONE, 1, 1),
+    IFEQ(0x99, Operand.BRANCH, 1, 0),
+    IFNE(0x9a, Operand.BRANCH, 1, 0),
+    IFLT(0x9b, Operand.BRANCH, 1, 0),
+    IFGE(0x9c, Operand.BRANCH, 1, 0),
+    IFGT(0x9d, Operand.BRANCH, 1, 0),
+    IFLE(0x9e, Operand.BRANCH, 1, 0),
+    IF_ICMPEQ(0x9f, Operand.BRANCH, 2, 0),
+    IF_ICMPNE(0xa0, Operand.BRANCH, 2, 0),
+    IF_ICMPLT(0xa1, Operand.BRANCH, 2, 0),
+    IF_ICMPGE(0xa2, Operand.BRANCH, 2, 0),
+    IF_ICMPGT(0xa3, Operand.BRANCH, 2, 0),
+    IF_ICMPLE(0xa4, Operand.BRANCH, 2, 0),
+    IF_ACMPEQ(0xa5, Operand.BRANCH, 2, 0),
+    IF_ACMPNE(0xa6, Operand.BRANCH, 2, 0),
+    GOTO(0xa7, Operand.BRANCH, 0, 0),
+    IRETURN(0xac, Operand.NONE, 1, 0),
+    FRETURN(0xae, Operand.NONE, 1, 0),
+    ARETURN(0xb0, Operand.NONE, 1, 0),
+    RETURN(0xb1, Operand.NONE, 0, 0),
+    GETSTATIC(0xb2, Operand.FIELD, 0, -1),
+    PUTSTATIC(0xb3, Operand.FIELD, -1, 0),
+    GETFIELD(0xb4, Operand.FIELD, 1, -1),
+    PUTFIELD(0xb5, Operand.FIELD, -1, 0),
+    INVOKEVIRTUAL(0xb6, Operand.METHOD, -1, -1),
+    INVOKESPECIAL(0xb7, Operand.METHOD, -1, -1),
+    INVOKESTATIC(0xb8, Operand.METHOD, -1, -1),
+    NEW(0xbb, Operand.CLASS, 0, 1),
+    NEWARRAY(0xbc, Operand.ARRAY_TYPE, 1, 1),
+    ANEWARRAY(0xbd, Operand.CLASS, 1, 1),
+    ARRAYLENGTH(0xbe, Operand.NONE, 1, 1),
+    ATHROW(0xbf, Operand.NONE, 1, 0),
+    CHECKCAST(0xc0, Operand.CLASS, 1, 1);
+
+    public enum Operand {
+        NONE, BYTE, SHORT, CONSTANT, LOCAL, INCREMENT, BRANCH, FIELD, METHOD, CLASS, ARRAY_TYPE
+    }
+
+    private final int code;
+    // First of the four operand-free forms for slots 0 to 3, or -1
+    private final int shortForm;
+    private final Operand operand;
+    // Operand stack slots taken and left; -1 when they depend on the descriptor of the member
+    private final int pops;
+    private final int pushes;
+    private final String mnemonic;
+
+    Opcode(int code, Operand operand, int pops, int pushes) {
+        this(code, -1, operand, pops, pushes);
+    }
+
+    Opcode(int code, int shortForm, Operand operand, int pops, int pushes) {
+        this.code = code;
+        this.shortForm = shortForm;
+        this.operand = operand;
+        this.pops = pops;
+        this.pushes = pushes;
+        this.mnemonic = name().toLowerCase();
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public int getShortForm() {
+        return shortForm;
+    }
+
+    public Operand getOperand() {
+        return operand;
+    }
+
+    public int getPops() {
+        return pops;
+    }
+
+    public int getPushes() {
+        return pushes;
+    }
+
+    public String getMnemonic() {
+        return mnemonic;
+    }
+
+    public boolean isBranch() {
+        return operand == Operand.BRANCH;
+    }
+
+    // Control never falls through to the next instruction
+    public boolean isTerminal() {
+        return this == GOTO || this == ATHROW || this == RETURN || this == IRETURN || this == FRETURN || this == ARETURN;
+    }
+
+    public static Opcode forMnemonic(String mnemonic) {
+        return valueOf(mnemonic.toUpperCase());
+    }
+}
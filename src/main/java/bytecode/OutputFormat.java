@@ -0,0 +1,32 @@
+package bytecode;
+
+import java.util.Locale;
+
+// What the generator writes per class: Jasmin assembler text or a binary class file
+public enum OutputFormat {
+    JASMIN(".j"),
+    CLASS(".class");
+
+    private final String extension;
+
+    OutputFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String fileName(String className) {
+        return className + extension;
+    }
+
+    // jasmin or class, e.g. from -Dcompiler.output.format or --format
+    public static OutputFormat forName(String name) {
+        return valueOf(name.toUpperCase(Locale.ROOT));
+    }
+
+    public static OutputFormat fromSystemProperties() {
+        return forName(System.getProperty("compiler.output.format", "jasmin"));
+    }
+}
@@ -0,0 +1,237 @@
+package bytecode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rewrites redundant instruction sequences of a method body. Each entry of the pattern table looks
+ * at the instructions from one position on, with the use counts of labels and local slots of the
+ * whole body at hand, and rewrites them in place when they match. The table is applied until
+ * nothing matches any more, since one rewrite often exposes another: dropping a label nobody jumps
+ * to can make a store and a load adjacent.
+ */
+final class PeepholeOptimizer {
+    private interface Rule {
+        boolean rewrite(PeepholeOptimizer optimizer, int i);
+    }
+
+    private record Rewrite(String name, Rule rule) {
+    }
+
+    private static final MemberRef BOX = new MemberRef("Integer", "valueOf", "(I)LInteger;");
+
+    private static final MemberRef VALUE = new MemberRef("Integer", "value", "I");
+
+    private static final MemberRef GET_VALUE = new MemberRef("Integer", "getValue", "()I");
+
+    private static final Opcode[] ICONST = {
+            Opcode.ICONST_M1, Opcode.ICONST_0, Opcode.ICONST_1, Opcode.ICONST_2, Opcode.ICONST_3, Opcode.ICONST_4, Opcode.ICONST_5};
+
+    private static final List<Rewrite> PATTERNS = List.of(
+            // L: where no branch targets L
+            new Rewrite("unused-label", PeepholeOptimizer::unusedLabel),
+            // invokestatic Integer/valueOf followed by getfield Integer/value or Integer/getValue()
+            new Rewrite("box-unbox", PeepholeOptimizer::boxUnbox),
+            // astore n where slot n is never loaded: pop
+            new Rewrite("dead-store", PeepholeOptimizer::deadStore),
+            // astore n, aload n: nothing when that is the only load of n, otherwise dup, astore n
+            new Rewrite("store-load", PeepholeOptimizer::storeLoad),
+            // a load or constant that is popped right away
+            new Rewrite("push-pop", PeepholeOptimizer::pushPop),
+            // goto or a conditional branch to a label that directly follows it
+            new Rewrite("branch-next", PeepholeOptimizer::branchToNext),
+            // ldc of a small int: iconst, bipush or sipush
+            new Rewrite("small-constant", PeepholeOptimizer::smallConstant));
+
+    private final List<Instruction> code;
+    private final Map<Label, Integer> labelUses = new HashMap<>();
+    private final Map<Integer, Integer> loads = new HashMap<>();
+
+    private PeepholeOptimizer(List<Instruction> code) {
+        this.code = new ArrayList<>(code);
+        for (Instruction instruction : this.code) {
+            count(instruction, 1);
+        }
+    }
+
+    static List<Instruction> optimize(List<Instruction> body) {
+        PeepholeOptimizer optimizer = new PeepholeOptimizer(body);
+        optimizer.removeUnusedReceiver();
+        for (int i = 0; i < optimizer.code.size(); ) {
+            boolean rewritten = false;
+            for (Rewrite rewrite : PATTERNS) {
+                if (rewrite.rule().rewrite(optimizer, i)) {
+                    rewritten = true;
+                    break;
+                }
+            }
+            // A rewrite may complete a pattern that starts a little earlier
+            i = rewritten ? Math.max(0, i - 2) : i + 1;
+        }
+        return optimizer.code;
+    }
+
+    private boolean unusedLabel(int i) {
+        Instruction instruction = code.get(i);
+        if (!instruction.isLabel() || labelUses.getOrDefault(instruction.getLabel(), 0) > 0) {
+            return false;
+        }
+        replace(i, 1);
+        return true;
+    }
+
+    private boolean boxUnbox(int i) {
+        if (i + 1 >= code.size() || !code.get(i).is(Opcode.INVOKESTATIC) || !BOX.equals(code.get(i).getOperand())) {
+            return false;
+        }
+        Instruction next = code.get(i + 1);
+        if (!(next.is(Opcode.GETFIELD) && VALUE.equals(next.getOperand()))
+                && !(next.is(Opcode.INVOKEVIRTUAL) && GET_VALUE.equals(next.getOperand()))) {
+            return false;
+        }
+        replace(i, 2);
+        return true;
+    }
+
+    private boolean deadStore(int i) {
+        Instruction instruction = code.get(i);
+        if (!instruction.isStore() || loads.getOrDefault(instruction.getLocal(), 0) > 0) {
+            return false;
+        }
+        replace(i, 1, Instruction.of(Opcode.POP));
+        return true;
+    }
+
+    private boolean storeLoad(int i) {
+        if (i + 1 >= code.size() || !code.get(i).isStore() || !code.get(i + 1).isLoad()
+                || code.get(i).getLocal() != code.get(i + 1).getLocal()
+                || (code.get(i).is(Opcode.ISTORE) != code.get(i + 1).is(Opcode.ILOAD))) {
+            return false;
+        }
+        Instruction store = code.get(i);
+        if (loads.get(store.getLocal()) == 1) {
+            replace(i, 2);
+        } else {
+            replace(i, 2, Instruction.of(Opcode.DUP), store);
+        }
+        return true;
+    }
+
+    private boolean pushPop(int i) {
+        if (i + 1 >= code.size() || !code.get(i + 1).is(Opcode.POP)) {
+            return false;
+        }
+        Instruction push = code.get(i);
+        if (!push.isLoad() && !push.is(Opcode.LDC) && !push.is(Opcode.DUP) && !push.is(Opcode.BIPUSH)
+                && !push.is(Opcode.SIPUSH) && (push.isLabel() || !isIntConstant(push.getOpcode()))) {
+            return false;
+        }
+        replace(i, 2);
+        return true;
+    }
+
+    private boolean branchToNext(int i) {
+        Instruction branch = code.get(i);
+        if (!branch.isBranch()) {
+            return false;
+        }
+        for (int next = i + 1; next < code.size() && code.get(next).isLabel(); next++) {
+            if (code.get(next).getLabel() == branch.getTarget()) {
+                // A conditional branch still has to consume its operands
+                int operands = branch.pops();
+                if (operands == 0) {
+                    replace(i, 1);
+                } else {
+                    replace(i, 1, Instruction.of(operands == 1 ? Opcode.POP : Opcode.POP2));
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean smallConstant(int i) {
+        Instruction instruction = code.get(i);
+        if (!instruction.is(Opcode.LDC) || !(instruction.getOperand() instanceof Integer value)) {
+            return false;
+        }
+        Instruction constant;
+        if (value >= -1 && value <= 5) {
+            constant = Instruction.of(ICONST[value + 1]);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            constant = Instruction.of(Opcode.BIPUSH, value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            constant = Instruction.of(Opcode.SIPUSH, value);
+        } else {
+            return false;
+        }
+        replace(i, 1, constant);
+        return true;
+    }
+
+    private static boolean isIntConstant(Opcode opcode) {
+        return opcode.compareTo(Opcode.ICONST_M1) >= 0 && opcode.compareTo(Opcode.ICONST_5) <= 0;
+    }
+
+    // The generator loads this at the top of every method whether or not anything uses it. It is
+    // dropped when following the operand stack, branches included, shows that no instruction ever
+    // consumes it; an opcode or a control flow shape the walk does not know keeps it.
+    private void removeUnusedReceiver() {
+        if (code.isEmpty() || !code.getFirst().is(Opcode.ALOAD) || code.getFirst().getLocal() != 0) {
+            return;
+        }
+        Map<Label, Integer> labelDepths = new HashMap<>();
+        int depth = 1;
+        boolean reachable = true;
+        for (int i = 1; i < code.size(); i++) {
+            Instruction instruction = code.get(i);
+            if (instruction.isLabel()) {
+                Integer recorded = labelDepths.get(instruction.getLabel());
+                if (!reachable && recorded == null || recorded != null && reachable && recorded != depth) {
+                    return;
+                }
+                depth = reachable ? depth : recorded;
+                labelDepths.put(instruction.getLabel(), depth);
+                reachable = true;
+                continue;
+            }
+            if (!reachable) {
+                return;
+            }
+            int pops = instruction.pops();
+            int pushes = instruction.pushes();
+            if (depth - pops < 1) {
+                return;
+            }
+            depth += pushes - pops;
+            if (instruction.isBranch()) {
+                Integer recorded = labelDepths.putIfAbsent(instruction.getTarget(), depth);
+                if (recorded != null && recorded != depth) {
+                    return;
+                }
+            }
+            reachable = !instruction.isTerminal();
+        }
+        replace(0, 1);
+    }
+
+    private void replace(int i, int length, Instruction... replacement) {
+        for (int k = 0; k < length; k++) {
+            count(code.remove(i), -1);
+        }
+        for (int k = 0; k < replacement.length; k++) {
+            code.add(i + k, replacement[k]);
+            count(replacement[k], 1);
+        }
+    }
+
+    private void count(Instruction instruction, int delta) {
+        if (instruction.isBranch()) {
+            labelUses.merge(instruction.getTarget(), delta, Integer::sum);
+        } else if (instruction.isLoad()) {
+            loads.merge(instruction.getLocal(), delta, Integer::sum);
+        }
+    }
+}
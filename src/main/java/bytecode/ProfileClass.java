@@ -0,0 +1,130 @@
+package bytecode;
+
+import java.util.List;
+
+/**
+ * The class an instrumented build adds next to the program classes. It holds the counters every
+ * instrumented method increments, one long per profile point, and registers itself as a shutdown
+ * hook when the first counter is touched; at exit it writes one "key count" line per point to the
+ * profile file named at compile time, replacing what an earlier run left there.
+ */
+final class ProfileClass {
+    static final String NAME = "$Profile";
+
+    static final MemberRef COUNTERS = new MemberRef(NAME, "COUNTERS", "[J");
+
+    private static final MemberRef KEYS = new MemberRef(NAME, "KEYS", "[Ljava/lang/String;");
+
+    // Characters per string constant; the keys of a large program exceed what a single one holds
+    private static final int CHUNK_SIZE = 16384;
+
+    private static final String STRING_BUILDER = "java/lang/StringBuilder";
+
+    private ProfileClass() {
+    }
+
+    static GeneratedClass generate(List<String> keys, String profileFile) {
+        GeneratedClass profile = new GeneratedClass(NAME, "java/lang/Thread");
+        profile.getFields().add(new GeneratedClass.Field("public static", COUNTERS.name(), COUNTERS.descriptor()));
+        profile.getFields().add(new GeneratedClass.Field("public static", KEYS.name(), KEYS.descriptor()));
+        profile.getMethods().add(staticInitializer(keys));
+        profile.getMethods().add(constructor());
+        profile.getMethods().add(run(profileFile));
+        return profile;
+    }
+
+    private static GeneratedMethod staticInitializer(List<String> keys) {
+        GeneratedMethod method = new GeneratedMethod("static", "<clinit>", "()V");
+        List<Instruction> code = method.getCode();
+        code.add(Instruction.of(Opcode.LDC, keys.size()));
+        code.add(Instruction.of(Opcode.NEWARRAY, "long"));
+        code.add(Instruction.of(Opcode.PUTSTATIC, COUNTERS));
+
+        String joined = String.join("\n", keys);
+        for (int start = 0; start == 0 || start < joined.length(); start += CHUNK_SIZE) {
+            code.add(Instruction.of(Opcode.LDC, joined.substring(start, Math.min(joined.length(), start + CHUNK_SIZE))));
+            if (start > 0) {
+                code.add(Instruction.of(Opcode.INVOKEVIRTUAL,
+                        new MemberRef("java/lang/String", "concat", "(Ljava/lang/String;)Ljava/lang/String;")));
+            }
+        }
+        code.add(Instruction.of(Opcode.LDC, "\n"));
+        code.add(Instruction.of(Opcode.INVOKEVIRTUAL,
+                new MemberRef("java/lang/String", "split", "(Ljava/lang/String;)[Ljava/lang/String;")));
+        code.add(Instruction.of(Opcode.PUTSTATIC, KEYS));
+
+        code.add(Instruction.of(Opcode.INVOKESTATIC,
+                new MemberRef("java/lang/Runtime", "getRuntime", "()Ljava/lang/Runtime;")));
+        code.add(Instruction.of(Opcode.NEW, NAME));
+        code.add(Instruction.of(Opcode.DUP));
+        code.add(Instruction.of(Opcode.INVOKESPECIAL, new MemberRef(NAME, "<init>", "()V")));
+        code.add(Instruction.of(Opcode.INVOKEVIRTUAL,
+                new MemberRef("java/lang/Runtime", "addShutdownHook", "(Ljava/lang/Thread;)V")));
+        code.add(Instruction.of(Opcode.RETURN));
+        return method;
+    }
+
+    private static GeneratedMethod constructor() {
+        GeneratedMethod method = new GeneratedMethod("public", "<init>", "()V");
+        method.getCode().add(Instruction.of(Opcode.ALOAD, 0));
+        method.getCode().add(Instruction.of(Opcode.INVOKESPECIAL, new MemberRef("java/lang/Thread", "<init>", "()V")));
+        method.getCode().add(Instruction.of(Opcode.RETURN));
+        return method;
+    }
+
+    // Public, so that a program run inside a longer-lived JVM can save its counts without exiting
+    private static GeneratedMethod run(String profileFile) {
+        GeneratedMethod method = new GeneratedMethod("public", "run", "()V");
+        List<Instruction> code = method.getCode();
+        Label loop = new Label();
+        Label done = new Label();
+        code.add(Instruction.of(Opcode.NEW, STRING_BUILDER));
+        code.add(Instruction.of(Opcode.DUP));
+        code.add(Instruction.of(Opcode.INVOKESPECIAL, new MemberRef(STRING_BUILDER, "<init>", "()V")));
+        code.add(Instruction.of(Opcode.ASTORE, 1));
+        code.add(Instruction.of(Opcode.ICONST_0));
+        code.add(Instruction.of(Opcode.ISTORE, 2));
+
+        code.add(Instruction.label(loop));
+        code.add(Instruction.of(Opcode.ILOAD, 2));
+        code.add(Instruction.of(Opcode.GETSTATIC, COUNTERS));
+        code.add(Instruction.of(Opcode.ARRAYLENGTH));
+        code.add(Instruction.of(Opcode.IF_ICMPGE, done));
+        code.add(Instruction.of(Opcode.ALOAD, 1));
+        code.add(Instruction.of(Opcode.GETSTATIC, KEYS));
+        code.add(Instruction.of(Opcode.ILOAD, 2));
+        code.add(Instruction.of(Opcode.AALOAD));
+        code.add(append("Ljava/lang/String;"));
+        code.add(Instruction.of(Opcode.BIPUSH, (int) ' '));
+        code.add(append("C"));
+        code.add(Instruction.of(Opcode.GETSTATIC, COUNTERS));
+        code.add(Instruction.of(Opcode.ILOAD, 2));
+        code.add(Instruction.of(Opcode.LALOAD));
+        code.add(append("J"));
+        code.add(Instruction.of(Opcode.BIPUSH, (int) '\n'));
+        code.add(append("C"));
+        code.add(Instruction.of(Opcode.POP));
+        code.add(Instruction.of(Opcode.IINC, new Increment(2, 1)));
+        code.add(Instruction.of(Opcode.GOTO, loop));
+
+        code.add(Instruction.label(done));
+        code.add(Instruction.of(Opcode.LDC, profileFile));
+        code.add(Instruction.of(Opcode.ICONST_0));
+        code.add(Instruction.of(Opcode.ANEWARRAY, "java/lang/String"));
+        code.add(Instruction.of(Opcode.INVOKESTATIC, new MemberRef("java/nio/file/Paths", "get",
+                "(Ljava/lang/String;[Ljava/lang/String;)Ljava/nio/file/Path;")));
+        code.add(Instruction.of(Opcode.ALOAD, 1));
+        code.add(Instruction.of(Opcode.ICONST_0));
+        code.add(Instruction.of(Opcode.ANEWARRAY, "java/nio/file/OpenOption"));
+        code.add(Instruction.of(Opcode.INVOKESTATIC, new MemberRef("java/nio/file/Files", "writeString",
+                "(Ljava/nio/file/Path;Ljava/lang/CharSequence;[Ljava/nio/file/OpenOption;)Ljava/nio/file/Path;")));
+        code.add(Instruction.of(Opcode.POP));
+        code.add(Instruction.of(Opcode.RETURN));
+        return method;
+    }
+
+    private static Instruction append(String argumentType) {
+        return Instruction.of(Opcode.INVOKEVIRTUAL,
+                new MemberRef(STRING_BUILDER, "append", "(" + argumentType + ")Ljava/lang/StringBuilder;"));
+    }
+}
@@ -0,0 +1,44 @@
+package bytecode;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The runtime classes a compiled program calls into, as entries of a jar or files next to the
+ * generated ones. They are kept as Jasmin sources; for the class file format they are read into the
+ * instruction model and assembled by {@link ClassFileWriter} like any generated class.
+ */
+public final class RuntimeClasses {
+    public static final String DEFAULT_DIRECTORY = "src/main/java/examples";
+
+    private static final List<String> NAMES = List.of("Integer", "Boolean", "Array");
+
+    // Read once per JVM, directory and format, e.g. by a daemon packaging many programs
+    private static final Map<String, Map<String, byte[]>> CACHE = new HashMap<>();
+
+    private RuntimeClasses() {
+    }
+
+    // File name to content, e.g. Integer.class, for the classes whose .j file is in the directory
+    public static synchronized Map<String, byte[]> load(Path directory, OutputFormat format) throws IOException {
+        String key = directory.toAbsolutePath().normalize() + "|" + format;
+        Map<String, byte[]> classes = CACHE.get(key);
+        if (classes == null) {
+            classes = new LinkedHashMap<>();
+            for (String name : NAMES) {
+                String source = Files.readString(directory.resolve(OutputFormat.JASMIN.fileName(name)));
+                byte[] content = format == OutputFormat.CLASS
+                        ? ClassFileWriter.write(JasminReader.read(source)) : source.getBytes(StandardCharsets.UTF_8);
+                classes.put(format.fileName(name), content);
+            }
+            CACHE.put(key, classes);
+        }
+        return classes;
+    }
+}
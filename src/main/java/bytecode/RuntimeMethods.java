@@ -0,0 +1,70 @@
+package bytecode;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Generated by src/build/java/RuntimeMethodsGenerator.java from the runtime class files; do not edit.
+public final class RuntimeMethods {
+    private record Key(String owner, String name, int arity) {
+    }
+
+    private record Entry(Key key, Method method) {
+    }
+
+    private static final List<Entry> ENTRIES = List.of(
+            entry("Integer", "toReal", 0, "", "F"),
+            entry("Integer", "toBoolean", 0, "", "LBoolean;"),
+            entry("Integer", "UnaryMinus", 0, "", "LInteger;"),
+            entry("Integer", "Plus", 1, "LInteger;", "LInteger;"),
+            entry("Integer", "Minus", 1, "LInteger;", "LInteger;"),
+            entry("Integer", "Mult", 1, "LInteger;", "LInteger;"),
+            entry("Integer", "Div", 1, "LInteger;", "LInteger;"),
+            entry("Integer", "Rem", 1, "LInteger;", "LInteger;"),
+            entry("Integer", "Less", 1, "LInteger;", "LBoolean;"),
+            entry("Integer", "Equal", 1, "LInteger;", "LBoolean;"),
+            entry("Integer", "LessEqual", 1, "LInteger;", "LBoolean;"),
+            entry("Integer", "Greater", 1, "LInteger;", "LBoolean;"),
+            entry("Integer", "GreaterEqual", 1, "LInteger;", "LBoolean;"),
+            entry("Integer", "getValue", 0, "", "I"),
+            entry("Boolean", "toInteger", 0, "", "LInteger;"),
+            entry("Boolean", "Or", 1, "LBoolean;", "LBoolean;"),
+            entry("Boolean", "And", 1, "LBoolean;", "LBoolean;"),
+            entry("Boolean", "Xor", 1, "LBoolean;", "LBoolean;"),
+            entry("Boolean", "Not", 0, "", "LBoolean;"),
+            entry("Boolean", "getBool", 0, "", "Ljava/lang/String;"),
+            entry("Array", "Length", 0, "", "LInteger;"),
+            entry("Array", "get", 1, "I", "Ljava/lang/Object;"),
+            entry("Array", "set", 2, "ILjava/lang/Object;", "V"),
+            entry("Array", "toList", 0, "", "Ljava/util/List;"));
+
+    private static final Map<Key, Method> METHODS = new HashMap<>();
+    private static final Map<Key, Method> BY_NAME = new HashMap<>();
+
+    static {
+        for (Entry entry : ENTRIES) {
+            METHODS.put(entry.key(), entry.method());
+            BY_NAME.putIfAbsent(new Key(null, entry.key().name(), entry.key().arity()), entry.method());
+        }
+    }
+
+    private RuntimeMethods() {
+    }
+
+    public static Method find(String owner, String name, int arity) {
+        return METHODS.get(new Key(owner, name, arity));
+    }
+
+    // For receivers of unknown type: the first runtime class, in Integer, Boolean, Array order, with such a method
+    public static Method findAny(String name, int arity) {
+        return BY_NAME.get(new Key(null, name, arity));
+    }
+
+    public static boolean isRuntimeClass(String className) {
+        return "Integer".equals(className) || "Boolean".equals(className) || "Array".equals(className);
+    }
+
+    private static Entry entry(String owner, String name, int arity, String signature, String returnType) {
+        return new Entry(new Key(owner, name, arity), new Method(name, owner, signature, returnType));
+    }
+}
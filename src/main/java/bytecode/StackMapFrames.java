@@ -0,0 +1,335 @@
+package bytecode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * Type inference over a method body for the StackMapTable of class files of version 50 and later.
+ * Starting from the types the descriptor gives the receiver and the arguments, every instruction is
+ * simulated on a frame of local and operand stack types; where control flow joins, the frames are
+ * merged until nothing changes. Two different classes merge to their closest common superclass,
+ * found through the hierarchy function, which names the superclass of a class or returns null when
+ * the class is unknown; anything else that differs merges to top. The frame recorded for a label
+ * that some branch targets is what the verifier checks every jump to it against. Instructions no
+ * path reaches have no frame; the class file writer leaves them out.
+ */
+final class StackMapFrames {
+    record Frame(List<VerificationType> locals, List<VerificationType> stack) {
+    }
+
+    private final String className;
+    private final GeneratedMethod method;
+    private final List<Instruction> code;
+    private final UnaryOperator<String> superClassOf;
+    private final Map<Label, Integer> positions;
+    private final Frame[] frames;
+    private final boolean[] reachable;
+    private Frame initialFrame;
+    private final Set<Label> targets = new HashSet<>();
+
+    private StackMapFrames(String className, GeneratedMethod method, UnaryOperator<String> superClassOf) {
+        this.className = className;
+        this.method = method;
+        this.code = method.getCode();
+        this.superClassOf = superClassOf;
+        this.positions = CodeAnalysis.labelPositions(code);
+        this.frames = new Frame[code.size()];
+        this.reachable = new boolean[code.size()];
+        for (Instruction instruction : code) {
+            if (instruction.isBranch()) {
+                targets.add(instruction.getTarget());
+            }
+        }
+    }
+
+    static StackMapFrames compute(String className, GeneratedMethod method, UnaryOperator<String> superClassOf) {
+        StackMapFrames analysis = new StackMapFrames(className, method, superClassOf);
+        analysis.run();
+        return analysis;
+    }
+
+    // Frame at a label, null when no path reaches it
+    Frame frameAt(int index) {
+        return frames[index];
+    }
+
+    boolean isReachable(int index) {
+        return reachable[index];
+    }
+
+    boolean isBranchTarget(Label label) {
+        return targets.contains(label);
+    }
+
+    // Frame on entry, which the StackMapTable does not record but its first entry is relative to
+    Frame initialFrame() {
+        return initialFrame;
+    }
+
+    // Follows each path with mutable types until it joins one already seen with the same frame;
+    // frames are only kept at labels, where paths join
+    private void run() {
+        initialFrame = entryFrame();
+        frames[0] = initialFrame;
+        Deque<Integer> pending = new ArrayDeque<>();
+        pending.push(0);
+        while (!pending.isEmpty()) {
+            int start = pending.pop();
+            List<VerificationType> locals = new ArrayList<>(frames[start].locals());
+            List<VerificationType> stack = new ArrayList<>(frames[start].stack());
+            for (int i = start; ; i++) {
+                if (i >= code.size()) {
+                    throw error(i, "control falls off the end of the method");
+                }
+                Instruction instruction = code.get(i);
+                if (instruction.isLabel() && i != start) {
+                    if (!merge(i, snapshot(locals, stack))) {
+                        break;
+                    }
+                    locals = new ArrayList<>(frames[i].locals());
+                    stack = new ArrayList<>(frames[i].stack());
+                }
+                reachable[i] = true;
+                if (instruction.isLabel()) {
+                    continue;
+                }
+                execute(i, instruction, locals, stack);
+                if (instruction.isBranch()) {
+                    int target = positions.get(instruction.getTarget());
+                    if (merge(target, snapshot(locals, stack))) {
+                        pending.push(target);
+                    }
+                }
+                if (instruction.isTerminal()) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private static Frame snapshot(List<VerificationType> locals, List<VerificationType> stack) {
+        return new Frame(List.copyOf(locals), List.copyOf(stack));
+    }
+
+    private Frame entryFrame() {
+        List<VerificationType> locals = new ArrayList<>(Collections.nCopies(method.computeMaxLocals(), VerificationType.TOP));
+        int slot = 0;
+        if (!method.isStatic()) {
+            locals.set(slot++, method.getName().equals("<init>")
+                    ? VerificationType.UNINITIALIZED_THIS : VerificationType.object(className));
+        }
+        for (String type : Descriptors.argumentTypes(method.getDescriptor())) {
+            locals.set(slot, VerificationType.of(type));
+            slot += Descriptors.slots(type);
+        }
+        return snapshot(locals, List.of());
+    }
+
+    private void execute(int index, Instruction instruction, List<VerificationType> locals, List<VerificationType> stack) {
+        switch (instruction.getOpcode()) {
+            case NOP, IINC, GOTO, RETURN -> {
+            }
+            case ICONST_M1, ICONST_0, ICONST_1, ICONST_2, ICONST_3, ICONST_4, ICONST_5, BIPUSH, SIPUSH ->
+                    stack.add(VerificationType.INTEGER);
+            case LDC -> stack.add(switch (instruction.getOperand()) {
+                case Integer value -> VerificationType.INTEGER;
+                case Float value -> VerificationType.FLOAT;
+                default -> VerificationType.object("java/lang/String");
+            });
+            case LCONST_1 -> stack.add(VerificationType.LONG);
+            case ILOAD -> stack.add(VerificationType.INTEGER);
+            case ALOAD -> stack.add(locals.get(instruction.getLocal()));
+            case AALOAD -> {
+                pop(index, stack, 1);
+                VerificationType array = pop(index, stack, 1);
+                stack.add(array.isReference() && array.className().startsWith("[")
+                        ? VerificationType.of(array.className().substring(1)) : VerificationType.object("java/lang/Object"));
+            }
+            case LALOAD -> {
+                pop(index, stack, 2);
+                stack.add(VerificationType.LONG);
+            }
+            case ISTORE -> store(locals, instruction.getLocal(), pop(index, stack, 1));
+            case ASTORE -> store(locals, instruction.getLocal(), pop(index, stack, 1));
+            case LASTORE, AASTORE -> pop(index, stack, 3);
+            case POP -> pop(index, stack, 1);
+            case POP2 -> {
+                if (!pop(index, stack, 1).isWide()) {
+                    pop(index, stack, 1);
+                }
+            }
+            case DUP -> stack.add(peek(index, stack));
+            case DUP2 -> {
+                // One long or double, or the two values below the top
+                VerificationType top = peek(index, stack);
+                if (top.isWide()) {
+                    stack.add(top);
+                } else if (stack.size() < 2) {
+                    throw error(index, "operand stack underflow");
+                } else {
+                    stack.add(stack.get(stack.size() - 2));
+                    stack.add(top);
+                }
+            }
+            case IADD, ISUB, IMUL, IDIV, IREM, IAND, IOR, IXOR -> {
+                pop(index, stack, 2);
+                stack.add(VerificationType.INTEGER);
+            }
+            case LADD -> {
+                pop(index, stack, 2);
+                stack.add(VerificationType.LONG);
+            }
+            case INEG -> {
+                pop(index, stack, 1);
+                stack.add(VerificationType.INTEGER);
+            }
+            case I2F -> {
+                pop(index, stack, 1);
+                stack.add(VerificationType.FLOAT);
+            }
+            case IFEQ, IFNE, IFLT, IFGE, IFGT, IFLE, IRETURN, FRETURN, ARETURN, ATHROW -> pop(index, stack, 1);
+            case IF_ICMPEQ, IF_ICMPNE, IF_ICMPLT, IF_ICMPGE, IF_ICMPGT, IF_ICMPLE, IF_ACMPEQ, IF_ACMPNE ->
+                    pop(index, stack, 2);
+            case GETSTATIC -> stack.add(VerificationType.of(instruction.getMember().descriptor()));
+            case PUTSTATIC -> pop(index, stack, 1);
+            case GETFIELD -> {
+                pop(index, stack, 1);
+                stack.add(VerificationType.of(instruction.getMember().descriptor()));
+            }
+            case PUTFIELD -> pop(index, stack, 2);
+            case INVOKEVIRTUAL, INVOKESPECIAL, INVOKESTATIC -> invoke(index, instruction, locals, stack);
+            case NEW -> stack.add(VerificationType.uninitialized(index));
+            case NEWARRAY -> {
+                pop(index, stack, 1);
+                stack.add(VerificationType.object(Descriptors.primitiveArray((String) instruction.getOperand())));
+            }
+            case ANEWARRAY -> {
+                pop(index, stack, 1);
+                String component = (String) instruction.getOperand();
+                stack.add(VerificationType.object(component.startsWith("[") ? "[" + component : "[L" + component + ";"));
+            }
+            case ARRAYLENGTH -> {
+                pop(index, stack, 1);
+                stack.add(VerificationType.INTEGER);
+            }
+            case CHECKCAST -> {
+                pop(index, stack, 1);
+                stack.add(VerificationType.object((String) instruction.getOperand()));
+            }
+        }
+    }
+
+    private void invoke(int index, Instruction instruction, List<VerificationType> locals, List<VerificationType> stack) {
+        MemberRef member = instruction.getMember();
+        pop(index, stack, Descriptors.argumentTypes(member.descriptor()).size());
+        if (!instruction.is(Opcode.INVOKESTATIC)) {
+            VerificationType receiver = pop(index, stack, 1);
+            if (member.name().equals("<init>")) {
+                // The constructor initializes every copy of the reference, in locals and on the stack
+                VerificationType initialized = receiver.tag() == VerificationType.UNINITIALIZED_THIS_TAG
+                        ? VerificationType.object(className)
+                        : VerificationType.object((String) code.get(receiver.newIndex()).getOperand());
+                Collections.replaceAll(locals, receiver, initialized);
+                Collections.replaceAll(stack, receiver, initialized);
+            }
+        }
+        String returnType = Descriptors.returnType(member.descriptor());
+        if (!returnType.equals("V")) {
+            stack.add(VerificationType.of(returnType));
+        }
+    }
+
+    private static void store(List<VerificationType> locals, int slot, VerificationType type) {
+        // Overwriting the second half of a long or double invalidates the whole value
+        if (slot > 0 && locals.get(slot - 1).isWide()) {
+            locals.set(slot - 1, VerificationType.TOP);
+        }
+        locals.set(slot, type);
+        if (type.isWide()) {
+            locals.set(slot + 1, VerificationType.TOP);
+        }
+    }
+
+    // Removes the given number of entries and returns the deepest of them
+    private VerificationType pop(int index, List<VerificationType> stack, int count) {
+        if (stack.size() < count) {
+            throw error(index, "operand stack underflow");
+        }
+        VerificationType type = null;
+        for (int k = 0; k < count; k++) {
+            type = stack.removeLast();
+        }
+        return type;
+    }
+
+    private VerificationType peek(int index, List<VerificationType> stack) {
+        if (stack.isEmpty()) {
+            throw error(index, "operand stack underflow");
+        }
+        return stack.getLast();
+    }
+
+    private boolean merge(int index, Frame incoming) {
+        Frame current = frames[index];
+        if (current == null) {
+            frames[index] = incoming;
+            return true;
+        }
+        if (current.stack().size() != incoming.stack().size()) {
+            throw error(index, "operand stack height " + incoming.stack().size() + " where "
+                    + current.stack().size() + " was seen before");
+        }
+        Frame merged = new Frame(merge(current.locals(), incoming.locals()), merge(current.stack(), incoming.stack()));
+        if (merged.equals(current)) {
+            return false;
+        }
+        frames[index] = merged;
+        return true;
+    }
+
+    private List<VerificationType> merge(List<VerificationType> current, List<VerificationType> incoming) {
+        List<VerificationType> merged = new ArrayList<>(current.size());
+        for (int i = 0; i < current.size(); i++) {
+            merged.add(merge(current.get(i), incoming.get(i)));
+        }
+        return List.copyOf(merged);
+    }
+
+    private VerificationType merge(VerificationType a, VerificationType b) {
+        if (a.equals(b)) {
+            return a;
+        }
+        if (a.isReference() && b.isReference()) {
+            return VerificationType.object(commonSuperClass(a.className(), b.className()));
+        }
+        return VerificationType.TOP;
+    }
+
+    private String commonSuperClass(String a, String b) {
+        if (a.startsWith("[") || b.startsWith("[")) {
+            return "java/lang/Object";
+        }
+        Set<String> ancestors = new HashSet<>();
+        for (String current = a; current != null; current = superClassOf.apply(current)) {
+            ancestors.add(current);
+        }
+        for (String current = b; current != null; current = superClassOf.apply(current)) {
+            if (ancestors.contains(current)) {
+                return current;
+            }
+        }
+        return "java/lang/Object";
+    }
+
+    private IllegalStateException error(int index, String message) {
+        return new IllegalStateException("Cannot compute stack map frames of " + className + "." + method.getName()
+                + method.getDescriptor() + " at instruction " + index + ": " + message);
+    }
+}
@@ -0,0 +1,53 @@
+package bytecode;
+
+/**
+ * Type of a local or operand stack entry as stack map frames record it. Reference types carry the
+ * internal class name, or the descriptor for arrays; an object created by new but not yet passed to
+ * its constructor carries the position of that new in the method body.
+ */
+record VerificationType(int tag, String className, int newIndex) {
+    static final int TOP_TAG = 0;
+    static final int INTEGER_TAG = 1;
+    static final int FLOAT_TAG = 2;
+    static final int DOUBLE_TAG = 3;
+    static final int LONG_TAG = 4;
+    static final int UNINITIALIZED_THIS_TAG = 6;
+    static final int OBJECT_TAG = 7;
+    static final int UNINITIALIZED_TAG = 8;
+
+    static final VerificationType TOP = new VerificationType(TOP_TAG, null, -1);
+    static final VerificationType INTEGER = new VerificationType(INTEGER_TAG, null, -1);
+    static final VerificationType FLOAT = new VerificationType(FLOAT_TAG, null, -1);
+    static final VerificationType DOUBLE = new VerificationType(DOUBLE_TAG, null, -1);
+    static final VerificationType LONG = new VerificationType(LONG_TAG, null, -1);
+    static final VerificationType UNINITIALIZED_THIS = new VerificationType(UNINITIALIZED_THIS_TAG, null, -1);
+
+    static VerificationType object(String className) {
+        return new VerificationType(OBJECT_TAG, className, -1);
+    }
+
+    static VerificationType uninitialized(int newIndex) {
+        return new VerificationType(UNINITIALIZED_TAG, null, newIndex);
+    }
+
+    // Type of a value of the given field or parameter descriptor
+    static VerificationType of(String descriptor) {
+        return switch (descriptor.charAt(0)) {
+            case 'I', 'Z', 'B', 'C', 'S' -> INTEGER;
+            case 'F' -> FLOAT;
+            case 'D' -> DOUBLE;
+            case 'J' -> LONG;
+            case 'L' -> object(descriptor.substring(1, descriptor.length() - 1));
+            default -> object(descriptor);
+        };
+    }
+
+    boolean isReference() {
+        return tag == OBJECT_TAG;
+    }
+
+    // Long and double take two local slots; in a frame the second one is implied
+    boolean isWide() {
+        return tag == DOUBLE_TAG || tag == LONG_TAG;
+    }
+}
@@ -0,0 +1,68 @@
+package daemon;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Thin client of {@link CompilerDaemon}: sends the source paths, prints the daemon's answer and
+ * exits with 1 when any file failed to compile.
+ */
+public class CompilerClient {
+    private final Path socketPath;
+
+    public CompilerClient(Path socketPath) {
+        this.socketPath = socketPath;
+    }
+
+    public List<String> send(String command, List<String> files) throws IOException {
+        try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(UnixDomainSocketAddress.of(socketPath));
+
+            Writer out = Channels.newWriter(channel, StandardCharsets.UTF_8);
+            out.write(command + "\n");
+            for (String file : files) {
+                // The daemon may run in another directory
+                out.write(Path.of(file).toAbsolutePath() + "\n");
+            }
+            out.flush();
+            channel.shutdownOutput();
+
+            List<String> response = new ArrayList<>();
+            BufferedReader in = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8));
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                response.add(line);
+            }
+            return response;
+        }
+    }
+
+    // Usage: CompilerClient [--socket <path>] (--stop | <source>...)
+    public static void main(String[] args) throws IOException {
+        Path socket = CompilerDaemon.defaultSocket();
+        String command = "compile";
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--socket" -> socket = Path.of(args[++i]);
+                case "--stop" -> command = "stop";
+                default -> files.add(args[i]);
+            }
+        }
+
+        boolean failed = false;
+        for (String line : new CompilerClient(socket).send(command, files)) {
+            System.out.println(line);
+            failed |= line.startsWith("ERROR");
+        }
+        System.exit(failed ? 1 : 0);
+    }
+}
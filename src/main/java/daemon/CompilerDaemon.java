@@ -0,0 +1,162 @@
+package daemon;
+
+import ast.ASTNode;
+import output.DiscardingOutput;
+import pipeline.Compiler;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiler kept running behind a Unix domain socket, so requests skip JVM startup and run on
+ * classes that are already loaded and compiled by the JIT. Parsed trees are cached per file and
+ * reused while the file content is unchanged; each request works on a copy, since analysis and
+ * optimization change the tree.
+ * <p>
+ * Protocol, one request per connection: the client sends a command line ("compile" or "stop"),
+ * for compile followed by one source path per line, and closes its output. The daemon answers
+ * with one line per file, "OK path micros" or "ERROR path: message".
+ */
+public class CompilerDaemon {
+    private static final int CACHE_SIZE = 256;
+    private static final int WARMUP_COMPILATIONS = 200;
+
+    // Small program touching every phase, compiled at startup to load and warm the compiler classes
+    private static final String WARMUP_PROGRAM = """
+            class Warmup is
+                var total: Integer
+                this() is
+                end
+                method run(n: Integer, k: Integer) Integer is
+                    var i: Integer
+                    i := 0
+                    var sum: Integer
+                    sum := 0
+                    while i.LessEqual(n) loop
+                        sum := sum.Plus(i.Mult(k))
+                        if sum.Greater(k) then
+                            sum := sum.Minus(1)
+                        else
+                            sum := sum.Plus(1)
+                        end
+                        i := i.Plus(1)
+                    end
+                    return sum
+                end
+            end
+            """;
+
+    private record CachedParse(String source, ASTNode root) {
+    }
+
+    private final Path socketPath;
+    private final Compiler compiler = new Compiler();
+    private final Map<Path, CachedParse> parseCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, CachedParse> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    private boolean running = true;
+
+    public CompilerDaemon(Path socketPath) {
+        this.socketPath = socketPath;
+    }
+
+    public static Path defaultSocket() {
+        return Path.of(System.getProperty("java.io.tmpdir"), "compiler-daemon.sock");
+    }
+
+    // Runs on its own compiler whose classes are dropped, so warming up writes no files
+    public void warmUp() {
+        Compiler warmUpCompiler = new Compiler(null, new DiscardingOutput());
+        for (int i = 0; i < WARMUP_COMPILATIONS; i++) {
+            warmUpCompiler.compile("<warmup>", WARMUP_PROGRAM);
+        }
+    }
+
+    public void serve() throws IOException {
+        Files.deleteIfExists(socketPath);
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(socketPath));
+            while (running) {
+                try (SocketChannel client = server.accept()) {
+                    handle(client);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(socketPath);
+        }
+    }
+
+    private void handle(SocketChannel client) throws IOException {
+        BufferedReader in = new BufferedReader(Channels.newReader(client, StandardCharsets.UTF_8));
+        List<String> request = new ArrayList<>();
+        for (String line = in.readLine(); line != null; line = in.readLine()) {
+            request.add(line);
+        }
+
+        Writer out = Channels.newWriter(client, StandardCharsets.UTF_8);
+        if (request.isEmpty() || request.getFirst().equals("stop")) {
+            running = false;
+            out.write("OK stopped\n");
+        } else if (request.getFirst().equals("compile")) {
+            for (String file : request.subList(1, request.size())) {
+                out.write(compile(Path.of(file)));
+            }
+        } else {
+            out.write("ERROR unknown command: " + request.getFirst() + "\n");
+        }
+        out.flush();
+    }
+
+    private String compile(Path file) {
+        long start = System.nanoTime();
+        try {
+            String source = Files.readString(file);
+            Path key = file.toAbsolutePath().normalize();
+            CachedParse cached = parseCache.get(key);
+            if (cached == null || !cached.source().equals(source)) {
+                cached = new CachedParse(source, compiler.parse(file.toString(), source));
+                parseCache.put(key, cached);
+            }
+            compiler.compile(file.toString(), cached.root().copy());
+            return "OK " + file + " " + (System.nanoTime() - start) / 1000 + "\n";
+        } catch (IOException | RuntimeException e) {
+            return "ERROR " + file + ": " + e.getMessage() + "\n";
+        }
+    }
+
+    // Usage: CompilerDaemon [--socket <path>] [--no-warmup]
+    public static void main(String[] args) throws IOException {
+        Path socket = defaultSocket();
+        boolean warmUp = true;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--socket" -> socket = Path.of(args[++i]);
+                case "--no-warmup" -> warmUp = false;
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        CompilerDaemon daemon = new CompilerDaemon(socket);
+        if (warmUp) {
+            daemon.warmUp();
+        }
+        System.err.println("Compiler daemon listening on " + socket);
+        daemon.serve();
+    }
+}
@@ -0,0 +1,20 @@
+package diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("compiler.ClassAnalyzed")
+@Label("Class Analyzed")
+@Category("Compiler")
+public class ClassAnalyzedEvent extends Event {
+    @Label("Class")
+    public String className;
+
+    @Label("Methods")
+    public int methods;
+
+    @Label("Nodes")
+    public long nodes;
+}
@@ -0,0 +1,29 @@
+package diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("compiler.Phase")
+@Label("Compiler Phase")
+@Category("Compiler")
+@Description("One compiler phase run on one source file")
+public class CompilerPhaseEvent extends Event {
+    @Label("Phase")
+    public String phase;
+
+    @Label("File")
+    public String file;
+
+    @Label("Tokens")
+    public long tokens;
+
+    @Label("Nodes")
+    @Description("AST nodes after the phase")
+    public long nodes;
+
+    @Label("Instructions")
+    public long instructions;
+}
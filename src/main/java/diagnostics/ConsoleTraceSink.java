@@ -0,0 +1,23 @@
+package diagnostics;
+
+import java.io.PrintStream;
+
+public class ConsoleTraceSink implements TraceSink {
+    private final TraceLevel level;
+    private final PrintStream out;
+
+    public ConsoleTraceSink(TraceLevel level, PrintStream out) {
+        this.level = level;
+        this.out = out;
+    }
+
+    @Override
+    public TraceLevel getLevel() {
+        return level;
+    }
+
+    @Override
+    public void write(TraceLevel level, String category, String message) {
+        out.println("[" + category + "] " + message);
+    }
+}
@@ -0,0 +1,23 @@
+package diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("compiler.MethodGenerated")
+@Label("Method Generated")
+@Category("Compiler")
+public class MethodGeneratedEvent extends Event {
+    @Label("Class")
+    public String className;
+
+    @Label("Method")
+    public String methodName;
+
+    @Label("Nodes")
+    public long nodes;
+
+    @Label("Instructions")
+    public int instructions;
+}
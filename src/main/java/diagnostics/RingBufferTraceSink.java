@@ -0,0 +1,116 @@
+package diagnostics;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Structured trace kept in memory. Events are written as fixed-size binary records into a ring, so
+ * tracing a long compilation costs no I/O and keeps only the most recent events. Each record is
+ * <pre>
+ *   long   nanoTime
+ *   byte   level ordinal
+ *   byte   category id (index into the category table)
+ *   short  message length in bytes
+ *   byte[] UTF-8 message, cut to the record size
+ * </pre>
+ * The ring is written out with {@link #writeTo(OutputStream)} for later inspection.
+ */
+public class RingBufferTraceSink implements TraceSink {
+    public static final int RECORD_SIZE = 128;
+    private static final int HEADER_SIZE = 12;
+    private static final int MAGIC = 0x54524331; // "TRC1"
+
+    private final TraceLevel level;
+    private final ByteBuffer ring;
+    private final int capacity;
+    private final List<String> categories = new ArrayList<>();
+    private final Map<String, Integer> categoryIds = new HashMap<>();
+    private long written;
+
+    public RingBufferTraceSink(TraceLevel level, int capacity) {
+        this.level = level;
+        this.capacity = capacity;
+        this.ring = ByteBuffer.allocate(capacity * RECORD_SIZE);
+    }
+
+    @Override
+    public TraceLevel getLevel() {
+        return level;
+    }
+
+    @Override
+    public synchronized void write(TraceLevel level, String category, String message) {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, RECORD_SIZE - HEADER_SIZE);
+
+        ring.position((int) (written % capacity) * RECORD_SIZE);
+        ring.putLong(System.nanoTime())
+                .put((byte) level.ordinal())
+                .put((byte) categoryId(category))
+                .putShort((short) length)
+                .put(bytes, 0, length);
+        written++;
+    }
+
+    // Number of events that reached the sink, including ones already overwritten
+    public synchronized long getWritten() {
+        return written;
+    }
+
+    // Retained events, oldest first, decoded as "nanoTime LEVEL [category] message"
+    public synchronized List<String> events() {
+        List<String> events = new ArrayList<>();
+        long first = Math.max(0, written - capacity);
+        for (long i = first; i < written; i++) {
+            int offset = (int) (i % capacity) * RECORD_SIZE;
+            long time = ring.getLong(offset);
+            TraceLevel eventLevel = TraceLevel.values()[ring.get(offset + 8)];
+            String category = categories.get(ring.get(offset + 9));
+            byte[] message = new byte[ring.getShort(offset + 10)];
+            ring.get(offset + HEADER_SIZE, message);
+            events.add(time + " " + eventLevel + " [" + category + "] " + new String(message, StandardCharsets.UTF_8));
+        }
+        return events;
+    }
+
+    /**
+     * Dump format: magic, category count, the categories, record count, then the retained records
+     * oldest first, each exactly {@link #RECORD_SIZE} bytes.
+     */
+    public synchronized void writeTo(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeShort(categories.size());
+        for (String category : categories) {
+            out.writeUTF(category);
+        }
+
+        long first = Math.max(0, written - capacity);
+        out.writeInt((int) (written - first));
+        for (long i = first; i < written; i++) {
+            int offset = (int) (i % capacity) * RECORD_SIZE;
+            out.write(ring.array(), offset, RECORD_SIZE);
+        }
+        out.flush();
+    }
+
+    private int categoryId(String category) {
+        Integer id = categoryIds.get(category);
+        if (id == null) {
+            if (categories.size() == Byte.MAX_VALUE) {
+                throw new IllegalStateException("Too many trace categories");
+            }
+            id = categories.size();
+            categories.add(category);
+            categoryIds.put(category, id);
+        }
+        return id;
+    }
+}
@@ -0,0 +1,88 @@
+package diagnostics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide trace entry point used by the compiler phases. Tracing is off unless a sink is
+ * installed, either with {@link #setSink} or from system properties:
+ * <pre>
+ *   -Dcompiler.trace=info|debug|trace     level, off by default
+ *   -Dcompiler.trace.sink=console|ring    console (stdout) by default
+ *   -Dcompiler.trace.ring.size=N          records kept by the ring sink, 65536 by default
+ *   -Dcompiler.trace.file=path            ring sink dump written at exit
+ * </pre>
+ * Messages are passed as suppliers and only built when the level is enabled.
+ */
+public final class Trace {
+    private static TraceSink sink;
+    private static TraceLevel level = TraceLevel.OFF;
+
+    static {
+        configure();
+    }
+
+    private Trace() {
+    }
+
+    public static void setSink(TraceSink newSink) {
+        sink = newSink;
+        level = newSink == null ? TraceLevel.OFF : newSink.getLevel();
+    }
+
+    public static TraceSink getSink() {
+        return sink;
+    }
+
+    public static boolean isEnabled(TraceLevel eventLevel) {
+        return level.includes(eventLevel);
+    }
+
+    public static void info(String category, Supplier<String> message) {
+        if (level.includes(TraceLevel.INFO)) {
+            sink.write(TraceLevel.INFO, category, message.get());
+        }
+    }
+
+    public static void debug(String category, Supplier<String> message) {
+        if (level.includes(TraceLevel.DEBUG)) {
+            sink.write(TraceLevel.DEBUG, category, message.get());
+        }
+    }
+
+    public static void trace(String category, Supplier<String> message) {
+        if (level.includes(TraceLevel.TRACE)) {
+            sink.write(TraceLevel.TRACE, category, message.get());
+        }
+    }
+
+    private static void configure() {
+        String levelName = System.getProperty("compiler.trace");
+        if (levelName == null) {
+            return;
+        }
+        TraceLevel configured = TraceLevel.valueOf(levelName.toUpperCase(Locale.ROOT));
+        if (!"ring".equals(System.getProperty("compiler.trace.sink"))) {
+            setSink(new ConsoleTraceSink(configured, System.out));
+            return;
+        }
+
+        RingBufferTraceSink ring = new RingBufferTraceSink(configured,
+                Integer.getInteger("compiler.trace.ring.size", 65536));
+        setSink(ring);
+        String file = System.getProperty("compiler.trace.file");
+        if (file != null) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try (OutputStream out = Files.newOutputStream(Path.of(file))) {
+                    ring.writeTo(out);
+                } catch (IOException e) {
+                    System.err.println("Could not write trace to " + file + ": " + e.getMessage());
+                }
+            }));
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package diagnostics;
+
+public enum TraceLevel {
+    OFF,
+    // Phase summaries, e.g. the devirtualized call sites
+    INFO,
+    // One line per analyzed node
+    DEBUG,
+    // One line per lexeme
+    TRACE;
+
+    public boolean includes(TraceLevel level) {
+        return level != OFF && level.ordinal() <= ordinal();
+    }
+}
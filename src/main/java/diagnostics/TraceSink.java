@@ -0,0 +1,11 @@
+package diagnostics;
+
+/**
+ * Destination of compiler trace events. A sink only receives events at or below its level, and
+ * messages are built only after that check, so a disabled level costs a field read and a compare.
+ */
+public interface TraceSink {
+    TraceLevel getLevel();
+
+    void write(TraceLevel level, String category, String message);
+}
@@ -0,0 +1,71 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BasicBlock {
+    private final int id;
+    private final List<Instruction> instructions = new ArrayList<>();
+    private final List<BasicBlock> successors = new ArrayList<>();
+    private final List<BasicBlock> predecessors = new ArrayList<>();
+
+    public BasicBlock(int id) {
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public List<Instruction> getInstructions() {
+        return instructions;
+    }
+
+    // For a BRANCH terminator the first successor is taken when the condition is true
+    public List<BasicBlock> getSuccessors() {
+        return successors;
+    }
+
+    public List<BasicBlock> getPredecessors() {
+        return predecessors;
+    }
+
+    public void add(Instruction instruction) {
+        instructions.add(instruction);
+    }
+
+    public void addSuccessor(BasicBlock successor) {
+        successors.add(successor);
+        successor.predecessors.add(this);
+    }
+
+    public boolean isTerminated() {
+        return !instructions.isEmpty() && instructions.getLast().getOpcode().isTerminator();
+    }
+
+    public String getLabel() {
+        return "B" + id;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(getLabel()).append(":");
+        if (!predecessors.isEmpty()) {
+            sb.append("  ; preds");
+            for (BasicBlock predecessor : predecessors) {
+                sb.append(" ").append(predecessor.getLabel());
+            }
+        }
+        sb.append("\n");
+        for (Instruction instruction : instructions) {
+            sb.append("    ").append(instruction);
+            if (instruction.getOpcode().isTerminator() && !successors.isEmpty()) {
+                for (BasicBlock successor : successors) {
+                    sb.append(" ").append(successor.getLabel());
+                }
+            }
+            sb.append("\n");
+        }
+        return sb.toString();
+    }
+}
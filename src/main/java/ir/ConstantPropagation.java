@@ -0,0 +1,97 @@
+package ir;
+
+import ast.ASTNode;
+
+import java.util.*;
+
+/**
+ * Constant propagation over a method in SSA form. Each SSA name starts out unknown and is lowered
+ * to the CONST instruction that defines its value, or to "not constant" once two different
+ * constants or any other definition reach it; a phi takes the meet of its operands. The values only
+ * ever move down, so iterating over the blocks in reverse post-order until nothing changes ends.
+ * Both sides of every branch are assumed to run.
+ */
+public class ConstantPropagation {
+    private static final Instruction NOT_CONSTANT = new Instruction(Opcode.CONST, null, null, null, List.of());
+
+    // SSA name to its CONST instruction or NOT_CONSTANT; names not in the map are still unknown
+    private final Map<String, Instruction> values = new HashMap<>();
+    private final Map<ASTNode, Instruction> constantReads = new IdentityHashMap<>();
+
+    public ConstantPropagation(ControlFlowGraph cfg, DominatorTree dominators) {
+        List<BasicBlock> blocks = dominators.getReversePostOrder();
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (BasicBlock block : blocks) {
+                for (Instruction instruction : block.getInstructions()) {
+                    String target = instruction.getTarget();
+                    if (target == null) {
+                        continue;
+                    }
+                    Instruction value = evaluate(instruction);
+                    if (value != null && values.put(target, value) != value) {
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        for (BasicBlock block : cfg.getBlocks()) {
+            for (Instruction instruction : block.getInstructions()) {
+                Instruction value = values.get(instruction.getTarget());
+                if (instruction.getSource() != null && value != null && value != NOT_CONSTANT) {
+                    constantReads.put(instruction.getSource(), value);
+                }
+            }
+        }
+    }
+
+    // CONST instruction whose value the SSA name always holds, or null
+    public Instruction getConstant(String name) {
+        Instruction value = values.get(name);
+        return value == NOT_CONSTANT ? null : value;
+    }
+
+    // Identifier nodes that read a local holding a constant, with the CONST instruction of its value
+    public Map<ASTNode, Instruction> getConstantReads() {
+        return constantReads;
+    }
+
+    private Instruction evaluate(Instruction instruction) {
+        return switch (instruction.getOpcode()) {
+            case CONST -> instruction;
+            case COPY -> valueOf(instruction.getOperands().getFirst());
+            case PHI -> {
+                Instruction merged = null;
+                for (String operand : instruction.getOperands()) {
+                    merged = meet(merged, valueOf(operand));
+                }
+                yield merged;
+            }
+            default -> NOT_CONSTANT;
+        };
+    }
+
+    private Instruction valueOf(String name) {
+        // Version 0 is a read with no definition reaching it
+        if (name.substring(name.lastIndexOf('.') + 1).equals("0")) {
+            return NOT_CONSTANT;
+        }
+        return values.get(name);
+    }
+
+    // Null stands for a value not known yet
+    private static Instruction meet(Instruction first, Instruction second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first == NOT_CONSTANT || second == NOT_CONSTANT) {
+            return NOT_CONSTANT;
+        }
+        return first.getType().equals(second.getType()) && first.getName().equals(second.getName()) ? first : NOT_CONSTANT;
+    }
+}
@@ -0,0 +1,73 @@
+package ir;
+
+import java.util.*;
+
+public class ControlFlowGraph {
+    private final String className;
+    private final String methodName;
+    private final List<BasicBlock> blocks = new ArrayList<>();
+    private int nextBlockId;
+
+    public ControlFlowGraph(String className, String methodName) {
+        this.className = className;
+        this.methodName = methodName;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public List<BasicBlock> getBlocks() {
+        return blocks;
+    }
+
+    public BasicBlock getEntry() {
+        return blocks.getFirst();
+    }
+
+    public BasicBlock newBlock() {
+        BasicBlock block = new BasicBlock(nextBlockId++);
+        blocks.add(block);
+        return block;
+    }
+
+    public void removeUnreachableBlocks() {
+        Set<BasicBlock> reachable = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<BasicBlock> worklist = new ArrayDeque<>();
+        worklist.push(getEntry());
+        reachable.add(getEntry());
+        while (!worklist.isEmpty()) {
+            for (BasicBlock successor : worklist.pop().getSuccessors()) {
+                if (reachable.add(successor)) {
+                    worklist.push(successor);
+                }
+            }
+        }
+
+        blocks.removeIf(block -> !reachable.contains(block));
+        for (BasicBlock block : blocks) {
+            block.getPredecessors().removeIf(predecessor -> !reachable.contains(predecessor));
+        }
+    }
+
+    public int instructionCount() {
+        int count = 0;
+        for (BasicBlock block : blocks) {
+            count += block.getInstructions().size();
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("method ").append(className).append(".").append(methodName).append("\n");
+        for (BasicBlock block : blocks) {
+            sb.append(block);
+        }
+        return sb.toString();
+    }
+}
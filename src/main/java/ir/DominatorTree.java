@@ -0,0 +1,136 @@
+package ir;
+
+import java.util.*;
+
+/**
+ * Immediate dominators and dominance frontiers of a control-flow graph, computed with the
+ * iterative algorithm of Cooper, Harvey and Kennedy over the reverse post-order.
+ */
+public final class DominatorTree {
+    private final List<BasicBlock> reversePostOrder = new ArrayList<>();
+    private final Map<BasicBlock, Integer> order = new IdentityHashMap<>();
+    private final Map<BasicBlock, BasicBlock> immediateDominators = new IdentityHashMap<>();
+    private final Map<BasicBlock, List<BasicBlock>> children = new IdentityHashMap<>();
+    private final Map<BasicBlock, Set<BasicBlock>> frontiers = new IdentityHashMap<>();
+
+    public DominatorTree(ControlFlowGraph cfg) {
+        computeReversePostOrder(cfg.getEntry());
+        computeImmediateDominators(cfg.getEntry());
+        computeFrontiers();
+    }
+
+    public List<BasicBlock> getReversePostOrder() {
+        return reversePostOrder;
+    }
+
+    public BasicBlock getImmediateDominator(BasicBlock block) {
+        BasicBlock dominator = immediateDominators.get(block);
+        return dominator == block ? null : dominator;
+    }
+
+    public List<BasicBlock> getChildren(BasicBlock block) {
+        return children.getOrDefault(block, List.of());
+    }
+
+    public Set<BasicBlock> getFrontier(BasicBlock block) {
+        return frontiers.getOrDefault(block, Set.of());
+    }
+
+    public boolean dominates(BasicBlock dominator, BasicBlock block) {
+        for (BasicBlock runner = block; runner != null; runner = getImmediateDominator(runner)) {
+            if (runner == dominator) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void computeReversePostOrder(BasicBlock entry) {
+        // Iterative depth-first search so long chains of blocks cannot overflow the stack
+        Set<BasicBlock> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<BasicBlock> blocks = new ArrayDeque<>();
+        Deque<Integer> nextSuccessor = new ArrayDeque<>();
+        blocks.push(entry);
+        nextSuccessor.push(0);
+        visited.add(entry);
+
+        while (!blocks.isEmpty()) {
+            BasicBlock block = blocks.peek();
+            int index = nextSuccessor.pop();
+            if (index < block.getSuccessors().size()) {
+                nextSuccessor.push(index + 1);
+                BasicBlock successor = block.getSuccessors().get(index);
+                if (visited.add(successor)) {
+                    blocks.push(successor);
+                    nextSuccessor.push(0);
+                }
+            } else {
+                blocks.pop();
+                reversePostOrder.add(block);
+            }
+        }
+
+        Collections.reverse(reversePostOrder);
+        for (int i = 0; i < reversePostOrder.size(); i++) {
+            order.put(reversePostOrder.get(i), i);
+        }
+    }
+
+    private void computeImmediateDominators(BasicBlock entry) {
+        immediateDominators.put(entry, entry);
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (BasicBlock block : reversePostOrder) {
+                if (block == entry) {
+                    continue;
+                }
+
+                BasicBlock dominator = null;
+                for (BasicBlock predecessor : block.getPredecessors()) {
+                    if (immediateDominators.containsKey(predecessor)) {
+                        dominator = dominator == null ? predecessor : intersect(predecessor, dominator);
+                    }
+                }
+
+                if (dominator != immediateDominators.get(block)) {
+                    immediateDominators.put(block, dominator);
+                    changed = true;
+                }
+            }
+        }
+
+        for (BasicBlock block : reversePostOrder) {
+            BasicBlock dominator = getImmediateDominator(block);
+            if (dominator != null) {
+                children.computeIfAbsent(dominator, key -> new ArrayList<>()).add(block);
+            }
+        }
+    }
+
+    private BasicBlock intersect(BasicBlock first, BasicBlock second) {
+        while (first != second) {
+            while (order.get(first) > order.get(second)) {
+                first = immediateDominators.get(first);
+            }
+            while (order.get(second) > order.get(first)) {
+                second = immediateDominators.get(second);
+            }
+        }
+        return first;
+    }
+
+    private void computeFrontiers() {
+        for (BasicBlock block : reversePostOrder) {
+            if (block.getPredecessors().size() < 2) {
+                continue;
+            }
+            for (BasicBlock predecessor : block.getPredecessors()) {
+                for (BasicBlock runner = predecessor; runner != immediateDominators.get(block); runner = immediateDominators.get(runner)) {
+                    frontiers.computeIfAbsent(runner, key -> new LinkedHashSet<>()).add(block);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package ir;
+
+import ast.ASTNode;
+
+import java.util.*;
+
+/**
+ * Lowers the analyzed AST of every method and constructor into a control-flow graph of
+ * three-address instructions. Runs after {@code SemanticAnalyzer.analyze}, and on the tree the
+ * optimizer passes leave before tail calls are rewritten; the result is not yet in SSA form, see
+ * {@link SSABuilder}.
+ */
+public class IRBuilder {
+    private ControlFlowGraph cfg;
+    private BasicBlock current;
+    private int temporaryCount;
+    private final Set<String> locals = new HashSet<>();
+
+    public List<ControlFlowGraph> build(ASTNode root) {
+        if (!"Program".equals(root.getNodeType())) {
+            throw new IllegalArgumentException("Root node must be of type 'Program'");
+        }
+
+        List<ControlFlowGraph> graphs = new ArrayList<>();
+        for (ASTNode classNode : root.getChildren()) {
+            for (ASTNode member : classNode.getChildren()) {
+                if (member.getNodeType().equals("method") || member.getNodeType().equals("constructor")) {
+                    graphs.add(buildMethod(classNode.getNodeName(), member));
+                }
+            }
+        }
+        return graphs;
+    }
+
+    public ControlFlowGraph buildMethod(String className, ASTNode methodNode) {
+        String methodName = methodNode.getNodeType().equals("constructor") ? "<init>" : methodNode.getNodeName();
+        cfg = new ControlFlowGraph(className, methodName);
+        current = cfg.newBlock();
+        temporaryCount = 0;
+        locals.clear();
+        collectLocals(methodNode);
+
+        int argumentIndex = 0;
+        for (ASTNode child : methodNode.getChildren()) {
+            if (child.getNodeType().equals("argument")) {
+                emit(Opcode.ARG, child.getNodeName(), Integer.toString(argumentIndex++), child.getNodeTypeInfo());
+            }
+        }
+
+        lowerStatements(methodNode.getChildren());
+        if (!current.isTerminated()) {
+            emit(Opcode.RETURN, null, null, null);
+        }
+
+        cfg.removeUnreachableBlocks();
+        return cfg;
+    }
+
+    private void collectLocals(ASTNode node) {
+        if (node.getNodeType().equals("declaration") || node.getNodeType().equals("argument")) {
+            locals.add(node.getNodeName());
+        }
+        for (ASTNode child : node.getChildren()) {
+            collectLocals(child);
+        }
+    }
+
+    private void lowerStatements(List<ASTNode> statements) {
+        for (ASTNode statement : statements) {
+            lowerStatement(statement);
+        }
+    }
+
+    private void lowerStatement(ASTNode statement) {
+        switch (statement.getNodeType()) {
+            case "argument", "ReturnType", "ProfileCounter":
+                break;
+            case "declaration":
+                if (!statement.getChildren().isEmpty()) {
+                    String value = lowerExpression(statement.getChildren().get(0));
+                    emit(Opcode.COPY, statement.getNodeName(), null, statement.getNodeTypeInfo(), value);
+                }
+                break;
+            case "assignment":
+                lowerAssignment(statement);
+                break;
+            case "identifier":
+                // Statement form x.method(args): the call hangs below the receiver
+                if (!statement.getChildren().isEmpty()) {
+                    ASTNode call = statement.getChildren().get(0);
+                    List<String> operands = new ArrayList<>();
+                    operands.add(lowerIdentifier(statement.getNodeName()));
+                    for (ASTNode argument : call.getChildren()) {
+                        operands.add(lowerExpression(argument));
+                    }
+                    emit(Opcode.CALL, null, call.getNodeName(), null, operands.toArray(String[]::new));
+                }
+                break;
+            case "MethodCall":
+                lowerCall(statement, false);
+                break;
+            case "ReturnStatement":
+                ASTNode value = statement.getChildren().isEmpty() ? null : statement.getChildren().get(0);
+                if (value == null || value.getNodeType().equals("Void")) {
+                    emit(Opcode.RETURN, null, null, null);
+                } else {
+                    emit(Opcode.RETURN, null, null, null, lowerExpression(value));
+                }
+                // Anything after a return lands in a block without predecessors
+                current = cfg.newBlock();
+                break;
+            case "IfStatement":
+                lowerIfStatement(statement);
+                break;
+            case "WhileStatement":
+                lowerWhileStatement(statement);
+                break;
+            default:
+                throw new RuntimeException("Unexpected statement in IR lowering: " + statement.getNodeType());
+        }
+    }
+
+    private void lowerAssignment(ASTNode assignment) {
+        if (assignment.getNodeName() != null) {
+            // this.field := value inside a constructor
+            String value = lowerExpression(assignment.getChildren().get(0));
+            emit(Opcode.STORE_FIELD, null, assignment.getNodeName(), null, value);
+            return;
+        }
+
+        String target = assignment.getChildren().get(0).getNodeName();
+        String value = lowerExpression(assignment.getChildren().get(1));
+        if (locals.contains(target)) {
+            emit(Opcode.COPY, target, null, null, value);
+        } else {
+            emit(Opcode.STORE_FIELD, null, target, null, value);
+        }
+    }
+
+    private void lowerIfStatement(ASTNode ifNode) {
+        String condition = lowerExpression(ifNode.getChildren().get(0));
+        emit(Opcode.BRANCH, null, null, null, condition);
+
+        BasicBlock branchBlock = current;
+        BasicBlock join = cfg.newBlock();
+        boolean hasElse = false;
+
+        for (ASTNode child : ifNode.getChildren()) {
+            if (child.getNodeType().equals("ThenBlock") || child.getNodeType().equals("ElseBlock")) {
+                hasElse |= child.getNodeType().equals("ElseBlock");
+                current = cfg.newBlock();
+                branchBlock.addSuccessor(current);
+                lowerStatements(child.getChildren());
+                jumpTo(join);
+            }
+        }
+
+        if (!hasElse) {
+            branchBlock.addSuccessor(join);
+        }
+        current = join;
+    }
+
+    private void lowerWhileStatement(ASTNode whileNode) {
+        List<ASTNode> children = whileNode.getChildren();
+        BasicBlock header = cfg.newBlock();
+        jumpTo(header);
+
+        current = header;
+        String condition = lowerExpression(children.getLast());
+        emit(Opcode.BRANCH, null, null, null, condition);
+
+        BasicBlock body = cfg.newBlock();
+        BasicBlock exit = cfg.newBlock();
+        header.addSuccessor(body);
+        header.addSuccessor(exit);
+
+        current = body;
+        lowerStatements(children.subList(0, children.size() - 1));
+        jumpTo(header);
+        current = exit;
+    }
+
+    private void jumpTo(BasicBlock target) {
+        if (!current.isTerminated()) {
+            emit(Opcode.JUMP, null, null, null);
+            current.addSuccessor(target);
+        }
+    }
+
+    private String lowerExpression(ASTNode expression) {
+        switch (expression.getNodeType()) {
+            case "NumberLiteral":
+                return emitConstant(expression.getNodeName(), "Integer");
+            case "BoolLiteral":
+                return emitConstant(expression.getNodeName(), "Boolean");
+            case "StringLiteral":
+                return emitConstant(expression.getNodeName(), "String");
+            case "RealLiteral":
+                return emitConstant(expression.getNodeName(), "Real");
+            case "identifier":
+                if (locals.contains(expression.getNodeName())) {
+                    return lowerLocalRead(expression);
+                }
+                return lowerIdentifier(expression.getNodeName());
+            case "FieldAccess":
+                ASTNode inner = expression.getChildren().get(0);
+                if (expression.getNodeName().equals("this")) {
+                    return emit(Opcode.LOAD_FIELD, newTemporary(), inner.getNodeName(), null);
+                }
+                return emit(Opcode.LOAD_FIELD, newTemporary(), expression.getNodeName(), null, lowerExpression(inner));
+            case "MethodCall":
+                return lowerCall(expression, true);
+            case "ConstructorCall":
+                return emit(Opcode.NEW, newTemporary(), null, expression.getNodeName(), lowerOperands(expression));
+            default:
+                throw new RuntimeException("Unexpected expression in IR lowering: " + expression.getNodeType());
+        }
+    }
+
+    private String lowerIdentifier(String name) {
+        if (locals.contains(name)) {
+            return name;
+        }
+        return emit(Opcode.LOAD_FIELD, newTemporary(), name, null);
+    }
+
+    // Every read of a local in an expression gets its own temporary, tied to the identifier node
+    private String lowerLocalRead(ASTNode identifier) {
+        Instruction read = new Instruction(Opcode.COPY, newTemporary(), null, null, List.of(identifier.getNodeName()));
+        read.setSource(identifier);
+        current.add(read);
+        return read.getTarget();
+    }
+
+    private String lowerCall(ASTNode call, boolean hasResult) {
+        String[] operands = lowerOperands(call);
+        return emit(Opcode.CALL, hasResult ? newTemporary() : null, call.getNodeName(), null, operands);
+    }
+
+    private String[] lowerOperands(ASTNode node) {
+        String[] operands = new String[node.getChildren().size()];
+        for (int i = 0; i < operands.length; i++) {
+            operands[i] = lowerExpression(node.getChildren().get(i));
+        }
+        return operands;
+    }
+
+    private String emitConstant(String value, String type) {
+        return emit(Opcode.CONST, newTemporary(), value, type);
+    }
+
+    private String emit(Opcode opcode, String target, String name, String type, String... operands) {
+        current.add(new Instruction(opcode, target, name, type, List.of(operands)));
+        return target;
+    }
+
+    private String newTemporary() {
+        return "%" + temporaryCount++;
+    }
+}
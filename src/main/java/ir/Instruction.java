@@ -0,0 +1,79 @@
+package ir;
+
+import ast.ASTNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A three-address instruction. Every value is a named variable: locals keep their source name
+ * (versioned as name.N after SSA conversion) and intermediate results use %N temporaries.
+ * The name field holds the literal text for CONST, the method for CALL, the class for NEW,
+ * the field for LOAD_FIELD/STORE_FIELD and the original variable for PHI. A COPY that reads a local
+ * in an expression keeps the identifier node it was lowered from as its source, so that facts about
+ * the value can be applied back to the AST.
+ */
+public class Instruction {
+    private final Opcode opcode;
+    private String target;
+    private final String name;
+    private final String type;
+    private final List<String> operands;
+    private ASTNode source;
+
+    public Instruction(Opcode opcode, String target, String name, String type, List<String> operands) {
+        this.opcode = opcode;
+        this.target = target;
+        this.name = name;
+        this.type = type;
+        this.operands = new ArrayList<>(operands);
+    }
+
+    public Opcode getOpcode() {
+        return opcode;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public void setTarget(String target) {
+        this.target = target;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public List<String> getOperands() {
+        return operands;
+    }
+
+    public ASTNode getSource() {
+        return source;
+    }
+
+    public void setSource(ASTNode source) {
+        this.source = source;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        if (target != null) {
+            sb.append(target).append(" = ");
+        }
+        sb.append(opcode.name().toLowerCase());
+        if (name != null) {
+            sb.append(" ").append(name);
+        }
+        if (!operands.isEmpty()) {
+            sb.append(" ").append(String.join(", ", operands));
+        }
+        return sb.toString();
+    }
+}
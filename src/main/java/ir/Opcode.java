@@ -0,0 +1,19 @@
+package ir;
+
+public enum Opcode {
+    ARG,
+    CONST,
+    COPY,
+    CALL,
+    NEW,
+    LOAD_FIELD,
+    STORE_FIELD,
+    PHI,
+    JUMP,
+    BRANCH,
+    RETURN;
+
+    public boolean isTerminator() {
+        return this == JUMP || this == BRANCH || this == RETURN;
+    }
+}
@@ -0,0 +1,131 @@
+package ir;
+
+import java.util.*;
+
+/**
+ * Converts a control-flow graph to SSA form: phi functions are placed on the iterated dominance
+ * frontier of every local that is defined in one block and read in another (semi-pruned SSA),
+ * then every definition gets a fresh name.N version by walking the dominator tree. Temporaries
+ * (%N) are single-assignment by construction and keep their names. A read with no reaching
+ * definition refers to version 0.
+ */
+public class SSABuilder {
+    private final Map<String, Integer> versions = new HashMap<>();
+    private final Map<String, Deque<String>> stacks = new HashMap<>();
+
+    public DominatorTree convert(ControlFlowGraph cfg) {
+        DominatorTree dominators = new DominatorTree(cfg);
+        versions.clear();
+        stacks.clear();
+
+        insertPhis(cfg, dominators);
+        rename(cfg.getEntry(), dominators);
+        return dominators;
+    }
+
+    private void insertPhis(ControlFlowGraph cfg, DominatorTree dominators) {
+        Map<String, List<BasicBlock>> definitionBlocks = new HashMap<>();
+        Set<String> crossBlockNames = new HashSet<>();
+
+        for (BasicBlock block : cfg.getBlocks()) {
+            Set<String> definedHere = new HashSet<>();
+            for (Instruction instruction : block.getInstructions()) {
+                for (String operand : instruction.getOperands()) {
+                    if (isLocal(operand) && !definedHere.contains(operand)) {
+                        crossBlockNames.add(operand);
+                    }
+                }
+                String target = instruction.getTarget();
+                if (isLocal(target) && definedHere.add(target)) {
+                    definitionBlocks.computeIfAbsent(target, key -> new ArrayList<>()).add(block);
+                }
+            }
+        }
+
+        for (String name : crossBlockNames) {
+            List<BasicBlock> worklist = new ArrayList<>(definitionBlocks.getOrDefault(name, List.of()));
+            Set<BasicBlock> hasPhi = Collections.newSetFromMap(new IdentityHashMap<>());
+            Set<BasicBlock> queued = Collections.newSetFromMap(new IdentityHashMap<>());
+            queued.addAll(worklist);
+
+            while (!worklist.isEmpty()) {
+                BasicBlock block = worklist.removeLast();
+                for (BasicBlock frontier : dominators.getFrontier(block)) {
+                    if (hasPhi.add(frontier)) {
+                        List<String> operands = Collections.nCopies(frontier.getPredecessors().size(), name);
+                        frontier.getInstructions().addFirst(new Instruction(Opcode.PHI, name, name, null, operands));
+                        if (queued.add(frontier)) {
+                            worklist.add(frontier);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void rename(BasicBlock entry, DominatorTree dominators) {
+        // Explicit stack instead of recursion: the dominator tree of a long method is deep
+        Deque<BasicBlock> pending = new ArrayDeque<>();
+        Deque<List<String>> pushedNames = new ArrayDeque<>();
+        Set<BasicBlock> entered = Collections.newSetFromMap(new IdentityHashMap<>());
+        pending.push(entry);
+
+        while (!pending.isEmpty()) {
+            BasicBlock block = pending.peek();
+            if (!entered.add(block)) {
+                pending.pop();
+                for (String name : pushedNames.pop()) {
+                    stacks.get(name).pop();
+                }
+                continue;
+            }
+
+            List<String> pushed = new ArrayList<>();
+            for (Instruction instruction : block.getInstructions()) {
+                if (instruction.getOpcode() != Opcode.PHI) {
+                    instruction.getOperands().replaceAll(this::currentName);
+                }
+                String target = instruction.getTarget();
+                if (isLocal(target)) {
+                    instruction.setTarget(newName(target));
+                    pushed.add(target);
+                }
+            }
+
+            for (BasicBlock successor : block.getSuccessors()) {
+                int index = successor.getPredecessors().indexOf(block);
+                for (Instruction instruction : successor.getInstructions()) {
+                    if (instruction.getOpcode() != Opcode.PHI) {
+                        break;
+                    }
+                    instruction.getOperands().set(index, currentName(instruction.getName()));
+                }
+            }
+
+            pushedNames.push(pushed);
+            List<BasicBlock> children = dominators.getChildren(block);
+            for (int i = children.size() - 1; i >= 0; i--) {
+                pending.push(children.get(i));
+            }
+        }
+    }
+
+    private String newName(String name) {
+        int version = versions.merge(name, 1, Integer::sum);
+        String versioned = name + "." + version;
+        stacks.computeIfAbsent(name, key -> new ArrayDeque<>()).push(versioned);
+        return versioned;
+    }
+
+    private String currentName(String name) {
+        if (!isLocal(name)) {
+            return name;
+        }
+        Deque<String> stack = stacks.get(name);
+        return stack == null || stack.isEmpty() ? name + ".0" : stack.peek();
+    }
+
+    private boolean isLocal(String name) {
+        return name != null && !name.startsWith("%");
+    }
+}
@@ -1,5 +1,6 @@
 package lexical;
 
+import diagnostics.Trace;
 import token.Token;
 import token.TokenType;
 
@@ -7,9 +8,11 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class LexerEngine {
+    // Token types in the order they are tried
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
+
     private final Logger log = Logger.getLogger(this.getClass().getName());
     private final List<Token> tokens = new ArrayList<>();
     private final String input;
@@ -19,38 +22,41 @@ public class LexerEngine {
     }
 
     public List<Token> tokenize() {
-        Long position = 0L;
-        String remainingInput = input;
+        // One matcher per token type, moved along the input instead of cutting off the matched prefix
+        Matcher[] matchers = new Matcher[TOKEN_TYPES.length];
+        for (int i = 0; i < TOKEN_TYPES.length; i++) {
+            matchers[i] = TOKEN_TYPES[i].regex.matcher(input);
+        }
 
         //log.info(input);
 
-        while (!remainingInput.isEmpty()) {
+        int position = 0;
+        while (position < input.length()) {
             boolean matched = false;
 
-            for (TokenType tokenType : TokenType.values()) {
-                Pattern pattern = Pattern.compile("^(" + tokenType.pattern + ")");
-                Matcher matcher = pattern.matcher(remainingInput);
+            for (int i = 0; i < TOKEN_TYPES.length; i++) {
+                Matcher matcher = matchers[i].region(position, input.length());
 
-                if (matcher.find()) {
-                    System.out.println(matcher.group());
+                if (matcher.lookingAt()) {
+                    Trace.trace("lexer", matcher::group);
+                    TokenType tokenType = TOKEN_TYPES[i];
                     String lexeme = matcher.group().trim();
 
                     if (tokenType != TokenType.WHITESPACE) {
-                        tokens.add(new Token(tokenType, lexeme, position));
+                        tokens.add(new Token(tokenType, lexeme, (long) position));
                     }
 
-                    remainingInput = remainingInput.substring(matcher.group().length());
-                    position += matcher.group().length();
+                    position = matcher.end();
                     matched = true;
                     break;
                 }
             }
 
             if (!matched) {
-                throw new RuntimeException("Unexpected token: " + remainingInput);
+                throw new RuntimeException("Unexpected token: " + input.substring(position));
             }
         }
 
         return tokens;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,30 @@
+package output;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Direct buffers shared by all outputs of the JVM. Allocating a direct buffer is expensive and its
+ * memory is only given back when the buffer is collected, so outputs return theirs after a flush.
+ */
+final class BufferPool {
+    static final int BUFFER_SIZE = 1 << 20;
+
+    private static final int MAX_POOLED = 8;
+
+    private static final ConcurrentLinkedQueue<ByteBuffer> POOL = new ConcurrentLinkedQueue<>();
+
+    private BufferPool() {
+    }
+
+    static ByteBuffer acquire() {
+        ByteBuffer buffer = POOL.poll();
+        return buffer != null ? buffer.clear() : ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    static void release(ByteBuffer buffer) {
+        if (POOL.size() < MAX_POOLED) {
+            POOL.offer(buffer);
+        }
+    }
+}
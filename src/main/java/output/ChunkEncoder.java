@@ -0,0 +1,38 @@
+package output;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes character content as UTF-8 straight into a byte buffer, without the intermediate String
+ * and byte array of toString().getBytes(). Whenever the buffer fills up, the drain has to make room.
+ */
+final class ChunkEncoder {
+    interface Drain {
+        void drain(ByteBuffer buffer) throws IOException;
+    }
+
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+
+    void encode(CharSequence content, ByteBuffer buffer, Drain drain) throws IOException {
+        CharBuffer chars = CharBuffer.wrap(content);
+        encoder.reset();
+        CoderResult result;
+        do {
+            result = encoder.encode(chars, buffer, true);
+            if (result.isUnderflow()) {
+                result = encoder.flush(buffer);
+            }
+            if (result.isError()) {
+                result.throwException();
+            }
+            if (result.isOverflow()) {
+                drain.drain(buffer);
+            }
+        } while (!result.isUnderflow());
+    }
+}
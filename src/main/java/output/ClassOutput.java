@@ -0,0 +1,33 @@
+package output;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Destination of generated class files, Jasmin text or binary. The content is encoded or copied
+ * while write runs, so the caller may reuse its builder or array right away, but it may reach the
+ * file system only on flush or close. Close flushes and releases the output.
+ */
+public interface ClassOutput extends Closeable {
+    // Under the build directory, so that a program class named like a runtime class, e.g. Integer,
+    // never overwrites the runtime sources in src/main/java/examples
+    String DEFAULT_DIRECTORY = "target/classes-out";
+
+    void write(String name, CharSequence content) throws IOException;
+
+    void write(String name, byte[] content) throws IOException;
+
+    void flush() throws IOException;
+
+    @Override
+    default void close() throws IOException {
+        flush();
+    }
+
+    // Directory from compiler.output.dir, classes per batch from compiler.output.batch
+    static ClassOutput fromSystemProperties() {
+        return new DirectoryOutput(Path.of(System.getProperty("compiler.output.dir", DEFAULT_DIRECTORY)),
+                Integer.getInteger("compiler.output.batch", DirectoryOutput.DEFAULT_BATCH_SIZE));
+    }
+}
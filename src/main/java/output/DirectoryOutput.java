@@ -0,0 +1,142 @@
+package output;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes each class to its own file in a directory. Classes are encoded one after another into a
+ * pooled direct buffer and written out through a FileChannel once the batch is complete or the
+ * buffer is full, so the channel writes read native memory without another copy. A class larger
+ * than the buffer is streamed to its file in buffer-sized chunks.
+ */
+public class DirectoryOutput implements ClassOutput {
+    public static final int DEFAULT_BATCH_SIZE = 64;
+
+    private record Pending(Path file, int offset, int length) {
+    }
+
+    private final Path directory;
+    private final int batchSize;
+    private final ChunkEncoder encoder = new ChunkEncoder();
+    private final List<Pending> pending = new ArrayList<>();
+    private ByteBuffer buffer;
+    private boolean directoryCreated;
+
+    // Class being written while it does not fit into the buffer
+    private Path currentFile;
+    private FileChannel currentChannel;
+    private int currentOffset;
+
+    public DirectoryOutput(Path directory, int batchSize) {
+        this.directory = directory;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public void write(String name, CharSequence content) throws IOException {
+        if (buffer == null) {
+            buffer = BufferPool.acquire();
+        }
+        currentFile = directory.resolve(name);
+        currentOffset = buffer.position();
+        try {
+            encoder.encode(content, buffer, this::spill);
+            if (currentChannel == null) {
+                pending.add(new Pending(currentFile, currentOffset, buffer.position() - currentOffset));
+            } else {
+                writeFully(currentChannel, buffer.flip().position(currentOffset));
+                buffer.clear();
+            }
+        } finally {
+            if (currentChannel != null) {
+                currentChannel.close();
+                currentChannel = null;
+            }
+        }
+
+        if (pending.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    // Binary classes are copied as they are; one larger than the buffer goes straight to its file
+    @Override
+    public void write(String name, byte[] content) throws IOException {
+        if (buffer == null) {
+            buffer = BufferPool.acquire();
+        }
+        Path file = directory.resolve(name);
+        if (content.length > buffer.remaining()) {
+            writePending();
+            buffer.clear();
+        }
+        if (content.length > buffer.remaining()) {
+            try (FileChannel channel = open(file)) {
+                writeFully(channel, ByteBuffer.wrap(content));
+            }
+        } else {
+            pending.add(new Pending(file, buffer.position(), content.length));
+            buffer.put(content);
+        }
+
+        if (pending.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (buffer == null) {
+            return;
+        }
+        writePending();
+        BufferPool.release(buffer);
+        buffer = null;
+    }
+
+    // The buffer is full in the middle of a class: completed classes go out first, then the part
+    // of the current one, which from now on is appended to its open channel
+    private void spill(ByteBuffer full) throws IOException {
+        if (currentChannel == null) {
+            writePending();
+            currentChannel = open(currentFile);
+        }
+        writeFully(currentChannel, full.flip().position(currentOffset));
+        full.clear();
+        currentOffset = 0;
+    }
+
+    private void writePending() throws IOException {
+        for (Pending file : pending) {
+            try (FileChannel channel = open(file.file())) {
+                writeFully(channel, buffer.duplicate().limit(file.offset() + file.length()).position(file.offset()));
+            }
+        }
+        pending.clear();
+    }
+
+    private FileChannel open(Path file) throws IOException {
+        if (!directoryCreated) {
+            Files.createDirectories(directory);
+            directoryCreated = true;
+        }
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+}
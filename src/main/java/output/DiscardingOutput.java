@@ -0,0 +1,19 @@
+package output;
+
+/**
+ * Drops every class it is given. For compilations that only exercise the compiler, such as the
+ * daemon's warm-up, where nothing should reach the file system.
+ */
+public class DiscardingOutput implements ClassOutput {
+    @Override
+    public void write(String name, CharSequence content) {
+    }
+
+    @Override
+    public void write(String name, byte[] content) {
+    }
+
+    @Override
+    public void flush() {
+    }
+}
@@ -0,0 +1,100 @@
+package output;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+/**
+ * Collects all classes in memory and writes them as one jar on close, followed by the runtime
+ * classes the program calls into. The manifest comes first and names the main class, so the entries
+ * are deflated straight from memory in a single pass over the file and no temporary files are made.
+ */
+public class JarOutput implements ClassOutput {
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private final Path file;
+    private final Map<String, byte[]> runtimeClasses;
+    private final Map<String, byte[]> entries = new LinkedHashMap<>();
+    private final ChunkEncoder encoder = new ChunkEncoder();
+    private final ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+    private final ByteArrayOutputStream entry = new ByteArrayOutputStream(CHUNK_SIZE);
+    private String mainClass;
+
+    public JarOutput(Path file) {
+        this(file, Map.of());
+    }
+
+    // Runtime classes by entry name, e.g. Integer.j or Integer.class, in the format of the generated ones
+    public JarOutput(Path file, Map<String, byte[]> runtimeClasses) {
+        this.file = file;
+        this.runtimeClasses = runtimeClasses;
+    }
+
+    public void setMainClass(String mainClass) {
+        this.mainClass = mainClass;
+    }
+
+    @Override
+    public void write(String name, CharSequence content) throws IOException {
+        encoder.encode(content, buffer, this::drain);
+        drain(buffer);
+        entries.put(name, entry.toByteArray());
+        entry.reset();
+    }
+
+    @Override
+    public void write(String name, byte[] content) {
+        entries.put(name, content);
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        if (mainClass != null) {
+            manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, mainClass);
+        }
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try (JarOutputStream jar = new JarOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(channel), CHUNK_SIZE), manifest)) {
+            for (Map.Entry<String, byte[]> generated : entries.entrySet()) {
+                putEntry(jar, generated.getKey(), generated.getValue());
+            }
+            for (Map.Entry<String, byte[]> runtime : runtimeClasses.entrySet()) {
+                // A program may define a class of the same name, which then replaces the runtime one
+                if (!entries.containsKey(runtime.getKey())) {
+                    putEntry(jar, runtime.getKey(), runtime.getValue());
+                }
+            }
+        }
+        entries.clear();
+    }
+
+    private void drain(ByteBuffer full) {
+        entry.write(full.array(), 0, full.position());
+        full.clear();
+    }
+
+    private static void putEntry(JarOutputStream jar, String name, byte[] content) throws IOException {
+        jar.putNextEntry(new JarEntry(name));
+        jar.write(content);
+        jar.closeEntry();
+    }
+}
@@ -0,0 +1,314 @@
+package pipeline;
+
+import ast.ASTNode;
+import bytecode.BytecodeGenerator;
+import bytecode.OutputFormat;
+import bytecode.RuntimeClasses;
+import diagnostics.CompilerPhaseEvent;
+import lexical.LexerEngine;
+import output.ClassOutput;
+import output.DirectoryOutput;
+import output.JarOutput;
+import semantic.ExecutionProfile;
+import semantic.SemanticAnalyzer;
+import sintax.SintaxisAnalyzer;
+import token.Token;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Runs the compiler phases on a source program: lex, parse, analyze, optimize, generate. Metrics
+ * are recorded only when a {@link CompilerMetrics} is passed in; without one the phases are called
+ * directly. Each phase also emits a {@link CompilerPhaseEvent} for Java Flight Recorder, e.g. with
+ * -XX:StartFlightRecording:filename=compile.jfr, next to the per-class and per-method events of
+ * the analyzer and the code generator. Generated classes go to the given {@link ClassOutput}, by
+ * default the directory named by the compiler.output.dir property.
+ *
+ * <p>Profile-guided builds take two compilations. An instrumented build counts method entries,
+ * branches and loop iterations in the generated code and writes the counts to a profile file when
+ * the program exits; a build given that profile then inlines, unrolls and lays out branches after
+ * what ran most.
+ */
+public class Compiler {
+    private final CompilerMetrics metrics;
+    private final ClassOutput output;
+    private final OutputFormat format;
+    private String mainClass;
+    // Keys of the counters of an instrumented build, shared by all of its sources; null otherwise
+    private List<String> profileKeys;
+    private Path profileFile;
+    private ExecutionProfile profile;
+
+    public Compiler() {
+        this(null);
+    }
+
+    public Compiler(CompilerMetrics metrics) {
+        this(metrics, ClassOutput.fromSystemProperties());
+    }
+
+    public Compiler(CompilerMetrics metrics, ClassOutput output) {
+        this(metrics, output, OutputFormat.fromSystemProperties());
+    }
+
+    public Compiler(CompilerMetrics metrics, ClassOutput output, OutputFormat format) {
+        this.metrics = metrics;
+        this.output = output;
+        this.format = format;
+    }
+
+    public ASTNode compile(String source) {
+        return compile("<input>", source);
+    }
+
+    // The file name only labels the recorded metrics and flight recorder events
+    public ASTNode compile(String file, String source) {
+        return compile(file, parse(file, source));
+    }
+
+    public ASTNode parse(String file, String source) {
+        CompilerPhaseEvent lexEvent = begin();
+        List<Token> tokens = measure("lex", () -> new LexerEngine(source).tokenize());
+        if (finish(lexEvent, "lex", file)) {
+            lexEvent.tokens = tokens.size();
+            lexEvent.commit();
+        }
+
+        CompilerPhaseEvent parseEvent = begin();
+        ASTNode root = measure("parse", () -> new SintaxisAnalyzer(tokens).parse());
+        if (finish(parseEvent, "parse", file)) {
+            parseEvent.nodes = root.countNodes();
+            parseEvent.commit();
+        }
+        if (metrics != null) {
+            metrics.count("tokens", tokens.size());
+        }
+        return root;
+    }
+
+    // Analyzes, optimizes and generates a parsed program; the tree is changed in place
+    public ASTNode compile(String file, ASTNode root) {
+        SemanticAnalyzer analyzer = new SemanticAnalyzer();
+        CompilerPhaseEvent analyzeEvent = begin();
+        measure("analyze", () -> {
+            analyzer.analyze(root);
+            return root;
+        });
+        if (finish(analyzeEvent, "analyze", file)) {
+            analyzeEvent.nodes = root.countNodes();
+            analyzeEvent.commit();
+        }
+        if (metrics != null) {
+            metrics.count("files", 1);
+            metrics.count("nodes", root.countNodes());
+            metrics.count("classes", root.getChildren().size());
+            metrics.count("methods", countMethods(root));
+        }
+
+        CompilerPhaseEvent optimizeEvent = begin();
+        measure("optimize", () -> {
+            if (profileKeys != null) {
+                analyzer.instrument(root, profileKeys);
+            }
+            analyzer.optimize(root, profile);
+            return root;
+        });
+        if (finish(optimizeEvent, "optimize", file)) {
+            optimizeEvent.nodes = root.countNodes();
+            optimizeEvent.commit();
+        }
+        if (metrics != null) {
+            metrics.count("optimizedNodes", root.countNodes());
+        }
+
+        BytecodeGenerator generator = new BytecodeGenerator(output, format);
+        CompilerPhaseEvent generateEvent = begin();
+        measure("generate", () -> {
+            generator.generate(root);
+            return root;
+        });
+        if (finish(generateEvent, "generate", file)) {
+            generateEvent.instructions = generator.getInstructionCount();
+            generateEvent.commit();
+        }
+        if (mainClass == null) {
+            mainClass = generator.getMainClass();
+        }
+        return root;
+    }
+
+    // First compiled class that declares main
+    public String getMainClass() {
+        return mainClass;
+    }
+
+    // Instruments the programs compiled from now on; finish then adds the class that holds their
+    // counters and saves them to the given file when the program exits
+    public void instrument(Path profileFile) {
+        this.profileKeys = new ArrayList<>();
+        this.profileFile = profileFile;
+    }
+
+    // Profile of an instrumented build that guides the optimization of the programs compiled from now on
+    public void setProfile(ExecutionProfile profile) {
+        this.profile = profile;
+    }
+
+    // Generates what the compiled programs share once all of them are compiled: the profile class
+    // of an instrumented build. Nothing to do for other builds.
+    public void finish() {
+        if (profileKeys != null) {
+            new BytecodeGenerator(output, format).generateProfileClass(profileKeys, profileFile);
+        }
+    }
+
+    private <T> T measure(String phase, Supplier<T> action) {
+        return metrics == null ? action.get() : metrics.measure(phase, action);
+    }
+
+    private static CompilerPhaseEvent begin() {
+        CompilerPhaseEvent event = new CompilerPhaseEvent();
+        event.begin();
+        return event;
+    }
+
+    // Ends the event and tells whether it is recorded; the counts are only computed in that case
+    private static boolean finish(CompilerPhaseEvent event, String phase, String file) {
+        event.end();
+        if (!event.shouldCommit()) {
+            return false;
+        }
+        event.phase = phase;
+        event.file = file;
+        return true;
+    }
+
+    private static long countMethods(ASTNode root) {
+        long count = 0;
+        for (ASTNode classNode : root.getChildren()) {
+            for (ASTNode member : classNode.getChildren()) {
+                if (member.getNodeType().equals("method") || member.getNodeType().equals("constructor")) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    // Usage: Compiler [--metrics] [--metrics-json <file>] [--output <dir>] [--batch <classes>] [--format jasmin|class]
+    //                 [--jar <file> [--main <class>] [--runtime <dir>]] [--instrument <profile> | --profile <profile>]
+    //                 <source or directory>...
+    // Classes go to the output directory, by default target/classes-out. A jar holds the compiled
+    // classes and the runtime classes found in the runtime directory, by default
+    // src/main/java/examples, and names the given or the first class with main as Main-Class; it is
+    // always built in the class format.
+    // In the class format the runtime classes are assembled into the output directory as well, so
+    // the program runs from there. --instrument builds a program that writes its profile to the given
+    // file when it exits, --profile optimizes with a profile written that way.
+    public static void main(String[] args) throws IOException {
+        boolean printMetrics = false;
+        Path metricsJson = null;
+        Path outputDirectory = Path.of(System.getProperty("compiler.output.dir", ClassOutput.DEFAULT_DIRECTORY));
+        int batchSize = Integer.getInteger("compiler.output.batch", DirectoryOutput.DEFAULT_BATCH_SIZE);
+        OutputFormat format = OutputFormat.fromSystemProperties();
+        boolean formatGiven = System.getProperty("compiler.output.format") != null;
+        Path jar = null;
+        String mainClass = null;
+        Path runtimeDirectory = null;
+        Path instrumentFile = null;
+        Path profileFile = null;
+        List<Path> sources = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--metrics" -> printMetrics = true;
+                case "--metrics-json" -> metricsJson = Path.of(args[++i]);
+                case "--output" -> outputDirectory = Path.of(args[++i]);
+                case "--batch" -> batchSize = Integer.parseInt(args[++i]);
+                case "--format" -> {
+                    format = OutputFormat.forName(args[++i]);
+                    formatGiven = true;
+                }
+                case "--jar" -> jar = Path.of(args[++i]);
+                case "--main" -> mainClass = args[++i];
+                case "--runtime" -> runtimeDirectory = Path.of(args[++i]);
+                case "--instrument" -> instrumentFile = Path.of(args[++i]);
+                case "--profile" -> profileFile = Path.of(args[++i]);
+                default -> addSources(Path.of(args[i]), sources);
+            }
+        }
+        if (sources.isEmpty()) {
+            System.err.println("Usage: Compiler [--metrics] [--metrics-json <file>] [--output <dir>] [--batch <classes>]"
+                    + " [--format jasmin|class] [--jar <file> [--main <class>] [--runtime <dir>]]"
+                    + " [--instrument <profile> | --profile <profile>] <source or directory>...");
+            System.exit(2);
+        }
+        if (jar != null) {
+            // The JVM cannot run Jasmin sources out of a jar
+            if (formatGiven && format != OutputFormat.CLASS) {
+                System.err.println("Error: --jar needs --format class");
+                System.exit(2);
+            }
+            format = OutputFormat.CLASS;
+        }
+
+        CompilerMetrics metrics = printMetrics || metricsJson != null ? new CompilerMetrics() : null;
+        boolean failed = false;
+        Path runtime = runtimeDirectory != null ? runtimeDirectory : Path.of(RuntimeClasses.DEFAULT_DIRECTORY);
+        JarOutput jarOutput = jar != null ? new JarOutput(jar, RuntimeClasses.load(runtime, format)) : null;
+        try (ClassOutput output = jarOutput != null ? jarOutput : new DirectoryOutput(outputDirectory, batchSize)) {
+            if (jarOutput == null && format == OutputFormat.CLASS) {
+                // Written first, so that a program class of the same name replaces the runtime one
+                for (Map.Entry<String, byte[]> runtimeClass : RuntimeClasses.load(runtime, format).entrySet()) {
+                    output.write(runtimeClass.getKey(), runtimeClass.getValue());
+                }
+            }
+            Compiler compiler = new Compiler(metrics, output, format);
+            if (instrumentFile != null) {
+                compiler.instrument(instrumentFile);
+            }
+            if (profileFile != null) {
+                compiler.setProfile(ExecutionProfile.read(profileFile));
+            }
+            for (Path source : sources) {
+                try {
+                    compiler.compile(source.toString(), Files.readString(source));
+                } catch (RuntimeException e) {
+                    System.err.println("Error: " + source + ": " + e.getMessage());
+                    failed = true;
+                }
+            }
+            compiler.finish();
+            if (jarOutput != null) {
+                jarOutput.setMainClass(mainClass != null ? mainClass : compiler.getMainClass());
+            }
+        }
+
+        if (printMetrics) {
+            System.out.print(metrics.toTable());
+        }
+        if (metricsJson != null) {
+            Files.writeString(metricsJson, metrics.toJson());
+        }
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    // A directory stands for the .txt sources directly inside it, in name order
+    private static void addSources(Path path, List<Path> sources) throws IOException {
+        if (!Files.isDirectory(path)) {
+            sources.add(path);
+            return;
+        }
+        try (Stream<Path> files = Files.list(path)) {
+            files.filter(file -> file.getFileName().toString().endsWith(".txt")).sorted().forEach(sources::add);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package pipeline;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Wall time, CPU time and allocated bytes of each compiler phase, summed over every compilation
+ * that used this instance, together with counts of what the phases produced. CPU and allocation
+ * come from the current thread's ThreadMXBean counters, so a phase must run on the calling thread.
+ */
+public class CompilerMetrics {
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final com.sun.management.ThreadMXBean allocations =
+            threads instanceof com.sun.management.ThreadMXBean bean && bean.isThreadAllocatedMemorySupported() ? bean : null;
+    private final boolean cpuSupported = threads.isCurrentThreadCpuTimeSupported();
+
+    private final Map<String, PhaseMetrics> phases = new LinkedHashMap<>();
+    private final Map<String, Long> counts = new LinkedHashMap<>();
+
+    <T> T measure(String phase, Supplier<T> action) {
+        long cpuStart = cpuSupported ? threads.getCurrentThreadCpuTime() : 0;
+        long allocatedStart = allocations != null ? allocations.getCurrentThreadAllocatedBytes() : 0;
+        long wallStart = System.nanoTime();
+
+        T result = action.get();
+
+        long wall = System.nanoTime() - wallStart;
+        long cpu = cpuSupported ? threads.getCurrentThreadCpuTime() - cpuStart : -1;
+        long allocated = allocations != null ? allocations.getCurrentThreadAllocatedBytes() - allocatedStart : -1;
+        phases.computeIfAbsent(phase, PhaseMetrics::new).add(wall, cpu, allocated);
+        return result;
+    }
+
+    void count(String name, long amount) {
+        counts.merge(name, amount, Long::sum);
+    }
+
+    public Collection<PhaseMetrics> getPhases() {
+        return phases.values();
+    }
+
+    public Map<String, Long> getCounts() {
+        return counts;
+    }
+
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\n  \"phases\": [");
+        String separator = "\n";
+        for (PhaseMetrics phase : phases.values()) {
+            json.append(separator)
+                    .append("    {\"phase\": \"").append(phase.getPhase())
+                    .append("\", \"runs\": ").append(phase.getRuns())
+                    .append(", \"wallNanos\": ").append(phase.getWallNanos())
+                    .append(", \"cpuNanos\": ").append(phase.getCpuNanos())
+                    .append(", \"allocatedBytes\": ").append(phase.getAllocatedBytes()).append("}");
+            separator = ",\n";
+        }
+        json.append("\n  ],\n  \"counts\": {");
+        separator = "\n";
+        for (Map.Entry<String, Long> count : counts.entrySet()) {
+            json.append(separator).append("    \"").append(count.getKey()).append("\": ").append(count.getValue());
+            separator = ",\n";
+        }
+        return json.append("\n  }\n}\n").toString();
+    }
+
+    public String toTable() {
+        StringBuilder table = new StringBuilder(String.format("%-14s %5s %12s %12s %14s%n",
+                "phase", "runs", "wall ms", "cpu ms", "allocated KB"));
+        long wall = 0;
+        long cpu = 0;
+        long allocated = 0;
+        for (PhaseMetrics phase : phases.values()) {
+            table.append(row(phase.getPhase(), Integer.toString(phase.getRuns()),
+                    phase.getWallNanos(), phase.getCpuNanos(), phase.getAllocatedBytes()));
+            wall += phase.getWallNanos();
+            cpu += phase.getCpuNanos();
+            allocated += phase.getAllocatedBytes();
+        }
+        table.append(row("total", "", wall, cpu, allocated)).append("\n");
+        for (Map.Entry<String, Long> count : counts.entrySet()) {
+            table.append(String.format("%-14s %d%n", count.getKey(), count.getValue()));
+        }
+        return table.toString();
+    }
+
+    private String row(String phase, String runs, long wallNanos, long cpuNanos, long allocatedBytes) {
+        return String.format("%-14s %5s %12.3f %12s %14s%n", phase, runs, wallNanos / 1e6,
+                cpuSupported ? String.format("%.3f", cpuNanos / 1e6) : "n/a",
+                allocations != null ? Long.toString(allocatedBytes / 1024) : "n/a");
+    }
+}
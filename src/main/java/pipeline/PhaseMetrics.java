@@ -0,0 +1,42 @@
+package pipeline;
+
+public class PhaseMetrics {
+    private final String phase;
+    private int runs;
+    private long wallNanos;
+    private long cpuNanos;
+    private long allocatedBytes;
+
+    public PhaseMetrics(String phase) {
+        this.phase = phase;
+    }
+
+    void add(long wall, long cpu, long allocated) {
+        runs++;
+        wallNanos += wall;
+        cpuNanos += cpu;
+        allocatedBytes += allocated;
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    public int getRuns() {
+        return runs;
+    }
+
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    // -1 when the JVM cannot measure thread CPU time
+    public long getCpuNanos() {
+        return cpuNanos;
+    }
+
+    // -1 when the JVM cannot measure thread allocation
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+}
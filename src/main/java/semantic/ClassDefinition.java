@@ -1,14 +1,26 @@
 package semantic;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 public class ClassDefinition {
     private final String name;
     private final String parentClass;
-    private final Map<String, String> methods = new HashMap<>();
     private final List<String> constructorArgTypes;
+    private ClassDefinition parentDefinition;
+
+    // Members declared by this class itself
+    private final Map<String, List<MethodSignature>> methods = new HashMap<>();
+    private final Map<String, String> fields = new LinkedHashMap<>();
+
+    // Own and inherited members flattened into one index on the first lookup. All members of the
+    // class and its ancestors have to be added before that.
+    private Map<String, MethodSignature> resolvedSignatures;
+    private Map<String, List<MethodSignature>> resolvedMethods;
+    private Map<String, String> resolvedFields;
 
     public ClassDefinition(String name, String parentClass, List<String> constructorArgTypes) {
         this.name = name;
@@ -24,19 +36,123 @@ public class ClassDefinition {
         return parentClass;
     }
 
+    public void setParentDefinition(ClassDefinition parentDefinition) {
+        this.parentDefinition = parentDefinition;
+    }
+
     public boolean hasMethod(String methodName) {
         return methods.containsKey(methodName);
     }
 
+    // Whether this class itself declares the method with exactly these parameter types
+    public boolean hasMethod(String methodName, List<String> parameterTypes) {
+        for (MethodSignature signature : methods.getOrDefault(methodName, List.of())) {
+            if (signature.getParameterTypes().equals(parameterTypes)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public void addMethod(String methodName, String returnType) {
-        methods.put(methodName, returnType);
+        addMethod(new MethodSignature(methodName, List.of(), returnType, name));
+    }
+
+    public void addMethod(MethodSignature signature) {
+        methods.computeIfAbsent(signature.getName(), k -> new ArrayList<>()).add(signature);
+    }
+
+    public void addField(String fieldName, String fieldType) {
+        fields.put(fieldName, fieldType);
     }
 
     public String getMethodReturnType(String methodName) {
-        return methods.get(methodName);
+        List<MethodSignature> overloads = methods.get(methodName);
+        return overloads == null ? null : overloads.getFirst().getReturnType();
+    }
+
+    // Every overload visible on this class, inherited ones included
+    public List<MethodSignature> getMethods(String methodName) {
+        resolve();
+        return resolvedMethods.getOrDefault(methodName, List.of());
+    }
+
+    // Picks the overload whose parameter types equal the argument types; an unknown (null) argument
+    // type matches any parameter, in which case the first overload of that arity wins
+    public MethodSignature findMethod(String methodName, List<String> argumentTypes) {
+        resolve();
+        if (!argumentTypes.contains(null)) {
+            MethodSignature exact = resolvedSignatures.get(signatureKey(methodName, argumentTypes));
+            if (exact != null) {
+                return exact;
+            }
+        }
+        for (MethodSignature candidate : getMethods(methodName)) {
+            if (candidate.getArity() == argumentTypes.size() && matches(candidate.getParameterTypes(), argumentTypes)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    public MethodSignature findMethod(String methodName, int arity) {
+        for (MethodSignature candidate : getMethods(methodName)) {
+            if (candidate.getArity() == arity) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    public String getFieldType(String fieldName) {
+        resolve();
+        return resolvedFields.get(fieldName);
     }
 
     public List<String> getConstructorArgTypes() {
         return constructorArgTypes;
     }
+
+    private void resolve() {
+        if (resolvedSignatures != null) {
+            return;
+        }
+
+        Map<String, MethodSignature> signatures = new LinkedHashMap<>();
+        Map<String, String> allFields = new LinkedHashMap<>();
+        if (parentDefinition != null) {
+            parentDefinition.resolve();
+            signatures.putAll(parentDefinition.resolvedSignatures);
+            allFields.putAll(parentDefinition.resolvedFields);
+        }
+        // A redefinition with the same parameter types replaces the inherited one
+        for (List<MethodSignature> overloads : methods.values()) {
+            for (MethodSignature signature : overloads) {
+                signatures.put(signatureKey(signature.getName(), signature.getParameterTypes()), signature);
+            }
+        }
+        allFields.putAll(fields);
+
+        Map<String, List<MethodSignature>> byName = new HashMap<>();
+        for (MethodSignature signature : signatures.values()) {
+            byName.computeIfAbsent(signature.getName(), k -> new ArrayList<>()).add(signature);
+        }
+
+        resolvedMethods = byName;
+        resolvedFields = allFields;
+        resolvedSignatures = signatures;
+    }
+
+    private boolean matches(List<String> parameterTypes, List<String> argumentTypes) {
+        for (int i = 0; i < parameterTypes.size(); i++) {
+            if (argumentTypes.get(i) != null && !argumentTypes.get(i).equals(parameterTypes.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String signatureKey(String methodName, List<String> types) {
+        return methodName + "(" + String.join(",", types) + ")";
+    }
 }
@@ -0,0 +1,78 @@
+package semantic;
+
+import ast.ASTNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Whole-program view of the class hierarchy built from the analyzer's class table. Every class of
+ * the program is known at compile time, so a method that no subclass redefines has exactly one
+ * implementation for all receivers of that class.
+ */
+class ClassHierarchy {
+    private final Map<String, ClassDefinition> classTable;
+
+    ClassHierarchy(Map<String, ClassDefinition> classTable) {
+        this.classTable = classTable;
+    }
+
+    // Whether a subclass redefines the method with the same parameter types; an overload with other
+    // parameter types is a different method and does not change which one a call runs
+    boolean isOverridden(String baseClass, String methodName, List<String> parameterTypes) {
+        for (ClassDefinition definition : classTable.values()) {
+            if (definition.hasMethod(methodName, parameterTypes) && !definition.getName().equals(baseClass)
+                    && isSubclass(definition.getName(), baseClass)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean isOverridden(String baseClass, MethodSignature method) {
+        return isOverridden(baseClass, method.getName(), method.getParameterTypes());
+    }
+
+    // Parameter types of a method node, in the form the analyzer records them in MethodSignature
+    static List<String> parameterTypes(ASTNode method) {
+        List<String> types = new ArrayList<>();
+        for (ASTNode child : method.getChildren()) {
+            if (child.getNodeType().equals("argument")) {
+                types.add(child.getNodeTypeInfo());
+            }
+        }
+        return types;
+    }
+
+    boolean isSubclass(String subclass, String baseClass) {
+        for (String current = classTable.get(subclass).getParentClass(); current != null;
+             current = classTable.get(current).getParentClass()) {
+            if (current.equals(baseClass)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Declaration a call with the given number of arguments resolves to on a receiver of this class
+    MethodSignature findMethod(String className, String methodName, int arity) {
+        ClassDefinition definition = classTable.get(className);
+        return definition == null ? null : definition.findMethod(methodName, arity);
+    }
+
+    // Declaration of the overload with exactly these parameter types on a receiver of this class
+    MethodSignature findMethod(String className, String methodName, List<String> parameterTypes) {
+        ClassDefinition definition = classTable.get(className);
+        return definition == null ? null : definition.findMethod(methodName, parameterTypes);
+    }
+
+    String getParentClass(String className) {
+        ClassDefinition definition = classTable.get(className);
+        return definition == null ? null : definition.getParentClass();
+    }
+
+    boolean contains(String className) {
+        return classTable.containsKey(className);
+    }
+}
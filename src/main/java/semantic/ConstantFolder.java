@@ -0,0 +1,403 @@
+package semantic;
+
+import ast.ASTNode;
+import ir.ConstantPropagation;
+import ir.ControlFlowGraph;
+import ir.IRBuilder;
+import ir.Instruction;
+import ir.SSABuilder;
+
+import java.util.*;
+
+/**
+ * Folds calls on literal receivers and arguments (3.Mult(4), true.And(false)), applies algebraic
+ * identities (x.Plus(0), x.Mult(1), b.Not().Not()) and propagates literals through locals. Which
+ * reads of a local see a literal comes from {@link ConstantPropagation} over the method in SSA form,
+ * so a local can be reassigned, or set in both branches of an if, and still be replaced where only
+ * one literal reaches. Runs after semantic analysis, so every call it sees has already been
+ * type-checked.
+ */
+class ConstantFolder {
+    private static final Set<String> INTEGER_OPERATIONS = Set.of("Plus", "Minus", "Mult", "Div", "Rem");
+    private static final Set<String> INTEGER_COMPARISONS = Set.of("Less", "LessEqual", "Greater", "GreaterEqual", "Equal");
+    private static final Set<String> BOOLEAN_OPERATIONS = Set.of("And", "Or", "Xor");
+
+    private final Map<String, String> fieldTypes = new HashMap<>();
+    private final Map<String, String> localTypes = new HashMap<>();
+    private final Set<String> userMethods = new HashSet<>();
+
+    private final IRBuilder irBuilder = new IRBuilder();
+    private final SSABuilder ssaBuilder = new SSABuilder();
+    // Identifier nodes of the current method that read a literal, with that literal
+    private final Map<ASTNode, ASTNode> constantReads = new IdentityHashMap<>();
+
+    void fold(ASTNode root) {
+        for (ASTNode classNode : root.getChildren()) {
+            if (!classNode.getNodeType().equals("class")) {
+                continue;
+            }
+
+            fieldTypes.clear();
+            userMethods.clear();
+            for (ASTNode member : classNode.getChildren()) {
+                if (member.getNodeType().equals("declaration")) {
+                    fieldTypes.put(member.getNodeName(), member.getNodeTypeInfo());
+                } else if (member.getNodeType().equals("method")) {
+                    userMethods.add(member.getNodeName());
+                }
+            }
+
+            for (ASTNode member : classNode.getChildren()) {
+                if (member.getNodeType().equals("method") || member.getNodeType().equals("constructor")) {
+                    foldMethod(classNode.getNodeName(), member);
+                }
+            }
+        }
+    }
+
+    private void foldMethod(String className, ASTNode methodNode) {
+        localTypes.clear();
+        collectConstantReads(className, methodNode);
+        foldBlock(methodNode);
+    }
+
+    private void collectConstantReads(String className, ASTNode methodNode) {
+        constantReads.clear();
+        ControlFlowGraph cfg = irBuilder.buildMethod(className, methodNode);
+        ConstantPropagation propagation = new ConstantPropagation(cfg, ssaBuilder.convert(cfg));
+        for (Map.Entry<ASTNode, Instruction> read : propagation.getConstantReads().entrySet()) {
+            Instruction constant = read.getValue();
+            switch (constant.getType()) {
+                case "Integer" -> constantReads.put(read.getKey(), new ASTNode("NumberLiteral", constant.getName()));
+                case "Boolean" -> constantReads.put(read.getKey(), new ASTNode("BoolLiteral", constant.getName()));
+            }
+        }
+    }
+
+    private void foldBlock(ASTNode block) {
+        List<ASTNode> statements = block.getChildren();
+        for (int i = 0; i < statements.size(); i++) {
+            ASTNode statement = statements.get(i);
+            switch (statement.getNodeType()) {
+                case "argument":
+                    localTypes.put(statement.getNodeName(), statement.getNodeTypeInfo());
+                    break;
+                case "declaration":
+                    localTypes.put(statement.getNodeName(), statement.getNodeTypeInfo());
+                    foldChildren(statement, 0);
+                    break;
+                case "assignment":
+                    // Constructor field assignments carry the value as their only child
+                    foldChildren(statement, statement.getNodeName() == null ? 1 : 0);
+                    break;
+                case "identifier":
+                    if (!statement.getChildren().isEmpty()) {
+                        foldChildren(statement.getChildren().get(0), 0);
+                    }
+                    break;
+                case "MethodCall", "ReturnStatement":
+                    foldChildren(statement, 0);
+                    break;
+                case "IfStatement":
+                    i = foldIfStatement(block, i);
+                    break;
+                case "WhileStatement":
+                    i = foldWhileStatement(block, i);
+                    break;
+            }
+        }
+    }
+
+    private int foldIfStatement(ASTNode block, int index) {
+        ASTNode ifNode = block.getChildren().get(index);
+        foldChildren(ifNode, 0, 1);
+
+        ASTNode chosen = null;
+        ASTNode condition = ifNode.getChildren().get(0);
+        for (ASTNode branch : ifNode.getChildren()) {
+            if (branch.getNodeType().equals("ThenBlock") || branch.getNodeType().equals("ElseBlock")) {
+                foldBlock(branch);
+                if (condition.getNodeType().equals("BoolLiteral")
+                        && branch.getNodeType().equals(condition.getNodeName().equals("true") ? "ThenBlock" : "ElseBlock")) {
+                    chosen = branch;
+                }
+            }
+        }
+
+        if (!condition.getNodeType().equals("BoolLiteral")) {
+            return index;
+        }
+
+        // The branch is decided at compile time: splice the taken block in place of the statement
+        List<ASTNode> taken = chosen == null ? List.of() : new ArrayList<>(chosen.getChildren());
+        block.getChildren().remove(index);
+        block.getChildren().addAll(index, taken);
+        for (ASTNode statement : taken) {
+            statement.setParent(block);
+        }
+        return index + taken.size() - 1;
+    }
+
+    private int foldWhileStatement(ASTNode block, int index) {
+        ASTNode whileNode = block.getChildren().get(index);
+        int conditionIndex = whileNode.getChildren().size() - 1;
+        foldChildren(whileNode, conditionIndex);
+        foldBlock(whileNode);
+
+        ASTNode condition = whileNode.getChildren().get(conditionIndex);
+        if (condition.getNodeType().equals("BoolLiteral") && condition.getNodeName().equals("false")) {
+            block.getChildren().remove(index);
+            return index - 1;
+        }
+        return index;
+    }
+
+    private void foldChildren(ASTNode node, int from) {
+        foldChildren(node, from, node.getChildren().size());
+    }
+
+    private void foldChildren(ASTNode node, int from, int to) {
+        List<ASTNode> children = node.getChildren();
+        for (int i = from; i < to; i++) {
+            ASTNode folded = foldExpression(children.get(i));
+            if (folded != children.get(i)) {
+                children.set(i, folded);
+                folded.setParent(node);
+            }
+        }
+    }
+
+    private ASTNode foldExpression(ASTNode expression) {
+        if (!expression.getNodeType().equals("MethodCall") || userMethods.contains(expression.getNodeName())) {
+            if (expression.getNodeType().equals("MethodCall") || expression.getNodeType().equals("ConstructorCall")) {
+                foldChildren(expression, 0);
+            }
+            return expression;
+        }
+
+        foldChildren(expression, 0);
+        propagateConstants(expression);
+
+        ASTNode folded = evaluate(expression);
+        if (folded != null) {
+            return folded;
+        }
+
+        ASTNode simplified = simplify(expression);
+        return simplified != null ? simplified : expression;
+    }
+
+    private void propagateConstants(ASTNode call) {
+        String methodName = call.getNodeName();
+        List<ASTNode> operands = call.getChildren();
+
+        if (INTEGER_OPERATIONS.contains(methodName) || INTEGER_COMPARISONS.contains(methodName) || methodName.equals("UnaryMinus")) {
+            for (int i = 0; i < operands.size(); i++) {
+                ASTNode constant = constantFor(operands.get(i));
+                if (constant != null && constant.getNodeType().equals("NumberLiteral")) {
+                    operands.set(i, copyLiteral(constant, call));
+                }
+            }
+        } else if (BOOLEAN_OPERATIONS.contains(methodName) || methodName.equals("Not")) {
+            // Boolean literals only have a code shape once the whole call folds away
+            for (ASTNode operand : operands) {
+                if (!isLiteral(operand) && constantFor(operand) == null) {
+                    return;
+                }
+            }
+            for (int i = 0; i < operands.size(); i++) {
+                ASTNode constant = constantFor(operands.get(i));
+                if (constant != null) {
+                    operands.set(i, copyLiteral(constant, call));
+                }
+            }
+        }
+    }
+
+    private ASTNode constantFor(ASTNode operand) {
+        if (operand.getNodeType().equals("identifier") && operand.getChildren().isEmpty()) {
+            return constantReads.get(operand);
+        }
+        return null;
+    }
+
+    private ASTNode evaluate(ASTNode call) {
+        String methodName = call.getNodeName();
+        List<ASTNode> operands = call.getChildren();
+
+        if (operands.size() == 2 && isNumber(operands.get(0)) && isNumber(operands.get(1))) {
+            int left = Integer.parseInt(operands.get(0).getNodeName());
+            int right = Integer.parseInt(operands.get(1).getNodeName());
+            switch (methodName) {
+                case "Plus":
+                    return number(left + right);
+                case "Minus":
+                    return number(left - right);
+                case "Mult":
+                    return number(left * right);
+                case "Div":
+                    return right == 0 ? null : number(left / right);
+                case "Rem":
+                    return right == 0 ? null : number(left % right);
+                case "Less":
+                    return bool(left < right);
+                case "LessEqual":
+                    return bool(left <= right);
+                case "Greater":
+                    return bool(left > right);
+                case "GreaterEqual":
+                    return bool(left >= right);
+                case "Equal":
+                    return bool(left == right);
+            }
+        }
+
+        if (operands.size() == 1 && isNumber(operands.get(0))) {
+            int value = Integer.parseInt(operands.get(0).getNodeName());
+            switch (methodName) {
+                case "UnaryMinus":
+                    return number(-value);
+                case "toBoolean":
+                    return bool(value != 0);
+            }
+        }
+
+        if (operands.size() == 2 && isBool(operands.get(0)) && isBool(operands.get(1))) {
+            boolean left = Boolean.parseBoolean(operands.get(0).getNodeName());
+            boolean right = Boolean.parseBoolean(operands.get(1).getNodeName());
+            switch (methodName) {
+                case "And":
+                    return bool(left && right);
+                case "Or":
+                    return bool(left || right);
+                case "Xor":
+                    return bool(left ^ right);
+            }
+        }
+
+        if (operands.size() == 1 && isBool(operands.get(0))) {
+            boolean value = Boolean.parseBoolean(operands.get(0).getNodeName());
+            switch (methodName) {
+                case "Not":
+                    return bool(!value);
+                case "toInteger":
+                    return number(value ? 1 : 0);
+            }
+        }
+
+        return null;
+    }
+
+    private ASTNode simplify(ASTNode call) {
+        String methodName = call.getNodeName();
+        List<ASTNode> operands = call.getChildren();
+
+        if (methodName.equals("Not") && operands.size() == 1) {
+            ASTNode inner = operands.get(0);
+            if (inner.getNodeType().equals("MethodCall") && inner.getNodeName().equals("Not")
+                    && inner.getChildren().size() == 1 && "Boolean".equals(typeOf(inner.getChildren().get(0)))) {
+                return inner.getChildren().get(0);
+            }
+            return null;
+        }
+
+        if (operands.size() != 2) {
+            return null;
+        }
+
+        ASTNode left = operands.get(0);
+        ASTNode right = operands.get(1);
+        switch (methodName) {
+            case "Plus":
+                if (isNumber(right, 0) && "Integer".equals(typeOf(left))) return left;
+                if (isNumber(left, 0) && "Integer".equals(typeOf(right))) return right;
+                break;
+            case "Minus":
+                if (isNumber(right, 0) && "Integer".equals(typeOf(left))) return left;
+                break;
+            case "Mult":
+                if (isNumber(right, 1) && "Integer".equals(typeOf(left))) return left;
+                if (isNumber(left, 1) && "Integer".equals(typeOf(right))) return right;
+                break;
+            case "Div":
+                if (isNumber(right, 1) && "Integer".equals(typeOf(left))) return left;
+                break;
+            case "And":
+                if (isBool(right, true) && "Boolean".equals(typeOf(left))) return left;
+                break;
+            case "Or":
+                if (isBool(right, false) && "Boolean".equals(typeOf(left))) return left;
+                break;
+        }
+        return null;
+    }
+
+    private String typeOf(ASTNode expression) {
+        switch (expression.getNodeType()) {
+            case "NumberLiteral":
+                return "Integer";
+            case "BoolLiteral":
+                return "Boolean";
+            case "identifier":
+                String type = localTypes.get(expression.getNodeName());
+                return type != null ? type : fieldTypes.get(expression.getNodeName());
+            case "MethodCall":
+                String methodName = expression.getNodeName();
+                if (userMethods.contains(methodName)) {
+                    return null;
+                }
+                if (INTEGER_OPERATIONS.contains(methodName) || methodName.equals("UnaryMinus") || methodName.equals("toInteger")) {
+                    return "Integer";
+                }
+                if (INTEGER_COMPARISONS.contains(methodName) || BOOLEAN_OPERATIONS.contains(methodName)
+                        || methodName.equals("Not") || methodName.equals("toBoolean")) {
+                    return "Boolean";
+                }
+                return null;
+            default:
+                return null;
+        }
+    }
+
+    private boolean isLiteral(ASTNode node) {
+        return node != null && (isNumber(node) || isBool(node));
+    }
+
+    private boolean isNumber(ASTNode node) {
+        if (!node.getNodeType().equals("NumberLiteral")) {
+            return false;
+        }
+        try {
+            Integer.parseInt(node.getNodeName());
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private boolean isNumber(ASTNode node, int value) {
+        return isNumber(node) && Integer.parseInt(node.getNodeName()) == value;
+    }
+
+    private boolean isBool(ASTNode node) {
+        return node.getNodeType().equals("BoolLiteral");
+    }
+
+    private boolean isBool(ASTNode node, boolean value) {
+        return isBool(node) && Boolean.parseBoolean(node.getNodeName()) == value;
+    }
+
+    private ASTNode number(int value) {
+        return new ASTNode("NumberLiteral", Integer.toString(value));
+    }
+
+    private ASTNode bool(boolean value) {
+        return new ASTNode("BoolLiteral", Boolean.toString(value));
+    }
+
+    private ASTNode copyLiteral(ASTNode literal, ASTNode parent) {
+        ASTNode copy = new ASTNode(literal.getNodeType(), literal.getNodeName());
+        copy.setParent(parent);
+        return copy;
+    }
+}
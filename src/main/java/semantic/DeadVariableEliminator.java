@@ -0,0 +1,238 @@
+package semantic;
+
+import ast.ASTNode;
+
+import java.util.*;
+
+/**
+ * Per-method liveness analysis over the structured AST. Walks every method body backwards once,
+ * dropping stores whose value is never read afterwards and declarations that end up with no
+ * references at all. Initializers and right-hand sides with side effects (user method calls,
+ * constructors of user classes, Div/Rem by a non-literal, Array.get, Length) are always kept;
+ * Length throws on an array that was never created, so like {@link LoopOptimizer} this pass
+ * does not treat it as free of side effects.
+ */
+class DeadVariableEliminator {
+    private static final Set<String> PURE_INTRINSICS = Set.of(
+            "Plus", "Minus", "Mult", "Less", "LessEqual", "Greater", "GreaterEqual", "Equal",
+            "UnaryMinus", "toReal", "toBoolean", "toInteger", "getValue",
+            "And", "Or", "Xor", "Not", "getBool");
+
+    private final Set<String> userMethods = new HashSet<>();
+    private final Set<String> locals = new HashSet<>();
+    // Every local read anywhere inside a while statement, condition included
+    private final Map<ASTNode, Set<String>> loopReads = new IdentityHashMap<>();
+
+    void eliminate(ASTNode root) {
+        for (ASTNode classNode : root.getChildren()) {
+            if (!classNode.getNodeType().equals("class")) {
+                continue;
+            }
+
+            userMethods.clear();
+            for (ASTNode member : classNode.getChildren()) {
+                if (member.getNodeType().equals("method")) {
+                    userMethods.add(member.getNodeName());
+                }
+            }
+
+            for (ASTNode member : classNode.getChildren()) {
+                if (member.getNodeType().equals("method") || member.getNodeType().equals("constructor")) {
+                    eliminateInMethod(member);
+                }
+            }
+        }
+    }
+
+    private void eliminateInMethod(ASTNode methodNode) {
+        locals.clear();
+        loopReads.clear();
+        collectLocals(methodNode);
+        collectLoopReads(methodNode, null);
+
+        liveness(methodNode, new HashSet<>());
+
+        Map<String, Integer> references = new HashMap<>();
+        countReferences(methodNode, references);
+        removeUnreferencedDeclarations(methodNode, references);
+    }
+
+    private void collectLocals(ASTNode node) {
+        if (node.getNodeType().equals("declaration") || node.getNodeType().equals("argument")) {
+            locals.add(node.getNodeName());
+        }
+        for (ASTNode child : node.getChildren()) {
+            collectLocals(child);
+        }
+    }
+
+    private void collectLoopReads(ASTNode node, Set<String> enclosingLoop) {
+        Set<String> reads = enclosingLoop;
+        if (node.getNodeType().equals("WhileStatement")) {
+            reads = new HashSet<>();
+            loopReads.put(node, reads);
+        }
+
+        if (reads != null && isLocal(node)) {
+            reads.add(node.getNodeName());
+        }
+
+        for (ASTNode child : readChildren(node)) {
+            collectLoopReads(child, reads);
+        }
+
+        // Variables read in a nested loop are read in the enclosing one too
+        if (reads != enclosingLoop && enclosingLoop != null) {
+            enclosingLoop.addAll(reads);
+        }
+    }
+
+    private Set<String> liveness(ASTNode block, Set<String> live) {
+        List<ASTNode> statements = block.getChildren();
+        Set<ASTNode> deadStores = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = statements.size() - 1; i >= 0; i--) {
+            ASTNode statement = statements.get(i);
+            switch (statement.getNodeType()) {
+                case "argument", "ReturnType":
+                    break;
+                case "declaration":
+                    if (!statement.getChildren().isEmpty()) {
+                        ASTNode initializer = statement.getChildren().get(0);
+                        if (!live.contains(statement.getNodeName()) && isPure(initializer)) {
+                            statement.removeChild(initializer);
+                        } else {
+                            live.remove(statement.getNodeName());
+                            addReads(initializer, live);
+                        }
+                    }
+                    break;
+                case "assignment":
+                    if (statement.getNodeName() != null) {
+                        // this.field := value inside a constructor
+                        addReads(statement, live);
+                        break;
+                    }
+                    String target = statement.getChildren().get(0).getNodeName();
+                    ASTNode value = statement.getChildren().get(1);
+                    if (locals.contains(target) && !live.contains(target) && isPure(value)) {
+                        deadStores.add(statement);
+                    } else {
+                        live.remove(target);
+                        addReads(value, live);
+                    }
+                    break;
+                case "ReturnStatement":
+                    live.clear();
+                    addReads(statement, live);
+                    break;
+                case "IfStatement":
+                    Set<String> liveOut = new HashSet<>(live);
+                    live.clear();
+                    boolean hasElse = false;
+                    for (ASTNode branch : statement.getChildren()) {
+                        if (branch.getNodeType().equals("ThenBlock") || branch.getNodeType().equals("ElseBlock")) {
+                            hasElse |= branch.getNodeType().equals("ElseBlock");
+                            live.addAll(liveness(branch, new HashSet<>(liveOut)));
+                        }
+                    }
+                    if (!hasElse) {
+                        live.addAll(liveOut);
+                    }
+                    addReads(statement.getChildren().get(0), live);
+                    break;
+                case "WhileStatement":
+                    // Anything read inside the loop stays live across the whole body, which makes a
+                    // single backward walk enough instead of iterating to a fixed point
+                    Set<String> bodyLive = new HashSet<>(live);
+                    bodyLive.addAll(loopReads.get(statement));
+                    live.addAll(liveness(statement, bodyLive));
+                    live.addAll(loopReads.get(statement));
+                    break;
+                default:
+                    addReads(statement, live);
+            }
+        }
+
+        // Removing in one sweep keeps the pass linear on long statement lists
+        if (!deadStores.isEmpty()) {
+            statements.removeIf(deadStores::contains);
+        }
+        return live;
+    }
+
+    private void addReads(ASTNode node, Set<String> live) {
+        if (isLocal(node)) {
+            live.add(node.getNodeName());
+        }
+        for (ASTNode child : readChildren(node)) {
+            addReads(child, live);
+        }
+    }
+
+    private boolean isLocal(ASTNode node) {
+        return node.getNodeType().equals("identifier") && locals.contains(node.getNodeName());
+    }
+
+    private List<ASTNode> readChildren(ASTNode node) {
+        // The left-hand side of an assignment is a store, not a read
+        if (node.getNodeType().equals("assignment") && node.getNodeName() == null) {
+            return node.getChildren().subList(1, node.getChildren().size());
+        }
+        return node.getChildren();
+    }
+
+    private void countReferences(ASTNode node, Map<String, Integer> references) {
+        if (node.getNodeType().equals("identifier") && locals.contains(node.getNodeName())) {
+            references.merge(node.getNodeName(), 1, Integer::sum);
+        }
+        for (ASTNode child : node.getChildren()) {
+            countReferences(child, references);
+        }
+    }
+
+    private void removeUnreferencedDeclarations(ASTNode block, Map<String, Integer> references) {
+        block.getChildren().removeIf(child -> child.getNodeType().equals("declaration")
+                && !references.containsKey(child.getNodeName())
+                && (child.getChildren().isEmpty() || isPure(child.getChildren().get(0))));
+
+        for (ASTNode child : block.getChildren()) {
+            removeUnreferencedDeclarations(child, references);
+        }
+    }
+
+    private boolean isPure(ASTNode expression) {
+        switch (expression.getNodeType()) {
+            case "NumberLiteral", "StringLiteral", "BoolLiteral", "RealLiteral", "Void":
+                return true;
+            case "identifier":
+                return expression.getChildren().isEmpty();
+            case "FieldAccess":
+                return allPure(expression);
+            case "ConstructorCall":
+                String className = expression.getNodeName();
+                return (className.startsWith("Array") || className.equals("Integer") || className.equals("Boolean"))
+                        && allPure(expression);
+            case "MethodCall":
+                String methodName = expression.getNodeName();
+                if (userMethods.contains(methodName) || !allPure(expression)) {
+                    return false;
+                }
+                if (methodName.equals("Div") || methodName.equals("Rem")) {
+                    ASTNode divisor = expression.getChildren().get(expression.getChildren().size() - 1);
+                    return divisor.getNodeType().equals("NumberLiteral") && !divisor.getNodeName().matches("-?0+");
+                }
+                return PURE_INTRINSICS.contains(methodName);
+            default:
+                return false;
+        }
+    }
+
+    private boolean allPure(ASTNode node) {
+        for (ASTNode child : node.getChildren()) {
+            if (!isPure(child)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
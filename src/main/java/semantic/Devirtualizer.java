@@ -0,0 +1,153 @@
+package semantic;
+
+import ast.ASTNode;
+
+import java.util.*;
+
+/**
+ * Class hierarchy analysis over user method calls. A call site is monomorphic when the method it
+ * resolves to from the receiver's static class is not redefined in any subclass of that class, since
+ * then every possible receiver runs the same implementation. Such calls are marked by recording the
+ * defining class as the node type info of the MethodCall; the code generator turns them into
+ * invokespecial when the receiver is this and that class is the current class or its superclass,
+ * and into an invokevirtual against the exact owner otherwise. The verifier only accepts
+ * invokespecial on this, so a call on another variable of the same class stays virtual.
+ */
+class Devirtualizer {
+    private final ClassHierarchy hierarchy;
+    private final Map<String, Map<String, String>> fieldTypes = new HashMap<>();
+    private final Map<String, String> localTypes = new HashMap<>();
+    private final List<String> devirtualizedSites = new ArrayList<>();
+    private String className;
+    private String methodName;
+    private int callSites;
+
+    Devirtualizer(ClassHierarchy hierarchy) {
+        this.hierarchy = hierarchy;
+    }
+
+    void devirtualize(ASTNode root) {
+        for (ASTNode classNode : root.getChildren()) {
+            Map<String, String> fields = new HashMap<>();
+            for (ASTNode member : classNode.getChildren()) {
+                if (member.getNodeType().equals("declaration")) {
+                    fields.put(member.getNodeName(), member.getNodeTypeInfo());
+                }
+            }
+            fieldTypes.put(classNode.getNodeName(), fields);
+        }
+
+        for (ASTNode classNode : root.getChildren()) {
+            className = classNode.getNodeName();
+            for (ASTNode member : classNode.getChildren()) {
+                if (member.getNodeType().equals("method") || member.getNodeType().equals("constructor")) {
+                    methodName = member.getNodeType().equals("method") ? member.getNodeName() : "this";
+                    localTypes.clear();
+                    collectLocals(member);
+                    devirtualizeCalls(member);
+                }
+            }
+        }
+    }
+
+    int getCallSites() {
+        return callSites;
+    }
+
+    List<String> getDevirtualizedSites() {
+        return devirtualizedSites;
+    }
+
+    private void collectLocals(ASTNode node) {
+        if (node.getNodeType().equals("declaration") || node.getNodeType().equals("argument")) {
+            localTypes.put(node.getNodeName(), node.getNodeTypeInfo());
+        }
+        for (ASTNode child : node.getChildren()) {
+            collectLocals(child);
+        }
+    }
+
+    private void devirtualizeCalls(ASTNode node) {
+        List<ASTNode> children = node.getChildren();
+        for (int i = 0; i < children.size(); i++) {
+            ASTNode child = children.get(i);
+            if (child.getNodeType().equals("identifier") && !child.getChildren().isEmpty()) {
+                // Statement form x.method(args): the receiver is the identifier itself
+                ASTNode call = child.getChildren().get(0);
+                devirtualizeCalls(call);
+                ASTNode resolved = resolve(call, typeOf(child.getNodeName()), child.getNodeName(), call.getChildren().size());
+                if (resolved != null) {
+                    child.getChildren().set(0, resolved);
+                    resolved.setParent(child);
+                }
+                continue;
+            }
+
+            devirtualizeCalls(child);
+            if (child.getNodeType().equals("MethodCall")) {
+                ASTNode resolved = resolveCall(child);
+                if (resolved != null) {
+                    children.set(i, resolved);
+                    resolved.setParent(node);
+                }
+            }
+        }
+    }
+
+    private ASTNode resolveCall(ASTNode call) {
+        if (hierarchy.findMethod(className, call.getNodeName(), call.getChildren().size()) != null) {
+            // Unqualified call on this
+            return resolve(call, className, "this", call.getChildren().size());
+        }
+
+        if (call.getChildren().isEmpty()) {
+            return null;
+        }
+        ASTNode receiver = call.getChildren().get(0);
+        if (!receiver.getNodeType().equals("identifier") || !receiver.getChildren().isEmpty()) {
+            return null;
+        }
+        return resolve(call, typeOf(receiver.getNodeName()), receiver.getNodeName(), call.getChildren().size() - 1);
+    }
+
+    private ASTNode resolve(ASTNode call, String staticClass, String receiverName, int arity) {
+        if (staticClass == null || !hierarchy.contains(staticClass) || call.getNodeTypeInfo() != null) {
+            return null;
+        }
+        MethodSignature target = call.getParameterTypes() != null
+                ? hierarchy.findMethod(staticClass, call.getNodeName(), call.getParameterTypes())
+                : hierarchy.findMethod(staticClass, call.getNodeName(), arity);
+        if (target == null) {
+            return null;
+        }
+        String owner = target.getDeclaringClass();
+
+        callSites++;
+        if (hierarchy.isOverridden(staticClass, target)) {
+            return null;
+        }
+
+        devirtualizedSites.add(className + "." + methodName + ": " + receiverName + "." + call.getNodeName()
+                + " -> " + owner + "." + call.getNodeName());
+        ASTNode resolved = new ASTNode("MethodCall", call.getNodeName(), owner);
+        resolved.setExpressionType(call.getExpressionType());
+        resolved.setParameterTypes(target.getParameterTypes());
+        for (ASTNode argument : call.getChildren()) {
+            resolved.addChild(argument);
+        }
+        return resolved;
+    }
+
+    private String typeOf(String name) {
+        if (localTypes.containsKey(name)) {
+            return localTypes.get(name);
+        }
+        for (String current = className; current != null; current = hierarchy.getParentClass(current)) {
+            Map<String, String> fields = fieldTypes.get(current);
+            if (fields != null && fields.containsKey(name)) {
+                return fields.get(name);
+            }
+        }
+        return null;
+    }
+}
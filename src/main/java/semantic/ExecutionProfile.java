@@ -0,0 +1,54 @@
+package semantic;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts an instrumented build of the program wrote when it exited, one "key count" line per
+ * profile point; see {@link ProfilePoints} for the keys. Points the file does not mention, e.g.
+ * of code added to the program since, count as never executed.
+ */
+public class ExecutionProfile {
+    private final Map<String, Long> counts = new HashMap<>();
+    private long maxCount;
+
+    public static ExecutionProfile read(Path file) throws IOException {
+        ExecutionProfile profile = new ExecutionProfile();
+        List<String> lines = Files.readAllLines(file);
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (line.isBlank()) {
+                continue;
+            }
+            int separator = line.lastIndexOf(' ');
+            try {
+                profile.put(line.substring(0, separator), Long.parseLong(line.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Malformed profile line " + (i + 1) + " of " + file + ": " + line);
+            }
+        }
+        return profile;
+    }
+
+    public void put(String key, long count) {
+        counts.put(key, count);
+        maxCount = Math.max(maxCount, count);
+    }
+
+    public long count(String key) {
+        return counts.getOrDefault(key, 0L);
+    }
+
+    // Largest count of any point, which hotness is measured against
+    public long getMaxCount() {
+        return maxCount;
+    }
+
+    public int size() {
+        return counts.size();
+    }
+}
@@ -0,0 +1,338 @@
+package semantic;
+
+import ast.ASTNode;
+
+import java.util.*;
+
+/**
+ * Loop-invariant code motion and strength reduction for while loops. Side-effect-free intrinsic
+ * calls whose operands are literals or locals not written inside the loop are computed once into a
+ * fresh local placed right before the loop. Products i.Mult(k) of an induction variable that is
+ * stepped exactly once per iteration (i := i.Plus(c) or i := i.Minus(c)) are replaced by a local
+ * that starts at i.Mult(k) and is bumped by c * k next to the step. Inner loops are handled before
+ * the loops that enclose them, so an expression can climb several levels. Hoisted calls run before
+ * the loop even when it runs zero times, so only calls that cannot fail are hoisted: Length is left
+ * in place, as its array may still be null where the loop is skipped.
+ */
+class LoopOptimizer {
+    private static final Set<String> HOISTABLE = Set.of(
+            "Plus", "Minus", "Mult", "Less", "LessEqual", "Greater", "GreaterEqual", "Equal",
+            "UnaryMinus", "toBoolean", "toInteger", "And", "Or", "Xor", "Not");
+    private static final Set<String> BOOLEAN_RESULTS = Set.of(
+            "Less", "LessEqual", "Greater", "GreaterEqual", "Equal", "toBoolean", "And", "Or", "Xor", "Not");
+
+    private final Set<String> userMethods = new HashSet<>();
+    private final Map<String, String> localTypes = new HashMap<>();
+    // Declarations of temporaries hoisted out of loops nested in if or while blocks; the code
+    // generator only allocates locals declared at method level
+    private final List<ASTNode> entryDeclarations = new ArrayList<>();
+    private int temporaryCount;
+
+    void optimize(ASTNode root) {
+        for (ASTNode classNode : root.getChildren()) {
+            if (!classNode.getNodeType().equals("class")) {
+                continue;
+            }
+
+            userMethods.clear();
+            for (ASTNode member : classNode.getChildren()) {
+                if (member.getNodeType().equals("method")) {
+                    userMethods.add(member.getNodeName());
+                }
+            }
+
+            for (ASTNode member : classNode.getChildren()) {
+                if (member.getNodeType().equals("method") || member.getNodeType().equals("constructor")) {
+                    localTypes.clear();
+                    collectLocals(member);
+                    entryDeclarations.clear();
+                    optimizeBlock(member);
+                    declareAtEntry(member);
+                }
+            }
+        }
+    }
+
+    private void collectLocals(ASTNode node) {
+        if (node.getNodeType().equals("declaration") || node.getNodeType().equals("argument")) {
+            localTypes.put(node.getNodeName(), node.getNodeTypeInfo());
+        }
+        for (ASTNode child : node.getChildren()) {
+            collectLocals(child);
+        }
+    }
+
+    private void optimizeBlock(ASTNode block) {
+        List<ASTNode> statements = block.getChildren();
+        for (int i = 0; i < statements.size(); i++) {
+            ASTNode statement = statements.get(i);
+            if (statement.getNodeType().equals("IfStatement")) {
+                for (ASTNode branch : statement.getChildren()) {
+                    if (branch.getNodeType().equals("ThenBlock") || branch.getNodeType().equals("ElseBlock")) {
+                        optimizeBlock(branch);
+                    }
+                }
+            } else if (statement.getNodeType().equals("WhileStatement")) {
+                optimizeBlock(statement);
+                boolean nested = !block.getNodeType().equals("method") && !block.getNodeType().equals("constructor");
+                for (ASTNode hoisted : optimizeLoop(statement)) {
+                    if (nested && hoisted.getNodeType().equals("declaration")) {
+                        entryDeclarations.add(hoisted);
+                    } else {
+                        hoisted.setParent(block);
+                        statements.add(i++, hoisted);
+                    }
+                }
+            }
+        }
+    }
+
+    private void declareAtEntry(ASTNode method) {
+        List<ASTNode> members = method.getChildren();
+        int entry = 0;
+        while (entry < members.size() && (members.get(entry).getNodeType().equals("argument")
+                || members.get(entry).getNodeType().equals("ReturnType"))) {
+            entry++;
+        }
+        for (ASTNode declaration : entryDeclarations) {
+            declaration.setParent(method);
+        }
+        members.addAll(entry, entryDeclarations);
+    }
+
+    private List<ASTNode> optimizeLoop(ASTNode loop) {
+        Map<String, Integer> stores = new HashMap<>();
+        countStores(loop, stores);
+
+        List<ASTNode> preheader = new ArrayList<>();
+        reduceStrength(loop, stores, preheader);
+
+        // The updates added by strength reduction are stores inside the loop as well
+        stores.clear();
+        countStores(loop, stores);
+        hoistInvariants(loop, stores, preheader);
+        return preheader;
+    }
+
+    private void countStores(ASTNode node, Map<String, Integer> stores) {
+        if (node.getNodeType().equals("declaration")) {
+            stores.merge(node.getNodeName(), 1, Integer::sum);
+        } else if (node.getNodeType().equals("assignment") && node.getNodeName() == null) {
+            stores.merge(node.getChildren().get(0).getNodeName(), 1, Integer::sum);
+        }
+        for (ASTNode child : node.getChildren()) {
+            countStores(child, stores);
+        }
+    }
+
+    private void hoistInvariants(ASTNode node, Map<String, Integer> stores, List<ASTNode> preheader) {
+        List<ASTNode> children = node.getChildren();
+        for (int i = firstExpression(node); i < children.size(); i++) {
+            ASTNode child = children.get(i);
+            if (child.getNodeType().equals("identifier") && !child.getChildren().isEmpty()) {
+                // Statement form x.method(args): only the arguments are expressions on their own
+                hoistInvariants(child.getChildren().get(0), stores, preheader);
+            } else if (child.getNodeType().equals("MethodCall") && isInvariant(child, stores)) {
+                children.set(i, hoist(child, preheader));
+            } else {
+                hoistInvariants(child, stores, preheader);
+            }
+        }
+    }
+
+    private ASTNode hoist(ASTNode expression, List<ASTNode> preheader) {
+        String name = "$inv" + temporaryCount++;
+        define(name, resultType(expression), expression, preheader);
+        return new ASTNode("identifier", name);
+    }
+
+    private boolean isInvariant(ASTNode expression, Map<String, Integer> stores) {
+        switch (expression.getNodeType()) {
+            case "NumberLiteral", "BoolLiteral", "StringLiteral", "RealLiteral":
+                return true;
+            case "identifier":
+                return expression.getChildren().isEmpty()
+                        && localTypes.containsKey(expression.getNodeName())
+                        && !stores.containsKey(expression.getNodeName());
+            case "MethodCall":
+                if (!HOISTABLE.contains(expression.getNodeName()) || userMethods.contains(expression.getNodeName())) {
+                    return false;
+                }
+                for (ASTNode operand : expression.getChildren()) {
+                    if (!isInvariant(operand, stores)) {
+                        return false;
+                    }
+                }
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void reduceStrength(ASTNode loop, Map<String, Integer> stores, List<ASTNode> preheader) {
+        List<ASTNode> body = loop.getChildren();
+        for (int s = 0; s < body.size() - 1; s++) {
+            ASTNode step = body.get(s);
+            if (!isInductionStep(step, stores)) {
+                continue;
+            }
+
+            String variable = step.getChildren().get(0).getNodeName();
+            ASTNode increment = step.getChildren().get(1);
+            ASTNode delta = increment.getChildren().get(1);
+
+            Map<String, List<ASTNode[]>> products = new LinkedHashMap<>();
+            collectProducts(loop, variable, stores, products);
+
+            List<ASTNode> updates = new ArrayList<>();
+            for (List<ASTNode[]> sites : products.values()) {
+                ASTNode factor = sites.getFirst()[2];
+                String name = "$iv" + temporaryCount++;
+
+                define(name, "Integer", call("Mult", identifier(variable), copy(factor)), preheader);
+                for (ASTNode[] site : sites) {
+                    site[0].getChildren().set(site[0].getChildren().indexOf(site[1]), identifier(name));
+                }
+
+                ASTNode scaledDelta;
+                if (isNumber(delta) && isNumber(factor)) {
+                    scaledDelta = new ASTNode("NumberLiteral",
+                            Integer.toString(Integer.parseInt(delta.getNodeName()) * Integer.parseInt(factor.getNodeName())));
+                } else if (isNumber(delta) && Integer.parseInt(delta.getNodeName()) == 1) {
+                    scaledDelta = copy(factor);
+                } else {
+                    scaledDelta = hoist(call("Mult", copy(delta), copy(factor)), preheader);
+                }
+                updates.add(assignment(name, call(increment.getNodeName(), identifier(name), scaledDelta)));
+            }
+
+            for (ASTNode update : updates) {
+                update.setParent(loop);
+            }
+            body.addAll(s + 1, updates);
+            s += updates.size();
+        }
+    }
+
+    private boolean isInductionStep(ASTNode statement, Map<String, Integer> stores) {
+        if (!statement.getNodeType().equals("assignment") || statement.getNodeName() != null) {
+            return false;
+        }
+        String variable = statement.getChildren().get(0).getNodeName();
+        ASTNode value = statement.getChildren().get(1);
+        if (!"Integer".equals(localTypes.get(variable)) || stores.getOrDefault(variable, 0) != 1
+                || !value.getNodeType().equals("MethodCall") || value.getChildren().size() != 2
+                || !(value.getNodeName().equals("Plus") || value.getNodeName().equals("Minus"))
+                || userMethods.contains(value.getNodeName())) {
+            return false;
+        }
+        ASTNode receiver = value.getChildren().get(0);
+        return receiver.getNodeType().equals("identifier") && receiver.getChildren().isEmpty()
+                && receiver.getNodeName().equals(variable) && isSimpleInvariant(value.getChildren().get(1), stores);
+    }
+
+    // Collects every variable.Mult(factor) and factor.Mult(variable) with an invariant factor,
+    // grouped by factor, as {parent, product, factor} triples
+    private void collectProducts(ASTNode node, String variable, Map<String, Integer> stores, Map<String, List<ASTNode[]>> products) {
+        List<ASTNode> children = node.getChildren();
+        for (int i = firstExpression(node); i < children.size(); i++) {
+            ASTNode child = children.get(i);
+            if (child.getNodeType().equals("identifier") && !child.getChildren().isEmpty()) {
+                collectProducts(child.getChildren().get(0), variable, stores, products);
+                continue;
+            }
+
+            ASTNode factor = factorOf(child, variable, stores);
+            if (factor != null) {
+                String key = factor.getNodeType() + ":" + factor.getNodeName();
+                products.computeIfAbsent(key, k -> new ArrayList<>()).add(new ASTNode[]{node, child, factor});
+            } else {
+                collectProducts(child, variable, stores, products);
+            }
+        }
+    }
+
+    private ASTNode factorOf(ASTNode expression, String variable, Map<String, Integer> stores) {
+        if (!expression.getNodeType().equals("MethodCall") || !expression.getNodeName().equals("Mult")
+                || userMethods.contains("Mult") || expression.getChildren().size() != 2) {
+            return null;
+        }
+        ASTNode left = expression.getChildren().get(0);
+        ASTNode right = expression.getChildren().get(1);
+        if (isVariable(left, variable) && isSimpleInvariant(right, stores)) {
+            return right;
+        }
+        if (isVariable(right, variable) && isSimpleInvariant(left, stores)) {
+            return left;
+        }
+        return null;
+    }
+
+    private boolean isSimpleInvariant(ASTNode operand, Map<String, Integer> stores) {
+        return isNumber(operand) || (operand.getNodeType().equals("identifier") && isInvariant(operand, stores));
+    }
+
+    private boolean isVariable(ASTNode node, String variable) {
+        return node.getNodeType().equals("identifier") && node.getChildren().isEmpty() && node.getNodeName().equals(variable);
+    }
+
+    private int firstExpression(ASTNode node) {
+        // The left-hand side of an assignment is a store target, not an expression
+        return node.getNodeType().equals("assignment") && node.getNodeName() == null ? 1 : 0;
+    }
+
+    private String resultType(ASTNode expression) {
+        String methodName = expression.getNodeName();
+        if (BOOLEAN_RESULTS.contains(methodName)) {
+            return "Boolean";
+        }
+        if (methodName.equals("toInteger")) {
+            return "Integer";
+        }
+        ASTNode receiver = expression.getChildren().get(0);
+        switch (receiver.getNodeType()) {
+            case "identifier":
+                return localTypes.get(receiver.getNodeName());
+            case "MethodCall":
+                return resultType(receiver);
+            case "RealLiteral":
+                return "Real";
+            default:
+                return "Integer";
+        }
+    }
+
+    private void define(String name, String type, ASTNode value, List<ASTNode> preheader) {
+        localTypes.put(name, type);
+        preheader.add(new ASTNode("declaration", name, type));
+        preheader.add(assignment(name, value));
+    }
+
+    private ASTNode assignment(String name, ASTNode value) {
+        ASTNode assignment = new ASTNode("assignment");
+        assignment.addChild(identifier(name));
+        assignment.addChild(value);
+        return assignment;
+    }
+
+    private ASTNode call(String methodName, ASTNode receiver, ASTNode argument) {
+        ASTNode call = new ASTNode("MethodCall", methodName);
+        call.addChild(receiver);
+        call.addChild(argument);
+        return call;
+    }
+
+    private ASTNode identifier(String name) {
+        return new ASTNode("identifier", name);
+    }
+
+    private ASTNode copy(ASTNode leaf) {
+        ASTNode copy = new ASTNode(leaf.getNodeType(), leaf.getNodeName());
+        copy.setExpressionType(leaf.getExpressionType());
+        return copy;
+    }
+
+    private boolean isNumber(ASTNode node) {
+        return node.getNodeType().equals("NumberLiteral");
+    }
+}
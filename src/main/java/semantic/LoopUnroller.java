@@ -0,0 +1,214 @@
+package semantic;
+
+import ast.ASTNode;
+
+import java.util.*;
+
+/**
+ * Unrolls the hot counted loops of a profile-guided build by two. A loop qualifies when its
+ * condition is i.LessEqual(n) or i.Less(n) on an Integer local i that the body steps exactly once,
+ * by a top-level i := i.Plus(1), and n is a literal or a local the loop never writes. The loop
+ * becomes one that runs while at least two iterations remain, with two copies of the body, and
+ * the original loop after it for the last one:
+ *
+ *   while i.Less(n) loop B B end
+ *   while i.LessEqual(n) loop B end
+ *
+ * For i.Less(n) the first condition is i.Less(n - 1) with a literal n. Testing the next value
+ * of i against n directly, rather than computing i + 1, keeps the test exact at the ends of the
+ * int range. Bodies with declarations are left alone, as the code generator only allocates locals
+ * declared at method level, and so are bodies larger than MAX_BODY_SIZE nodes.
+ */
+class LoopUnroller {
+    private static final int MAX_BODY_SIZE = 64;
+
+    private final ProfileGuide guide;
+    private final Set<String> userMethods = new HashSet<>();
+    private final Map<String, String> localTypes = new HashMap<>();
+    private int unrolledLoops;
+
+    LoopUnroller(ProfileGuide guide) {
+        this.guide = guide;
+    }
+
+    void unroll(ASTNode root) {
+        for (ASTNode classNode : root.getChildren()) {
+            userMethods.clear();
+            for (ASTNode member : classNode.getChildren()) {
+                if (member.getNodeType().equals("method")) {
+                    userMethods.add(member.getNodeName());
+                }
+            }
+            for (ASTNode member : classNode.getChildren()) {
+                if (member.getNodeType().equals("method")) {
+                    localTypes.clear();
+                    collectLocals(member);
+                    unrollBlock(member);
+                }
+            }
+        }
+    }
+
+    int getUnrolledLoops() {
+        return unrolledLoops;
+    }
+
+    private void collectLocals(ASTNode node) {
+        if (node.getNodeType().equals("declaration") || node.getNodeType().equals("argument")) {
+            localTypes.put(node.getNodeName(), node.getNodeTypeInfo());
+        }
+        for (ASTNode child : node.getChildren()) {
+            collectLocals(child);
+        }
+    }
+
+    private void unrollBlock(ASTNode block) {
+        List<ASTNode> statements = block.getChildren();
+        for (int i = 0; i < statements.size(); i++) {
+            ASTNode statement = statements.get(i);
+            if (statement.getNodeType().equals("IfStatement")) {
+                for (ASTNode branch : statement.getChildren()) {
+                    if (branch.getNodeType().equals("ThenBlock") || branch.getNodeType().equals("ElseBlock")) {
+                        unrollBlock(branch);
+                    }
+                }
+            } else if (statement.getNodeType().equals("WhileStatement")) {
+                unrollBlock(statement);
+                ASTNode unrolled = tryUnroll(statement);
+                if (unrolled != null) {
+                    unrolled.setParent(block);
+                    statements.add(i++, unrolled);
+                    unrolledLoops++;
+                }
+            }
+        }
+    }
+
+    // The loop that runs two iterations at a time, to be placed before the given one, or null
+    private ASTNode tryUnroll(ASTNode loop) {
+        if (!guide.isHot(loop)) {
+            return null;
+        }
+        List<ASTNode> children = loop.getChildren();
+        ASTNode condition = children.getLast();
+        List<ASTNode> body = children.subList(0, children.size() - 1);
+
+        ASTNode pairCondition = pairCondition(condition);
+        if (pairCondition == null) {
+            return null;
+        }
+        String variable = condition.getChildren().get(0).getNodeName();
+        ASTNode bound = condition.getChildren().get(1);
+
+        Map<String, Integer> stores = new HashMap<>();
+        int size = 0;
+        for (ASTNode statement : body) {
+            if (containsDeclaration(statement)) {
+                return null;
+            }
+            countStores(statement, stores);
+            size += size(statement);
+        }
+        if (size > MAX_BODY_SIZE || stores.getOrDefault(variable, 0) != 1
+                || (bound.getNodeType().equals("identifier") && stores.containsKey(bound.getNodeName()))) {
+            return null;
+        }
+        boolean stepped = false;
+        for (ASTNode statement : body) {
+            stepped |= isUnitStep(statement, variable);
+        }
+        if (!stepped) {
+            return null;
+        }
+
+        ASTNode unrolled = new ASTNode("WhileStatement", "while", null);
+        for (int copy = 0; copy < 2; copy++) {
+            for (ASTNode statement : body) {
+                unrolled.addChild(statement.copy());
+            }
+        }
+        unrolled.addChild(pairCondition);
+        return unrolled;
+    }
+
+    // i.LessEqual(n) becomes i.Less(n) and i.Less(N) becomes i.Less(N - 1); null for other conditions
+    private ASTNode pairCondition(ASTNode condition) {
+        if (!condition.getNodeType().equals("MethodCall") || condition.getChildren().size() != 2
+                || userMethods.contains(condition.getNodeName())) {
+            return null;
+        }
+        ASTNode variable = condition.getChildren().get(0);
+        ASTNode bound = condition.getChildren().get(1);
+        if (!isLocal(variable) || !"Integer".equals(localTypes.get(variable.getNodeName()))
+                || !(isNumber(bound) || isLocal(bound))) {
+            return null;
+        }
+
+        ASTNode pairBound;
+        if (condition.getNodeName().equals("LessEqual")) {
+            pairBound = bound.copy();
+        } else if (condition.getNodeName().equals("Less") && isNumber(bound)
+                && Integer.parseInt(bound.getNodeName()) > Integer.MIN_VALUE) {
+            pairBound = new ASTNode("NumberLiteral", Integer.toString(Integer.parseInt(bound.getNodeName()) - 1));
+            pairBound.setExpressionType(bound.getExpressionType());
+        } else {
+            return null;
+        }
+        ASTNode pair = new ASTNode("MethodCall", "Less");
+        pair.setExpressionType(condition.getExpressionType());
+        pair.addChild(variable.copy());
+        pair.addChild(pairBound);
+        return pair;
+    }
+
+    // variable := variable.Plus(1)
+    private boolean isUnitStep(ASTNode statement, String variable) {
+        if (!statement.getNodeType().equals("assignment") || statement.getNodeName() != null
+                || !statement.getChildren().get(0).getNodeName().equals(variable)) {
+            return false;
+        }
+        ASTNode value = statement.getChildren().get(1);
+        return value.getNodeType().equals("MethodCall") && value.getNodeName().equals("Plus")
+                && !userMethods.contains("Plus") && value.getChildren().size() == 2
+                && isLocal(value.getChildren().get(0)) && value.getChildren().get(0).getNodeName().equals(variable)
+                && isNumber(value.getChildren().get(1)) && value.getChildren().get(1).getNodeName().equals("1");
+    }
+
+    private void countStores(ASTNode node, Map<String, Integer> stores) {
+        if (node.getNodeType().equals("assignment") && node.getNodeName() == null) {
+            stores.merge(node.getChildren().get(0).getNodeName(), 1, Integer::sum);
+        }
+        for (ASTNode child : node.getChildren()) {
+            countStores(child, stores);
+        }
+    }
+
+    private boolean containsDeclaration(ASTNode node) {
+        if (node.getNodeType().equals("declaration")) {
+            return true;
+        }
+        for (ASTNode child : node.getChildren()) {
+            if (containsDeclaration(child)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int size(ASTNode node) {
+        int size = 1;
+        for (ASTNode child : node.getChildren()) {
+            size += size(child);
+        }
+        return size;
+    }
+
+    private boolean isLocal(ASTNode node) {
+        return node.getNodeType().equals("identifier") && node.getChildren().isEmpty()
+                && localTypes.containsKey(node.getNodeName());
+    }
+
+    private boolean isNumber(ASTNode node) {
+        return node.getNodeType().equals("NumberLiteral");
+    }
+}
@@ -0,0 +1,315 @@
+package semantic;
+
+import ast.ASTNode;
+
+import java.util.*;
+
+/**
+ * Replaces calls to small user methods with a copy of the callee's body. A callee qualifies when
+ * its body is a single return of an expression of at most MAX_CALLEE_SIZE nodes and the target is
+ * known: either an unqualified call on this that no subclass overrides (checked against the
+ * {@link ClassHierarchy}), or a call on a local that was initialized with a constructor call
+ * and never reassigned, so both its exact class and that it is not null are known. Arguments must
+ * be literals or plain identifiers so that substituting them cannot duplicate or drop side effects.
+ * With a {@link ProfileGuide} the limits follow the profile: hot callees may be larger and hot
+ * callers may grow further, while methods that never ran get nothing inlined.
+ */
+class MethodInliner {
+    private static final int MAX_CALLEE_SIZE = 12;
+    // Upper bound on the number of nodes inlining may add to a single caller
+    private static final int METHOD_GROWTH_BUDGET = 96;
+    // The same limits for hot callees and callers in a profile-guided build
+    private static final int HOT_CALLEE_SIZE = 48;
+    private static final int HOT_METHOD_GROWTH_BUDGET = 384;
+
+    private final ClassHierarchy hierarchy;
+    // Null unless the build is guided by a profile
+    private final ProfileGuide guide;
+    private final Map<String, Map<String, ASTNode>> methodNodes = new HashMap<>();
+    private final Map<String, Set<String>> fieldNames = new HashMap<>();
+    private final Set<String> userMethods = new HashSet<>();
+
+    private final Map<String, String> localTypes = new HashMap<>();
+    // Locals whose runtime class is exactly known: declared with a constructor call, never reassigned
+    private final Map<String, String> exactTypes = new HashMap<>();
+    private String className;
+    private int budget;
+
+    MethodInliner(ClassHierarchy hierarchy) {
+        this(hierarchy, null);
+    }
+
+    MethodInliner(ClassHierarchy hierarchy, ProfileGuide guide) {
+        this.hierarchy = hierarchy;
+        this.guide = guide;
+    }
+
+    void inline(ASTNode root) {
+        for (ASTNode classNode : root.getChildren()) {
+            Map<String, ASTNode> methods = new HashMap<>();
+            Set<String> fields = new HashSet<>();
+            for (ASTNode member : classNode.getChildren()) {
+                if (member.getNodeType().equals("method")) {
+                    methods.put(methodKey(member.getNodeName(), ClassHierarchy.parameterTypes(member)), member);
+                    userMethods.add(member.getNodeName());
+                } else if (member.getNodeType().equals("declaration")) {
+                    fields.add(member.getNodeName());
+                }
+            }
+            methodNodes.put(classNode.getNodeName(), methods);
+            fieldNames.put(classNode.getNodeName(), fields);
+        }
+
+        for (ASTNode classNode : root.getChildren()) {
+            className = classNode.getNodeName();
+            for (ASTNode member : classNode.getChildren()) {
+                if (member.getNodeType().equals("method") || member.getNodeType().equals("constructor")) {
+                    collectLocals(member);
+                    budget = growthBudget(member);
+                    inlineCalls(member);
+                }
+            }
+        }
+    }
+
+    private int growthBudget(ASTNode method) {
+        if (guide == null) {
+            return METHOD_GROWTH_BUDGET;
+        }
+        return guide.isCold(method) ? 0 : guide.isHot(method) ? HOT_METHOD_GROWTH_BUDGET : METHOD_GROWTH_BUDGET;
+    }
+
+    private void collectLocals(ASTNode methodNode) {
+        localTypes.clear();
+        exactTypes.clear();
+        Map<String, Integer> stores = new HashMap<>();
+        collectLocals(methodNode, stores);
+        exactTypes.keySet().removeIf(name -> stores.getOrDefault(name, 0) != 1);
+    }
+
+    private void collectLocals(ASTNode node, Map<String, Integer> stores) {
+        switch (node.getNodeType()) {
+            case "argument":
+                localTypes.put(node.getNodeName(), node.getNodeTypeInfo());
+                stores.merge(node.getNodeName(), 1, Integer::sum);
+                break;
+            case "declaration":
+                localTypes.put(node.getNodeName(), node.getNodeTypeInfo());
+                stores.merge(node.getNodeName(), 1, Integer::sum);
+                if (!node.getChildren().isEmpty() && node.getChildren().get(0).getNodeType().equals("ConstructorCall")
+                        && hierarchy.contains(node.getChildren().get(0).getNodeName())) {
+                    exactTypes.put(node.getNodeName(), node.getChildren().get(0).getNodeName());
+                }
+                break;
+            case "assignment":
+                if (node.getNodeName() == null) {
+                    stores.merge(node.getChildren().get(0).getNodeName(), 1, Integer::sum);
+                }
+                break;
+        }
+        for (ASTNode child : node.getChildren()) {
+            collectLocals(child, stores);
+        }
+    }
+
+    private void inlineCalls(ASTNode node) {
+        List<ASTNode> children = node.getChildren();
+        for (int i = 0; i < children.size(); i++) {
+            ASTNode child = children.get(i);
+            if (child.getNodeType().equals("identifier") && !child.getChildren().isEmpty()) {
+                // Statement form x.method(args): the call below the receiver holds only the arguments
+                inlineCalls(child.getChildren().get(0));
+                continue;
+            }
+
+            inlineCalls(child);
+            if (child.getNodeType().equals("MethodCall")) {
+                ASTNode inlined = tryInline(child);
+                if (inlined != null) {
+                    children.set(i, inlined);
+                    inlined.setParent(node);
+                }
+            }
+        }
+    }
+
+    private ASTNode tryInline(ASTNode call) {
+        String methodName = call.getNodeName();
+        if (!userMethods.contains(methodName)) {
+            return null;
+        }
+
+        // The overload the analyzer resolved the call to; unresolved calls are left alone
+        if (call.getParameterTypes() == null) {
+            return null;
+        }
+        String key = methodKey(methodName, call.getParameterTypes());
+
+        List<ASTNode> operands = call.getChildren();
+        List<ASTNode> actuals;
+        ASTNode callee = findMethod(className, key);
+        if (callee != null && arity(callee) == operands.size()) {
+            // Unqualified call on this: the runtime class may be any subclass
+            if (hierarchy.isOverridden(className, methodName, ClassHierarchy.parameterTypes(callee))) {
+                return null;
+            }
+            actuals = operands;
+        } else if (!operands.isEmpty() && isLeafIdentifier(operands.get(0))
+                && exactTypes.containsKey(operands.get(0).getNodeName())) {
+            callee = findMethod(exactTypes.get(operands.get(0).getNodeName()), key);
+            if (callee == null || arity(callee) != operands.size() - 1) {
+                return null;
+            }
+            actuals = operands.subList(1, operands.size());
+        } else {
+            return null;
+        }
+
+        ASTNode body = returnedExpression(callee);
+        if (body == null) {
+            return null;
+        }
+        int size = size(body);
+        int maxSize = guide != null && guide.isHot(callee) ? HOT_CALLEE_SIZE : MAX_CALLEE_SIZE;
+        if (size > maxSize || size > budget) {
+            return null;
+        }
+
+        Map<String, ASTNode> bindings = new HashMap<>();
+        int index = 0;
+        for (ASTNode child : callee.getChildren()) {
+            if (child.getNodeType().equals("argument")) {
+                ASTNode actual = actuals.get(index++);
+                if (!isLiteral(actual) && !isLeafIdentifier(actual)) {
+                    return null;
+                }
+                bindings.put(child.getNodeName(), actual);
+            }
+        }
+
+        // Fields of the callee only resolve to the same object when it runs on this, in its own class
+        boolean fieldsVisible = actuals == operands && methodNodes.get(className).get(key) == callee;
+        if (!canInline(body, methodName, bindings, fieldsVisible)) {
+            return null;
+        }
+
+        budget -= size;
+        return substitute(body, bindings);
+    }
+
+    private boolean canInline(ASTNode node, String methodName, Map<String, ASTNode> bindings, boolean fieldsVisible) {
+        switch (node.getNodeType()) {
+            case "NumberLiteral", "BoolLiteral", "StringLiteral", "RealLiteral":
+                return true;
+            case "identifier":
+                if (!node.getChildren().isEmpty()) {
+                    return false;
+                }
+                // A caller local with the same name would capture the field reference
+                return bindings.containsKey(node.getNodeName())
+                        || (fieldsVisible && fieldNames.get(className).contains(node.getNodeName())
+                        && !localTypes.containsKey(node.getNodeName()));
+            case "FieldAccess":
+                return fieldsVisible && "this".equals(node.getNodeName())
+                        && !localTypes.containsKey(node.getChildren().get(0).getNodeName());
+            case "MethodCall":
+                if (node.getNodeName().equals(methodName) || (userMethods.contains(node.getNodeName()) && !fieldsVisible)) {
+                    return false;
+                }
+                break;
+            case "ConstructorCall":
+                break;
+            default:
+                return false;
+        }
+        for (ASTNode child : node.getChildren()) {
+            if (!canInline(child, methodName, bindings, fieldsVisible)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ASTNode substitute(ASTNode node, Map<String, ASTNode> bindings) {
+        if (isLeafIdentifier(node) && bindings.containsKey(node.getNodeName())) {
+            ASTNode actual = bindings.get(node.getNodeName());
+            ASTNode argument = new ASTNode(actual.getNodeType(), actual.getNodeName(), actual.getNodeTypeInfo());
+            argument.setExpressionType(actual.getExpressionType());
+            argument.setParameterTypes(actual.getParameterTypes());
+            return argument;
+        }
+        // The overload the analyzer resolved a call to goes along with the copy
+        ASTNode copy = new ASTNode(node.getNodeType(), node.getNodeName(), node.getNodeTypeInfo());
+        copy.setExpressionType(node.getExpressionType());
+        copy.setParameterTypes(node.getParameterTypes());
+        for (ASTNode child : node.getChildren()) {
+            copy.addChild(substitute(child, bindings));
+        }
+        return copy;
+    }
+
+    private ASTNode findMethod(String startClass, String key) {
+        for (String current = startClass; current != null; current = hierarchy.getParentClass(current)) {
+            ASTNode method = methodNodes.getOrDefault(current, Map.of()).get(key);
+            if (method != null) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    // Overloads differ in their parameter types, e.g. f(Integer) and f(Boolean)
+    private static String methodKey(String methodName, List<String> parameterTypes) {
+        return methodName + "(" + String.join(",", parameterTypes) + ")";
+    }
+
+    private ASTNode returnedExpression(ASTNode method) {
+        ASTNode returned = null;
+        for (ASTNode child : method.getChildren()) {
+            switch (child.getNodeType()) {
+                case "argument", "ReturnType":
+                    break;
+                case "ReturnStatement":
+                    if (returned != null || child.getChildren().isEmpty()) {
+                        return null;
+                    }
+                    returned = child.getChildren().get(0);
+                    break;
+                default:
+                    return null;
+            }
+        }
+        return returned == null || returned.getNodeType().equals("Void") ? null : returned;
+    }
+
+    private int arity(ASTNode method) {
+        int arity = 0;
+        for (ASTNode child : method.getChildren()) {
+            if (child.getNodeType().equals("argument")) {
+                arity++;
+            }
+        }
+        return arity;
+    }
+
+    private int size(ASTNode node) {
+        int size = 1;
+        for (ASTNode child : node.getChildren()) {
+            size += size(child);
+        }
+        return size;
+    }
+
+    private boolean isLeafIdentifier(ASTNode node) {
+        return node.getNodeType().equals("identifier") && node.getChildren().isEmpty();
+    }
+
+    private boolean isLiteral(ASTNode node) {
+        switch (node.getNodeType()) {
+            case "NumberLiteral", "BoolLiteral", "StringLiteral", "RealLiteral":
+                return true;
+            default:
+                return false;
+        }
+    }
+}
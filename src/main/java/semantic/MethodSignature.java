@@ -0,0 +1,42 @@
+package semantic;
+
+import java.util.List;
+
+public class MethodSignature {
+    private final String name;
+    private final List<String> parameterTypes;
+    private final String returnType;
+    private final String declaringClass;
+
+    public MethodSignature(String name, List<String> parameterTypes, String returnType, String declaringClass) {
+        this.name = name;
+        this.parameterTypes = parameterTypes;
+        this.returnType = returnType;
+        this.declaringClass = declaringClass;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getParameterTypes() {
+        return parameterTypes;
+    }
+
+    public String getReturnType() {
+        return returnType;
+    }
+
+    public String getDeclaringClass() {
+        return declaringClass;
+    }
+
+    public int getArity() {
+        return parameterTypes.size();
+    }
+
+    @Override
+    public String toString() {
+        return declaringClass + "." + name + "(" + String.join(", ", parameterTypes) + ") " + returnType;
+    }
+}
@@ -0,0 +1,88 @@
+package semantic;
+
+import ast.ASTNode;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What an {@link ExecutionProfile} says about the nodes of the program being compiled, for the
+ * passes that spend code size where it pays off: the inliner grows hot methods and leaves the
+ * ones that never ran alone, the loop unroller only touches hot loops. The counts are attached to
+ * the method and while nodes before any other pass runs, while the tree still has the shape the
+ * instrumented build numbered. An if statement whose else branch ran more often than its then
+ * branch gets "ElseBlock" as type info, which has the code generator lay that branch out first.
+ */
+class ProfileGuide {
+    // A method or loop is hot when it ran at least this fraction of the count of the hottest point
+    private static final int HOT_RATIO = 100;
+
+    private final ExecutionProfile profile;
+    private final long hotThreshold;
+    private final Map<ASTNode, Long> counts = new IdentityHashMap<>();
+    private int reorderedBranches;
+
+    ProfileGuide(ExecutionProfile profile) {
+        this.profile = profile;
+        this.hotThreshold = Math.max(1, profile.getMaxCount() / HOT_RATIO);
+    }
+
+    void apply(ASTNode root) {
+        Map<ASTNode, long[]> branchCounts = new IdentityHashMap<>();
+        List<ASTNode> ifStatements = new ArrayList<>();
+        ProfilePoints.visit(root, (key, block, statement) -> {
+            long count = profile.count(key);
+            switch (block.getNodeType()) {
+                case "ThenBlock", "ElseBlock" -> {
+                    long[] branches = branchCounts.computeIfAbsent(statement, s -> {
+                        ifStatements.add(s);
+                        return new long[2];
+                    });
+                    branches[block.getNodeType().equals("ThenBlock") ? 0 : 1] = count;
+                }
+                default -> counts.put(statement, count);
+            }
+        });
+
+        for (ASTNode ifStatement : ifStatements) {
+            long[] branches = branchCounts.get(ifStatement);
+            if (branches[1] > branches[0] && ifStatement.getParent() != null) {
+                layOutElseFirst(ifStatement);
+            }
+        }
+    }
+
+    boolean isHot(ASTNode node) {
+        Long count = counts.get(node);
+        return count != null && count >= hotThreshold;
+    }
+
+    // Known to the profile and never executed; nodes the profile does not cover are neither
+    boolean isCold(ASTNode node) {
+        Long count = counts.get(node);
+        return count != null && count == 0;
+    }
+
+    int getReorderedBranches() {
+        return reorderedBranches;
+    }
+
+    private void layOutElseFirst(ASTNode ifStatement) {
+        ASTNode parent = ifStatement.getParent();
+        ASTNode reordered = new ASTNode("IfStatement", null, "ElseBlock");
+        for (ASTNode child : ifStatement.getChildren()) {
+            reordered.addChild(child);
+        }
+        List<ASTNode> siblings = parent.getChildren();
+        for (int i = 0; i < siblings.size(); i++) {
+            if (siblings.get(i) == ifStatement) {
+                siblings.set(i, reordered);
+                reordered.setParent(parent);
+                reorderedBranches++;
+                return;
+            }
+        }
+    }
+}
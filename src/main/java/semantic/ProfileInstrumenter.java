@@ -0,0 +1,43 @@
+package semantic;
+
+import ast.ASTNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Instrumented builds: puts a ProfileCounter statement at the start of every block
+ * {@link ProfilePoints} names. The node name is the index of the counter in the array the
+ * generated code shares, the type info is its key; the keys are appended to the given list, so
+ * that indexes stay unique when one list serves all sources of a build.
+ */
+class ProfileInstrumenter {
+    private final List<String> keys;
+
+    ProfileInstrumenter(List<String> keys) {
+        this.keys = keys;
+    }
+
+    void instrument(ASTNode root) {
+        List<ASTNode> blocks = new ArrayList<>();
+        List<ASTNode> counters = new ArrayList<>();
+        ProfilePoints.visit(root, (key, block, statement) -> {
+            blocks.add(block);
+            counters.add(new ASTNode("ProfileCounter", Integer.toString(keys.size()), key));
+            keys.add(key);
+        });
+
+        // Inserted once the walk is done, since it iterates over the same statement lists
+        for (int i = 0; i < blocks.size(); i++) {
+            ASTNode block = blocks.get(i);
+            List<ASTNode> statements = block.getChildren();
+            int start = 0;
+            while (start < statements.size() && (statements.get(start).getNodeType().equals("argument")
+                    || statements.get(start).getNodeType().equals("ReturnType"))) {
+                start++;
+            }
+            statements.add(start, counters.get(i));
+            counters.get(i).setParent(block);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package semantic;
+
+import ast.ASTNode;
+
+/**
+ * Numbering of the places an instrumented build counts, shared by the instrumentation and by the
+ * build that reads the profile back, so that both see the same key for the same source construct:
+ * "C.m" for the entry of method m of class C, "C.m:if0:then" and "C.m:if0:else" for the branches
+ * of the first if statement of the method and "C.m:while0" for the body of its first while loop.
+ * Statements are numbered in source order, outer before inner. Both walk the tree as the parser
+ * built it, before any optimization, so the keys do not depend on what the optimizer does.
+ */
+final class ProfilePoints {
+    interface Visitor {
+        // The block is the node whose statements the point counts: the method itself, a ThenBlock or
+        // ElseBlock, or a WhileStatement; the statement is the method, IfStatement or WhileStatement
+        void point(String key, ASTNode block, ASTNode statement);
+    }
+
+    private final Visitor visitor;
+    private String methodKey;
+    private int ifCount;
+    private int whileCount;
+
+    private ProfilePoints(Visitor visitor) {
+        this.visitor = visitor;
+    }
+
+    static void visit(ASTNode root, Visitor visitor) {
+        ProfilePoints points = new ProfilePoints(visitor);
+        for (ASTNode classNode : root.getChildren()) {
+            for (ASTNode member : classNode.getChildren()) {
+                if (member.getNodeType().equals("method")) {
+                    points.visitMethod(classNode.getNodeName() + "." + member.getNodeName(), member);
+                }
+            }
+        }
+    }
+
+    private void visitMethod(String key, ASTNode method) {
+        methodKey = key;
+        ifCount = 0;
+        whileCount = 0;
+        visitor.point(key, method, method);
+        visitStatements(method);
+    }
+
+    private void visitStatements(ASTNode block) {
+        for (ASTNode statement : block.getChildren()) {
+            switch (statement.getNodeType()) {
+                case "IfStatement":
+                    String ifKey = methodKey + ":if" + ifCount++;
+                    for (ASTNode branch : statement.getChildren()) {
+                        if (branch.getNodeType().equals("ThenBlock")) {
+                            visitor.point(ifKey + ":then", branch, statement);
+                            visitStatements(branch);
+                        } else if (branch.getNodeType().equals("ElseBlock")) {
+                            visitor.point(ifKey + ":else", branch, statement);
+                            visitStatements(branch);
+                        }
+                    }
+                    break;
+                case "WhileStatement":
+                    visitor.point(methodKey + ":while" + whileCount++, statement, statement);
+                    visitStatements(statement);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+}
@@ -1,15 +1,26 @@
 package semantic;
 
 import ast.ASTNode;
+import diagnostics.ClassAnalyzedEvent;
+import diagnostics.Trace;
 import java.util.*;
 
 public class SemanticAnalyzer {
 
+    private static final Set<String> BUILT_IN_TYPES = Set.of("Integer", "Real", "Boolean", "String", "Array");
+
     private final Map<String, String> symbolTable = new HashMap<>();
     private final Map<String, ClassDefinition> classTable = new HashMap<>();
     private final Map<String, String> globalSymbolTable = new HashMap<>();
+    private String currentClassName;
 
     public void analyze(ASTNode root) {
+        analyze(root, null);
+    }
+
+    // Collects the definitions of every class of the program but checks the members of the given
+    // classes only, all of them when null. Incremental builds pass the classes that need rebuilding.
+    public void analyze(ASTNode root, Set<String> classNames) {
         if (!root.getNodeType().equals("Program")) {
             throw new RuntimeException("Root node must be of type Program");
         }
@@ -25,7 +36,7 @@ public class SemanticAnalyzer {
 
         // Analyze class members
         for (ASTNode child : root.getChildren()) {
-            if (child.getNodeType().equals("class")) {
+            if (child.getNodeType().equals("class") && (classNames == null || classNames.contains(child.getNodeName()))) {
                 child.setParent(root);
                 analyzeClass(child);
             }
@@ -33,56 +44,50 @@ public class SemanticAnalyzer {
     }
 
     public void optimize(ASTNode root) {
-        removeUnusedVariables(root);
-        removeUnreachableCode(root);
+        optimize(root, null);
     }
 
-    private void removeUnusedVariables(ASTNode root) {
-        Map<String, ASTNode> declaredVariables = new HashMap<>();
-        Set<String> usedVariables = new HashSet<>();
-
-        // Collect all declared variables and their nodes
-        collectDeclaredVariables(root, declaredVariables);
-
-        // Collect all used variables
-        collectUsedVariables(root, usedVariables, declaredVariables);
-
-        // Remove declarations that are not in the used set
-        for (Map.Entry<String, ASTNode> entry : declaredVariables.entrySet()) {
-            if (!usedVariables.contains(entry.getKey())) {
-                ASTNode parent = entry.getValue().getParent();
-                parent.removeChild(entry.getValue());
-            }
+    // With a profile of an instrumented build of the same program, the passes that trade code size
+    // for speed spend it on what ran most: see ProfileGuide
+    public void optimize(ASTNode root, ExecutionProfile profile) {
+        ClassHierarchy hierarchy = new ClassHierarchy(classTable);
+        ProfileGuide guide = null;
+        if (profile != null) {
+            guide = new ProfileGuide(profile);
+            guide.apply(root);
+            int reordered = guide.getReorderedBranches();
+            Trace.info("semantic", () -> "Laid out " + reordered + " if statements else branch first");
         }
-    }
-
-    private void collectDeclaredVariables(ASTNode node, Map<String, ASTNode> declaredVariables) {
-        if (node == null) return;
-
-        if (node.getNodeType().equals("declaration") || node.getNodeType().equals("argument")) {
-            String variableName = node.getNodeName();
-            declaredVariables.put(variableName, node);
+        new MethodInliner(hierarchy, guide).inline(root);
+        new ConstantFolder().fold(root);
+        new LoopOptimizer().optimize(root);
+        if (guide != null) {
+            LoopUnroller unroller = new LoopUnroller(guide);
+            unroller.unroll(root);
+            Trace.info("semantic", () -> "Unrolled " + unroller.getUnrolledLoops() + " hot loops");
         }
-
-        for (ASTNode child : node.getChildren()) {
-            collectDeclaredVariables(child, declaredVariables);
+        removeUnusedVariables(root);
+        removeUnreachableCode(root);
+        new TailCallEliminator(hierarchy).eliminate(root);
+
+        Devirtualizer devirtualizer = new Devirtualizer(hierarchy);
+        devirtualizer.devirtualize(root);
+        Trace.info("semantic", () -> "Devirtualized " + devirtualizer.getDevirtualizedSites().size() + " of "
+                + devirtualizer.getCallSites() + " user method call sites");
+        for (String site : devirtualizer.getDevirtualizedSites()) {
+            Trace.info("semantic", () -> "  " + site);
         }
     }
 
-    private void collectUsedVariables(ASTNode node, Set<String> usedVariables, Map<String, ASTNode> declaredVariables) {
-        if (node == null) return;
-
-        if (node.getNodeType().equals("identifier")) {
-            String variableName = node.getNodeName();
-            if (declaredVariables.containsKey(variableName)) {
-                usedVariables.add(variableName); // Mark as used if it exists in declaredVariables
-            }
-        }
+    // Adds a counter at the entry of every method and at the start of every branch and loop body,
+    // before optimize so that the counted points are the ones a profile-guided build looks up.
+    // The counter indexes continue from the keys already in the list.
+    public void instrument(ASTNode root, List<String> profileKeys) {
+        new ProfileInstrumenter(profileKeys).instrument(root);
+    }
 
-        // Recursively check all children
-        for (ASTNode child : node.getChildren()) {
-            collectUsedVariables(child, usedVariables, declaredVariables);
-        }
+    private void removeUnusedVariables(ASTNode root) {
+        new DeadVariableEliminator().eliminate(root);
     }
 
     private void removeUnreachableCode(ASTNode root) {
@@ -140,8 +145,30 @@ public class SemanticAnalyzer {
         }
 
         // Register the class in the class table
-        classTable.put(className, new ClassDefinition(className, parentClass, constructorArgTypes));
+        ClassDefinition classDef = new ClassDefinition(className, parentClass, constructorArgTypes);
+        if (parentClass != null) {
+            classDef.setParentDefinition(classTable.get(parentClass));
+        }
+        classTable.put(className, classDef);
         globalSymbolTable.put(className, "class");
+
+        // Members are known up front so calls to them, recursive ones included, resolve in any order
+        for (ASTNode child : classNode.getChildren()) {
+            if (child.getNodeType().equals("method")) {
+                String returnType = "Void";
+                List<String> parameterTypes = new ArrayList<>();
+                for (ASTNode methodChild : child.getChildren()) {
+                    if (methodChild.getNodeType().equals("ReturnType")) {
+                        returnType = methodChild.getNodeName();
+                    } else if (methodChild.getNodeType().equals("argument")) {
+                        parameterTypes.add(methodChild.getNodeTypeInfo());
+                    }
+                }
+                classDef.addMethod(new MethodSignature(child.getNodeName(), parameterTypes, returnType, className));
+            } else if (child.getNodeType().equals("declaration")) {
+                classDef.addField(child.getNodeName(), child.getNodeTypeInfo());
+            }
+        }
     }
 
     private List<String> extractConstructorArgTypes(ASTNode constructorNode) {
@@ -155,8 +182,11 @@ public class SemanticAnalyzer {
     }
 
     private void analyzeClass(ASTNode classNode) {
+        ClassAnalyzedEvent event = new ClassAnalyzedEvent();
+        event.begin();
         String className = classNode.getNodeName();
         ClassDefinition classDef = classTable.get(className);
+        currentClassName = className;
 
         if (classDef == null) {
             throw new RuntimeException("Class " + className + " not found in class table.");
@@ -170,7 +200,7 @@ public class SemanticAnalyzer {
                     break;
                 case "constructor":
                     child.setParent(classNode);
-                    analyzeConstructor();
+                    analyzeConstructor(child, classDef);
                     break;
                 case "method":
                     child.setParent(classNode);
@@ -183,21 +213,54 @@ public class SemanticAnalyzer {
                     throw new RuntimeException("Unexpected class member: " + child.getNodeType());
             }
         }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.className = className;
+            event.methods = (int) classNode.getChildren().stream()
+                    .filter(child -> child.getNodeType().equals("method") || child.getNodeType().equals("constructor"))
+                    .count();
+            event.nodes = classNode.countNodes();
+            event.commit();
+        }
     }
 
-    private void analyzeConstructor() {
-        System.out.println("Analyzing constructor");
+    // Checked like a method body, with the constructor arguments in scope
+    private void analyzeConstructor(ASTNode constructorNode, ClassDefinition classDef) {
+        Trace.debug("semantic", () -> "Analyzing constructor of " + classDef.getName());
+
+        symbolTable.clear();
+        for (ASTNode child : constructorNode.getChildren()) {
+            switch (child.getNodeType()) {
+                case "argument":
+                    analyzeArgument(child, constructorNode);
+                    break;
+                case "assignment":
+                    if (child.getNodeName() == null) {
+                        analyzeAssignment(child);
+                        break;
+                    }
+                    // this.field := value carries only the value
+                    if (classDef.getFieldType(child.getNodeName()) == null) {
+                        throw new RuntimeException("Undefined field: " + child.getNodeName() + " in class " + classDef.getName());
+                    }
+                    analyzeExpression(child.getChildren().getFirst());
+                    break;
+                default:
+                    analyzeChildNode(child, "Void");
+            }
+        }
     }
 
     private void analyzeMethod(ASTNode methodNode, ClassDefinition classDef) {
         String methodName = methodNode.getNodeName();
-        System.out.println("Analyzing method: " + methodName);
+        Trace.debug("semantic", () -> "Analyzing method: " + methodName);
 
         symbolTable.clear(); // New symbol table for method scope
 
         String returnType = "Void";
 
-        System.out.println("Analyzing method: " + methodName + " in class " + classDef.getName());
+        Trace.debug("semantic", () -> "Analyzing method: " + methodName + " in class " + classDef.getName());
 
         for (ASTNode child : methodNode.getChildren()) {
             switch (child.getNodeType()) {
@@ -211,7 +274,7 @@ public class SemanticAnalyzer {
                     analyzeVarDeclaration(child);
                     break;
                 case "WhileStatement":
-                    analyzeWhile(child);
+                    analyzeWhile(child, returnType);
                     break;
                 case "IfStatement":
                     analyzeIfStatement(child, returnType);
@@ -238,7 +301,7 @@ public class SemanticAnalyzer {
 
     private void analyzeIdentifier(ASTNode identifierNode) {
         String identifierName = identifierNode.getNodeName();
-        System.out.println("Analyzing identifier: " + identifierName);
+        Trace.debug("semantic", () -> "Analyzing identifier: " + identifierName);
 
         // Check if the identifier is declared in the current scope
         if (!symbolTable.containsKey(identifierName)) {
@@ -247,11 +310,25 @@ public class SemanticAnalyzer {
 
         // Retrieve the type of the identifier from the symbol table
         String identifierType = symbolTable.get(identifierName);
-        System.out.println("Identifier " + identifierName + " has type: " + identifierType);
+        Trace.debug("semantic", () -> "Identifier " + identifierName + " has type: " + identifierType);
+        analyzeCallStatement(identifierNode);
+    }
+
+    // Statement form x.method(args) on a user class: the MethodCall below the identifier holds only
+    // the arguments
+    private void analyzeCallStatement(ASTNode identifierNode) {
+        if (identifierNode.getChildren().isEmpty()) {
+            return;
+        }
+        String receiverType = getExpressionType(identifierNode);
+        ASTNode call = identifierNode.getChildren().getFirst();
+        if (classTable.containsKey(receiverType) && call.getExpressionType() == null) {
+            call.setExpressionType(resolveUserMethod(classTable.get(receiverType), call, call.getChildren()));
+        }
     }
 
     private void analyzeIfStatement(ASTNode ifNode, String methodReturnType) {
-        System.out.println("Analyzing IfStatement");
+        Trace.debug("semantic", () -> "Analyzing IfStatement");
 
         ASTNode thenBranch = null;
         ASTNode elseBranch = null;
@@ -296,6 +373,16 @@ public class SemanticAnalyzer {
             case "assignment":
                 analyzeAssignment(child);
                 break;
+            case "IfStatement":
+                analyzeIfStatement(child, methodReturnType);
+                break;
+            case "WhileStatement":
+                analyzeWhile(child, methodReturnType);
+                break;
+            case "identifier":
+                analyzeExpression(child);
+                analyzeCallStatement(child);
+                break;
             default:
                 analyzeExpression(child);
         }
@@ -303,12 +390,22 @@ public class SemanticAnalyzer {
 
     private String analyzeReturnType(ASTNode returnTypeNode) {
         String type = returnTypeNode.getNodeName();
-        System.out.println("Method return type: " + type);
+        Trace.debug("semantic", () -> "Method return type: " + type);
+        checkType(type);
         return type;
     }
 
+    // A built-in type, a class of the program, or an Array of one of them
+    private void checkType(String type) {
+        if (type.startsWith("Array[") && type.endsWith("]")) {
+            checkType(type.substring(6, type.length() - 1));
+        } else if (!BUILT_IN_TYPES.contains(type) && !classTable.containsKey(type)) {
+            throw new RuntimeException("Unknown type " + type);
+        }
+    }
+
     private void analyzeReturnStatement(ASTNode returnNode, String expectedType) {
-        System.out.println("Analyzing return statement");
+        Trace.debug("semantic", () -> "Analyzing return statement");
         if (expectedType == null) {
             throw new RuntimeException("Method return type not declared before return statement");
         }
@@ -325,7 +422,16 @@ public class SemanticAnalyzer {
         }
     }
 
+    // Each expression is typed once; the result is kept on the node, so enclosing calls that ask again
+    // and later passes read it instead of walking the subtree another time
     private String getExpressionType(ASTNode expressionNode) {
+        if (expressionNode.getExpressionType() == null) {
+            expressionNode.setExpressionType(inferExpressionType(expressionNode));
+        }
+        return expressionNode.getExpressionType();
+    }
+
+    private String inferExpressionType(ASTNode expressionNode) {
         switch (expressionNode.getNodeType()) {
             case "StringLiteral":
                 return "String";
@@ -362,9 +468,10 @@ public class SemanticAnalyzer {
             throw new RuntimeException("Argument already declared: " + argName);
         }
 
+        checkType(argType);
         argumentNode.setParent(parent);
         symbolTable.put(argName, argType);
-        System.out.println("Declared argument: " + argName + " of type " + argType);
+        Trace.debug("semantic", () -> "Declared argument: " + argName + " of type " + argType);
     }
 
     private void analyzeVarDeclaration(ASTNode varDeclNode) {
@@ -375,7 +482,8 @@ public class SemanticAnalyzer {
         String varName = varDeclNode.getNodeName();
         String varType = varDeclNode.getNodeTypeInfo();
 
-        System.out.println("Declared variable: " + varName + " of type " + varType);
+        Trace.debug("semantic", () -> "Declared variable: " + varName + " of type " + varType);
+        checkType(varType);
 
         // Register the variable in the symbol table
         symbolTable.put(varName, varType);
@@ -388,6 +496,10 @@ public class SemanticAnalyzer {
         for (ASTNode child : varDeclNode.getChildren()) {
             analyzeExpression(child);
             String initializerType = child.getNodeType();
+            // Resolves the call, except var m: T := T(), which is parsed as a call of a method named T
+            if (initializerType.equals("MethodCall") && !classTable.containsKey(child.getNodeName())) {
+                analyzeMethodCall(child);
+            }
 
             // Check for type compatibility
             if (varType.equals("String") && !initializerType.equals("MethodCall") && !isTypeCompatible(varType, initializerType)) {
@@ -408,7 +520,7 @@ public class SemanticAnalyzer {
     }
 
     private void analyzeConstructorCall(ASTNode constructorCallNode) {
-        System.out.println("Analyzing constructor call for type: " + constructorCallNode.getNodeName());
+        Trace.debug("semantic", () -> "Analyzing constructor call for type: " + constructorCallNode.getNodeName());
 
         String fullClassName = constructorCallNode.getNodeName();
         String baseClassName = parseBaseClassName(fullClassName);
@@ -447,8 +559,9 @@ public class SemanticAnalyzer {
             ASTNode arg = constructorCallNode.getChildren().get(i);
             String actualArgType = getExpressionType(arg);
             String expectedArgType = expectedArgTypes.get(i);
+            int position = i + 1;
 
-            System.out.println("Validating argument " + (i + 1) + ": expected " + expectedArgType + ", got " + actualArgType);
+            Trace.debug("semantic", () -> "Validating argument " + position + ": expected " + expectedArgType + ", got " + actualArgType);
 
             if (!actualArgType.equals(expectedArgType)) {
                 throw new RuntimeException("Type mismatch in constructor for class " + baseClassName +
@@ -480,7 +593,7 @@ public class SemanticAnalyzer {
         String elementType = genericTypeParameters.getFirst();
         List<String> allowedTypes = List.of("Integer", "String", "Boolean");
 
-        System.out.println("Validating Array generic type: " + elementType);
+        Trace.debug("semantic", () -> "Validating Array generic type: " + elementType);
 
         if (!allowedTypes.contains(elementType)) {
             throw new RuntimeException("Invalid generic type for Array: " + elementType +
@@ -488,8 +601,8 @@ public class SemanticAnalyzer {
         }
     }
 
-    private void analyzeWhile(ASTNode whileNode) {
-        System.out.println("Analyzing WHILE loop");
+    private void analyzeWhile(ASTNode whileNode, String methodReturnType) {
+        Trace.debug("semantic", () -> "Analyzing WHILE loop");
 
         for (int i = 1; i < whileNode.getChildren().size(); i++) {
             ASTNode child = whileNode.getChildren().get(i);
@@ -503,6 +616,16 @@ public class SemanticAnalyzer {
                 case "assignment":
                     analyzeAssignment(child);
                     break;
+                case "IfStatement":
+                    analyzeIfStatement(child, methodReturnType);
+                    break;
+                case "WhileStatement":
+                    analyzeWhile(child, methodReturnType);
+                    break;
+                case "identifier":
+                    analyzeExpression(child);
+                    analyzeCallStatement(child);
+                    break;
                 default:
                     analyzeExpression(child);
             }
@@ -514,7 +637,7 @@ public class SemanticAnalyzer {
             throw new RuntimeException("Unexpected assignment type: " + assignmentNode.getNodeType());
         }
 
-        System.out.println("Assignment:");
+        Trace.debug("semantic", () -> "Assignment:");
 
         ASTNode lhs = assignmentNode.getChildren().get(0);
         analyzeExpression(lhs);
@@ -522,8 +645,15 @@ public class SemanticAnalyzer {
         ASTNode rhs = assignmentNode.getChildren().get(1);
         analyzeExpression(rhs);
 
-        var expectedType = symbolTable.get(lhs.getNodeName());
-        if (!rhs.getNodeType().equals("MethodCall") && !isTypeCompatible(expectedType, rhs.getNodeType())) {
+        // Locals first, then fields
+        String expectedType = getExpressionType(lhs);
+        if (rhs.getNodeType().equals("identifier")) {
+            String valueType = getExpressionType(rhs);
+            if (!extendsClass(valueType, expectedType)) {
+                throw new RuntimeException("Type mismatch: Cannot assign " + rhs.getNodeName() + " of type " + valueType +
+                        " to variable " + lhs.getNodeName() + " of type " + expectedType);
+            }
+        } else if (!rhs.getNodeType().equals("MethodCall") && !isTypeCompatible(expectedType, rhs.getNodeType())) {
             throw new RuntimeException("Type mismatch: Cannot assign a value of type " + rhs.getNodeType() +
                     " to variable " + lhs.getNodeName() + " of type " + expectedType);
         }
@@ -531,15 +661,29 @@ public class SemanticAnalyzer {
     }
 
     private String analyzeMethodCall(ASTNode methodCallNode) {
-        System.out.println("Analyzing method call: " + methodCallNode.getNodeName());
+        if (methodCallNode.getExpressionType() == null) {
+            methodCallNode.setExpressionType(inferMethodCallType(methodCallNode));
+        }
+        return methodCallNode.getExpressionType();
+    }
+
+    private String inferMethodCallType(ASTNode methodCallNode) {
+        Trace.debug("semantic", () -> "Analyzing method call: " + methodCallNode.getNodeName());
 
         // Extract method name and determine the target type
         String methodName = methodCallNode.getNodeName();
         String methodReturnType;
+
+        // Unqualified call of a method of the current class or one of its ancestors: all children are arguments
+        ClassDefinition currentClass = classTable.get(currentClassName);
+        List<ASTNode> children = methodCallNode.getChildren();
+        if (currentClass != null && currentClass.findMethod(methodName, children.size()) != null) {
+            return resolveUserMethod(currentClass, methodCallNode, children);
+        }
         ASTNode targetNode = methodCallNode.getChildren().getFirst();
         String targetType = getExpressionType(targetNode);
 
-        System.out.println("Target type: " + targetType);
+        Trace.debug("semantic", () -> "Target type: " + targetType);
 
         switch (targetType) {
             case "Real":
@@ -559,6 +703,8 @@ public class SemanticAnalyzer {
                 // Handle Array[T] types
                 if (targetType.startsWith("Array[")) {
                     methodReturnType = analyzeArrayMethod(methodName, targetType, methodCallNode);
+                } else if (classTable.containsKey(targetType)) {
+                    return resolveUserMethod(classTable.get(targetType), methodCallNode, children.subList(1, children.size()));
                 } else {
                     throw new RuntimeException("Invalid method call on type: " + targetType);
                 }
@@ -571,10 +717,60 @@ public class SemanticAnalyzer {
             }
         }
 
-        System.out.println("Method " + methodName + " returns type: " + methodReturnType);
+        String returnType = methodReturnType;
+        Trace.debug("semantic", () -> "Method " + methodName + " returns type: " + returnType);
         return methodReturnType;
     }
 
+    // Records the overload the call resolves to on the node, so the code generator calls that one
+    private String resolveUserMethod(ClassDefinition classDef, ASTNode methodCallNode, List<ASTNode> arguments) {
+        String methodName = methodCallNode.getNodeName();
+        List<String> argumentTypes = new ArrayList<>();
+        for (ASTNode argument : arguments) {
+            argumentTypes.add(getExpressionType(argument));
+        }
+
+        MethodSignature signature = classDef.findMethod(methodName, argumentTypes);
+        if (signature == null) {
+            signature = findWideningOverload(classDef, methodName, argumentTypes);
+        }
+        if (signature == null) {
+            throw new RuntimeException("No method " + methodName + "(" + String.join(", ", argumentTypes)
+                    + ") in class " + classDef.getName());
+        }
+        methodCallNode.setParameterTypes(signature.getParameterTypes());
+        return signature.getReturnType();
+    }
+
+    // An overload that takes each argument as it is or as one of its superclasses
+    private MethodSignature findWideningOverload(ClassDefinition classDef, String methodName, List<String> argumentTypes) {
+        for (MethodSignature candidate : classDef.getMethods(methodName)) {
+            List<String> parameterTypes = candidate.getParameterTypes();
+            if (parameterTypes.size() != argumentTypes.size()) {
+                continue;
+            }
+            boolean matches = true;
+            for (int i = 0; i < parameterTypes.size() && matches; i++) {
+                matches = argumentTypes.get(i) == null || extendsClass(argumentTypes.get(i), parameterTypes.get(i));
+            }
+            if (matches) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private boolean extendsClass(String className, String baseClass) {
+        for (String current = className; current != null; ) {
+            if (current.equals(baseClass)) {
+                return true;
+            }
+            ClassDefinition definition = classTable.get(current);
+            current = definition == null ? null : definition.getParentClass();
+        }
+        return false;
+    }
+
     private String analyzeNumericMethod(String methodName, String targetType, ASTNode methodCallNode) {
         if (!List.of("Mult", "Plus", "Minus", "Divide", "LessEqual", "Rem", "Equal", "print").contains(methodName)) {
             throw new RuntimeException("Unknown method " + methodName + " for numeric type " + targetType);
@@ -716,6 +912,12 @@ public class SemanticAnalyzer {
                 }
                 return "Void";
 
+            case "Length":
+                if (methodCallNode.getChildren().size() != 1) {
+                    throw new RuntimeException("Array Length method expects no arguments, but got " + (methodCallNode.getChildren().size() - 1));
+                }
+                return "Integer";
+
             default:
                 if (globalSymbolTable.get(methodName) != null) {
                     return "Void";
@@ -738,16 +940,16 @@ public class SemanticAnalyzer {
     private void analyzeExpression(ASTNode expressionNode) {
         switch (expressionNode.getNodeType()) {
             case "StringLiteral":
-                System.out.println("StringLiteral: " + expressionNode.getNodeName());
+                Trace.debug("semantic", () -> "StringLiteral: " + expressionNode.getNodeName());
                 break;
             case "NumberLiteral":
-                System.out.println("NumberLiteral: " + expressionNode.getNodeName());
+                Trace.debug("semantic", () -> "NumberLiteral: " + expressionNode.getNodeName());
                 break;
             case "BoolLiteral":
-                System.out.println("BooleanLiteral: " + expressionNode.getNodeName());
+                Trace.debug("semantic", () -> "BooleanLiteral: " + expressionNode.getNodeName());
                 break;
             case "RealLiteral":
-                System.out.println("RealLiteral: " + expressionNode.getNodeName());
+                Trace.debug("semantic", () -> "RealLiteral: " + expressionNode.getNodeName());
                 break;
             case "identifier":
                 String identifierType = symbolTable.get(expressionNode.getNodeName());
@@ -757,13 +959,13 @@ public class SemanticAnalyzer {
                         throw new RuntimeException("Undefined identifier: " + expressionNode.getNodeName());
                     }
                 }
-                System.out.println("Identifier: " + expressionNode.getNodeName());
+                Trace.debug("semantic", () -> "Identifier: " + expressionNode.getNodeName());
                 break;
             case "ConstructorCall":
                 analyzeConstructorCall(expressionNode);
                 break;
             case "MethodCall":
-                System.out.println("MethodCall: " + expressionNode.getNodeName());
+                Trace.debug("semantic", () -> "MethodCall: " + expressionNode.getNodeName());
                 for (ASTNode child : expressionNode.getChildren()) {
                     analyzeExpression(child);
                 }
@@ -780,14 +982,14 @@ public class SemanticAnalyzer {
     }
 
     private void analyzeFieldAccess(ASTNode fieldAccessNode) {
-        System.out.println("Analyzing field access: " + fieldAccessNode.getNodeName());
+        Trace.debug("semantic", () -> "Analyzing field access: " + fieldAccessNode.getNodeName());
         if (!symbolTable.containsKey(fieldAccessNode.getNodeName())) {
             throw new RuntimeException("Undefined field: " + fieldAccessNode.getNodeName());
         }
     }
 
     private void analyzeBinaryOperation(ASTNode binaryNode) {
-        System.out.println("Analyzing binary operation: " + binaryNode.getNodeName());
+        Trace.debug("semantic", () -> "Analyzing binary operation: " + binaryNode.getNodeName());
 
         if (!List.of("Mult", "Plus", "Minus", "Divide").contains(binaryNode.getNodeName())) {
             throw new RuntimeException("Unsupported binary operation: " + binaryNode.getNodeName());
@@ -800,8 +1002,8 @@ public class SemanticAnalyzer {
         String leftType = getExpressionType(leftOperand);
         String rightType = getExpressionType(rightOperand);
 
-        System.out.println("Left operand type: " + leftType);
-        System.out.println("Right operand type: " + rightType);
+        Trace.debug("semantic", () -> "Left operand type: " + leftType);
+        Trace.debug("semantic", () -> "Right operand type: " + rightType);
 
         if (!leftType.equals(rightType)) {
             throw new RuntimeException("Type mismatch in binary operation: left=" + leftType + ", right=" + rightType);
@@ -815,7 +1017,7 @@ public class SemanticAnalyzer {
         }
 
         // Print the result type for debugging
-        System.out.println("Binary operation result type: " + leftType);
+        Trace.debug("semantic", () -> "Binary operation result type: " + leftType);
     }
 
     private boolean isGlobal(ASTNode varDeclNode) {
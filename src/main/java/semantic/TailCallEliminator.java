@@ -0,0 +1,76 @@
+package semantic;
+
+import ast.ASTNode;
+
+import java.util.List;
+
+/**
+ * Turns self-recursive calls in tail position into jumps. A {@code return m(args)} inside method m,
+ * called unqualified on this, becomes a TailCall node holding the argument expressions; the code
+ * generator evaluates them, stores them into the argument slots and jumps back to the method entry.
+ * Only methods that no subclass overrides are rewritten, since on a subclass instance the recursive
+ * call would otherwise dispatch to the override, and only methods whose arguments are all references:
+ * a Real argument is a two-slot double the generator has no store for.
+ */
+class TailCallEliminator {
+    private final ClassHierarchy hierarchy;
+
+    TailCallEliminator(ClassHierarchy hierarchy) {
+        this.hierarchy = hierarchy;
+    }
+
+    void eliminate(ASTNode root) {
+        for (ASTNode classNode : root.getChildren()) {
+            for (ASTNode member : classNode.getChildren()) {
+                if (member.getNodeType().equals("method") && !member.getNodeName().equals("main")
+                        && !hierarchy.isOverridden(classNode.getNodeName(), member.getNodeName(),
+                                ClassHierarchy.parameterTypes(member))
+                        && hasOnlyReferenceArguments(member)) {
+                    rewriteTailCalls(member, member.getNodeName(), ClassHierarchy.parameterTypes(member));
+                }
+            }
+        }
+    }
+
+    private void rewriteTailCalls(ASTNode block, String methodName, List<String> parameterTypes) {
+        List<ASTNode> statements = block.getChildren();
+        for (int i = 0; i < statements.size(); i++) {
+            ASTNode statement = statements.get(i);
+            switch (statement.getNodeType()) {
+                case "ReturnStatement":
+                    if (isSelfCall(statement, methodName, parameterTypes)) {
+                        ASTNode tailCall = new ASTNode("TailCall", methodName);
+                        for (ASTNode argument : statement.getChildren().get(0).getChildren()) {
+                            tailCall.addChild(argument);
+                        }
+                        statements.set(i, tailCall);
+                        tailCall.setParent(block);
+                    }
+                    break;
+                case "IfStatement", "ThenBlock", "ElseBlock", "WhileStatement":
+                    rewriteTailCalls(statement, methodName, parameterTypes);
+                    break;
+            }
+        }
+    }
+
+    private boolean isSelfCall(ASTNode returnStatement, String methodName, List<String> parameterTypes) {
+        if (returnStatement.getChildren().size() != 1) {
+            return false;
+        }
+        ASTNode value = returnStatement.getChildren().get(0);
+        // The same overload: another one of the same name is a different method
+        return value.getNodeType().equals("MethodCall") && value.getNodeName().equals(methodName)
+                && value.getChildren().size() == parameterTypes.size()
+                && parameterTypes.equals(value.getParameterTypes());
+    }
+
+    private boolean hasOnlyReferenceArguments(ASTNode method) {
+        for (ASTNode child : method.getChildren()) {
+            if (child.getNodeType().equals("argument") && child.getNodeTypeInfo().equals("Real")) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,5 +1,7 @@
 package token;
 
+import java.util.regex.Pattern;
+
 public enum TokenType {
     PROGRAM("Program"),
     CLASS("class"),
@@ -44,14 +46,17 @@ public enum TokenType {
     WHITESPACE("[ \t\f\r\n]+");
 
     public final String pattern;
+    // Compiled once when the enum is initialized instead of for every lexeme
+    public final Pattern regex;
     public Long position = 0L;
 
     TokenType(String pattern) {
         this.pattern = pattern;
+        this.regex = Pattern.compile(pattern);
     }
 
     TokenType(String pattern, Long position) {
-        this.pattern = pattern;
+        this(pattern);
         this.position = position;
     }
 }
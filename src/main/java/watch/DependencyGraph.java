@@ -0,0 +1,93 @@
+package watch;
+
+import ast.ASTNode;
+
+import java.util.*;
+
+/**
+ * Classes of the program with the classes each one refers to: its parent, the classes it
+ * constructs and the types of its fields, arguments, locals and return values.
+ */
+class DependencyGraph {
+    private final Map<String, String> parents = new HashMap<>();
+    private final Map<String, Set<String>> references = new HashMap<>();
+
+    void update(ASTNode classNode) {
+        String className = classNode.getNodeName();
+        Set<String> referenced = new HashSet<>();
+        parents.remove(className);
+        collectReferences(classNode, className, referenced);
+        referenced.remove(className);
+        references.put(className, referenced);
+    }
+
+    void remove(String className) {
+        parents.remove(className);
+        references.remove(className);
+    }
+
+    String getParent(String className) {
+        return parents.get(className);
+    }
+
+    /**
+     * Classes whose analysis or generated code may change with the given classes. Besides the
+     * classes themselves these are their ancestors, as optimizations of a class depend on which
+     * subclasses redefine its methods, and every class that refers to or extends one of them,
+     * transitively.
+     */
+    Set<String> affectedBy(Set<String> changed) {
+        Set<String> affected = new HashSet<>();
+        Deque<String> pending = new ArrayDeque<>();
+        for (String className : changed) {
+            for (String current = className; current != null; current = parents.get(current)) {
+                if (affected.add(current)) {
+                    pending.add(current);
+                }
+            }
+        }
+
+        Map<String, Set<String>> dependents = new HashMap<>();
+        for (Map.Entry<String, Set<String>> entry : references.entrySet()) {
+            for (String referenced : entry.getValue()) {
+                dependents.computeIfAbsent(referenced, k -> new HashSet<>()).add(entry.getKey());
+            }
+        }
+        while (!pending.isEmpty()) {
+            for (String dependent : dependents.getOrDefault(pending.poll(), Set.of())) {
+                if (affected.add(dependent)) {
+                    pending.add(dependent);
+                }
+            }
+        }
+        return affected;
+    }
+
+    private void collectReferences(ASTNode node, String className, Set<String> referenced) {
+        switch (node.getNodeType()) {
+            case "extends" -> {
+                parents.put(className, node.getNodeName());
+                referenced.add(node.getNodeName());
+            }
+            case "ConstructorCall", "ReturnType" -> addTypeNames(node.getNodeName(), referenced);
+            case "declaration", "argument" -> addTypeNames(node.getNodeTypeInfo(), referenced);
+            default -> {
+            }
+        }
+        for (ASTNode child : node.getChildren()) {
+            collectReferences(child, className, referenced);
+        }
+    }
+
+    // A type may be generic, e.g. Array[Shape]
+    private static void addTypeNames(String type, Set<String> referenced) {
+        if (type == null) {
+            return;
+        }
+        for (String name : type.split("[^A-Za-z0-9_]+")) {
+            if (!name.isEmpty()) {
+                referenced.add(name);
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package watch;
+
+import ast.ASTNode;
+import bytecode.BytecodeGenerator;
+import bytecode.ClassModel;
+import pipeline.Compiler;
+import semantic.SemanticAnalyzer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Keeps the parsed classes of every source file and the generated class models between builds.
+ * After a file changes only that file is parsed again, and only the classes affected by the
+ * change (see {@link DependencyGraph#affectedBy}) are analyzed, optimized and generated. The other
+ * classes take part in analysis with their definitions only, and the code generator resolves
+ * them through the class models of the previous build.
+ */
+public class IncrementalCompiler {
+    private final Compiler compiler = new Compiler();
+    private final Map<Path, String> sources = new HashMap<>();
+    private final Map<Path, List<String>> classesByFile = new HashMap<>();
+    private final Map<String, ASTNode> classNodes = new HashMap<>();
+    private final DependencyGraph dependencies = new DependencyGraph();
+    private final Map<String, ClassModel> classModels = new HashMap<>();
+    private final Set<String> pending = new HashSet<>();
+
+    /**
+     * Parses the file again, or forgets its classes when it no longer exists. The classes it
+     * defined before or defines now are rebuilt by the next {@link #build()}.
+     */
+    public void update(Path file) throws IOException {
+        file = file.toAbsolutePath().normalize();
+        if (!Files.exists(file)) {
+            for (String className : classesByFile.getOrDefault(file, List.of())) {
+                classNodes.remove(className);
+                classModels.remove(className);
+                dependencies.remove(className);
+                pending.add(className);
+            }
+            classesByFile.remove(file);
+            sources.remove(file);
+            return;
+        }
+
+        String source = Files.readString(file);
+        if (source.equals(sources.get(file))) {
+            return;
+        }
+        ASTNode root = compiler.parse(file.toString(), source);
+
+        List<String> classNames = new ArrayList<>();
+        for (ASTNode classNode : root.getChildren()) {
+            String className = classNode.getNodeName();
+            if (classNodes.containsKey(className) && !classesByFile.getOrDefault(file, List.of()).contains(className)) {
+                throw new RuntimeException("Class " + className + " is already defined in another file");
+            }
+            classNames.add(className);
+        }
+        for (String className : classesByFile.getOrDefault(file, List.of())) {
+            if (!classNames.contains(className)) {
+                classNodes.remove(className);
+                classModels.remove(className);
+                dependencies.remove(className);
+            }
+            pending.add(className);
+        }
+        for (ASTNode classNode : root.getChildren()) {
+            classNodes.put(classNode.getNodeName(), classNode);
+            dependencies.update(classNode);
+        }
+        pending.addAll(classNames);
+        sources.put(file, source);
+        classesByFile.put(file, classNames);
+    }
+
+    // Rebuilds the classes affected by the updates since the last build and returns their names
+    public Set<String> build() {
+        Set<String> affected = dependencies.affectedBy(pending);
+        affected.retainAll(classNodes.keySet());
+
+        ASTNode program = new ASTNode("Program");
+        ASTNode rebuilt = new ASTNode("Program");
+        for (String className : parentsFirst()) {
+            if (affected.contains(className)) {
+                ASTNode copy = classNodes.get(className).copy();
+                program.addChild(copy);
+                rebuilt.getChildren().add(copy);
+            } else {
+                program.addChild(classNodes.get(className));
+            }
+        }
+
+        SemanticAnalyzer analyzer = new SemanticAnalyzer();
+        analyzer.analyze(program, affected);
+        analyzer.optimize(rebuilt);
+
+        BytecodeGenerator generator = new BytecodeGenerator();
+        for (Map.Entry<String, ClassModel> model : classModels.entrySet()) {
+            if (!affected.contains(model.getKey())) {
+                generator.addClassModel(model.getValue());
+            }
+        }
+        generator.generate(rebuilt);
+
+        // Only a successful build replaces the previous one
+        classModels.putAll(generator.getClassModels());
+        pending.clear();
+        return affected;
+    }
+
+    public int getClassCount() {
+        return classNodes.size();
+    }
+
+    private List<String> parentsFirst() {
+        List<String> ordered = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+        for (String className : new TreeSet<>(classNodes.keySet())) {
+            addParentsFirst(className, visited, ordered);
+        }
+        return ordered;
+    }
+
+    private void addParentsFirst(String className, Set<String> visited, List<String> ordered) {
+        if (!classNodes.containsKey(className) || !visited.add(className)) {
+            return;
+        }
+        addParentsFirst(dependencies.getParent(className), visited, ordered);
+        ordered.add(className);
+    }
+}
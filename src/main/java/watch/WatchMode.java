@@ -0,0 +1,85 @@
+package watch;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Builds every source file of a directory, then waits for file system events and rebuilds what
+ * the changed files affect. Events arriving within a short window are handled as one rebuild, as
+ * editors often write a file in several steps.
+ */
+public class WatchMode {
+    private static final long SETTLE_MILLIS = 50;
+
+    private final Path directory;
+    private final String extension;
+    private final IncrementalCompiler compiler = new IncrementalCompiler();
+
+    public WatchMode(Path directory, String extension) {
+        this.directory = directory;
+        this.extension = extension;
+    }
+
+    public void run() throws IOException, InterruptedException {
+        try (WatchService watcher = directory.getFileSystem().newWatchService()) {
+            directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+
+            Set<Path> changed = new LinkedHashSet<>();
+            try (Stream<Path> files = Files.list(directory)) {
+                files.filter(this::isSource).forEach(changed::add);
+            }
+            rebuild(changed);
+
+            while (true) {
+                WatchKey key = watcher.take();
+                changed.clear();
+                do {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.context() instanceof Path name && isSource(name)) {
+                            changed.add(directory.resolve(name));
+                        }
+                    }
+                    key.reset();
+                    key = watcher.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+                } while (key != null);
+
+                if (!changed.isEmpty()) {
+                    rebuild(changed);
+                }
+            }
+        }
+    }
+
+    private boolean isSource(Path file) {
+        return file.getFileName().toString().endsWith(extension);
+    }
+
+    private void rebuild(Set<Path> changed) {
+        long start = System.nanoTime();
+        try {
+            for (Path file : changed) {
+                compiler.update(file);
+            }
+            Set<String> rebuilt = compiler.build();
+            System.out.printf("Rebuilt %d of %d classes for %d changed file(s) in %.1f ms: %s%n", rebuilt.size(),
+                    compiler.getClassCount(), changed.size(), (System.nanoTime() - start) / 1e6, rebuilt);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Build failed: " + e.getMessage());
+        }
+    }
+
+    // Usage: WatchMode <directory> [--ext <extension>]
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) {
+            System.err.println("Usage: WatchMode <directory> [--ext <extension>]");
+            System.exit(2);
+        }
+        String extension = args.length > 2 && args[1].equals("--ext") ? args[2] : ".txt";
+        new WatchMode(Path.of(args[0]).toAbsolutePath(), extension).run();
+    }
+}
@@ -0,0 +1,65 @@
+package bytecode;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pipeline.ProgramRunner;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConstructorCallTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void literalArgumentsAreBoxed() throws Exception {
+        String source = """
+                class Box is
+                    var value: Integer
+                    this(value: Integer) is
+                        this.value := value
+                    end
+                    method get() Integer is
+                        return value
+                    end
+                end
+
+                class Main is
+                    method main() is
+                        var box: Box := Box(21)
+                        var values: Array[Integer](3)
+                        print(box.get())
+                        print(values.Length())
+                    end
+                end
+                """;
+        assertEquals(List.of("21", "3"), ProgramRunner.run(directory, source));
+    }
+
+    @Test
+    void subclassInstanceInASuperclassVariable() throws Exception {
+        String source = """
+                class Animal is
+                    method speak() String is
+                        return "Generic sound"
+                    end
+                end
+
+                class Dog extends Animal is
+                    method speak() String is
+                        return "Bark"
+                    end
+                end
+
+                class Main is
+                    method main() is
+                        var animal: Animal := Dog()
+                        print(animal.speak())
+                    end
+                end
+                """;
+        assertEquals(List.of("Bark"), ProgramRunner.run(directory, source));
+    }
+}
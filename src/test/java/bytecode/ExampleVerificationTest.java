@@ -0,0 +1,123 @@
+package bytecode;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import output.ClassOutput;
+import output.DirectoryOutput;
+import output.DiscardingOutput;
+import pipeline.Compiler;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+/**
+ * Compiles each example to class files and loads every class in a JVM started with -Xverify:all, so
+ * that the verifier checks the generated code whatever the defaults of the JVM running the tests.
+ */
+class ExampleVerificationTest {
+    private static final Path EXAMPLES = Path.of(RuntimeClasses.DEFAULT_DIRECTORY);
+
+    // Examples that need Real, which the analyzer types but the generator does not support yet: it
+    // maps Real to double and has neither double instructions nor a Real runtime class. They run,
+    // and show up as skipped with what fails today; each entry goes once that part is generated.
+    private static final Map<String, String> PENDING_REAL = Map.of(
+            "example8.txt", "Real literals (return 0.0, Circle(5.0)) are not generated, so Shape.area() "
+                    + "returns with nothing on the stack",
+            "example11.txt", "calculateDistance(1, 2, 4, 6) passes Integers to Real parameters, which the "
+                    + "analyzer rejects until there is an Integer to Real conversion",
+            "example15.txt", "Real field initializers and literals (var width: Real := 10.0) are not generated, "
+                    + "nor is a constructor call used as an argument (shapes.set(1, Rectangle()))");
+
+    // Examples that are not valid programs, with the error they are rejected with
+    private static final Map<String, String> INVALID = Map.of(
+            "example12.txt", "Unknown type T",
+            "example13.txt", "No method length(Integer) in class Main");
+
+    @TempDir
+    Path directory;
+
+    static Stream<String> examples() throws IOException {
+        try (Stream<Path> files = Files.list(EXAMPLES)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(".txt") && !INVALID.containsKey(name))
+                    .sorted()
+                    .toList()
+                    .stream();
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("examples")
+    void generatedClassesPassTheVerifier(String example) throws Exception {
+        assumeFalse(PENDING_REAL.containsKey(example), PENDING_REAL.get(example));
+        Path source = EXAMPLES.resolve(example);
+        try (ClassOutput output = new DirectoryOutput(directory, DirectoryOutput.DEFAULT_BATCH_SIZE)) {
+            for (Map.Entry<String, byte[]> runtimeClass : RuntimeClasses.load(EXAMPLES, OutputFormat.CLASS).entrySet()) {
+                output.write(runtimeClass.getKey(), runtimeClass.getValue());
+            }
+            new Compiler(null, output, OutputFormat.CLASS).compile(source.toString(), Files.readString(source));
+        }
+
+        Path java = Path.of(System.getProperty("java.home"), "bin", "java");
+        Process process = new ProcessBuilder(java.toString(), "-Xverify:all",
+                "-cp", System.getProperty("java.class.path"), Loader.class.getName(), directory.toString())
+                .redirectErrorStream(true)
+                .start();
+        String log = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertEquals(0, process.waitFor(), log);
+    }
+
+    static Stream<String> invalidExamples() {
+        return INVALID.keySet().stream().sorted();
+    }
+
+    @ParameterizedTest
+    @MethodSource("invalidExamples")
+    void invalidExamplesAreRejected(String example) throws IOException {
+        Path source = EXAMPLES.resolve(example);
+        Compiler compiler = new Compiler(null, new DiscardingOutput(), OutputFormat.CLASS);
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> compiler.compile(source.toString(), Files.readString(source)));
+        assertTrue(error.getMessage().contains(INVALID.get(example)), error.getMessage());
+    }
+
+    // Runs in the forked JVM: links every class of the directory, which runs the verifier on it
+    static class Loader {
+        public static void main(String[] args) throws IOException {
+            Path classes = Path.of(args[0]);
+            List<String> names = new ArrayList<>();
+            try (Stream<Path> files = Files.list(classes)) {
+                files.map(file -> file.getFileName().toString())
+                        .filter(name -> name.endsWith(".class"))
+                        .forEach(name -> names.add(name.substring(0, name.length() - ".class".length())));
+            }
+            boolean failed = false;
+            try (URLClassLoader loader = new URLClassLoader(new URL[]{classes.toUri().toURL()}, null)) {
+                for (String name : names) {
+                    try {
+                        // Initializing links the class, and linking verifies it
+                        Class.forName(name, true, loader);
+                    } catch (LinkageError | ClassNotFoundException e) {
+                        System.out.println(name + ": " + e);
+                        failed = true;
+                    }
+                }
+            }
+            System.exit(failed ? 1 : 0);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package bytecode;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pipeline.ProgramRunner;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class VariableScopeTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void localOfAnEarlierMethodDoesNotHideAField() throws Exception {
+        String source = """
+                class Main is
+                    var x: Integer
+                    this() is
+                        this.x := 10
+                    end
+                    method first() Integer is
+                        var x: Integer := 1
+                        return x
+                    end
+                    method second() Integer is
+                        return x
+                    end
+                    method main() is
+                        print(first())
+                        print(second())
+                    end
+                end
+                """;
+        assertEquals(List.of("1", "10"), ProgramRunner.run(directory, source));
+    }
+
+    @Test
+    void fieldsAreReadAndWrittenThroughThis() throws Exception {
+        String source = """
+                class Counter is
+                    var count: Integer
+                    this() is
+                        this.count := 0
+                    end
+                    method bump() is
+                        count := count.Plus(1)
+                    end
+                    method get() Integer is
+                        return count
+                    end
+                end
+
+                class Main is
+                    method main() is
+                        var c: Counter := Counter()
+                        c.bump()
+                        c.bump()
+                        print(c.get())
+                    end
+                end
+                """;
+        assertEquals(List.of("2"), ProgramRunner.run(directory, source));
+    }
+}
@@ -0,0 +1,78 @@
+package diagnostics;
+
+import bytecode.OutputFormat;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import output.ClassOutput;
+import output.DirectoryOutput;
+import pipeline.Compiler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompilerEventsTest {
+    private static final Path EXAMPLE = Path.of("src/main/java/examples/example1.txt");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void compilationRecordsPhaseClassAndMethodEvents() throws IOException {
+        List<RecordedEvent> events = record();
+
+        List<RecordedEvent> phases = ofType(events, "compiler.Phase");
+        Set<String> phaseNames = phases.stream().map(event -> event.getString("phase")).collect(Collectors.toSet());
+        assertEquals(Set.of("lex", "parse", "analyze", "optimize", "generate"), phaseNames);
+        for (RecordedEvent phase : phases) {
+            assertEquals(EXAMPLE.toString(), phase.getString("file"));
+        }
+        assertTrue(phases.stream().anyMatch(event -> event.getLong("tokens") > 0));
+        assertTrue(phases.stream().anyMatch(event -> event.getLong("nodes") > 0));
+        assertTrue(phases.stream().anyMatch(event -> event.getLong("instructions") > 0));
+
+        List<RecordedEvent> classes = ofType(events, "compiler.ClassAnalyzed");
+        assertFalse(classes.isEmpty());
+        for (RecordedEvent analyzed : classes) {
+            assertTrue(analyzed.getInt("methods") > 0, analyzed.getString("className"));
+            assertTrue(analyzed.getLong("nodes") > 0, analyzed.getString("className"));
+        }
+
+        List<RecordedEvent> methods = ofType(events, "compiler.MethodGenerated");
+        assertFalse(methods.isEmpty());
+        for (RecordedEvent generated : methods) {
+            assertTrue(generated.getLong("nodes") > 0, generated.getString("methodName"));
+            assertTrue(generated.getInt("instructions") > 0, generated.getString("methodName"));
+        }
+    }
+
+    private List<RecordedEvent> record() throws IOException {
+        Path file = directory.resolve("compile.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("compiler.Phase");
+            recording.enable("compiler.ClassAnalyzed");
+            recording.enable("compiler.MethodGenerated");
+            recording.start();
+            try (ClassOutput output = new DirectoryOutput(directory.resolve("out"), DirectoryOutput.DEFAULT_BATCH_SIZE)) {
+                new Compiler(null, output, OutputFormat.JASMIN).compile(EXAMPLE.toString(), Files.readString(EXAMPLE));
+            }
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file);
+    }
+
+    private static List<RecordedEvent> ofType(List<RecordedEvent> events, String name) {
+        return events.stream().filter(event -> event.getEventType().getName().equals(name)).toList();
+    }
+}
@@ -0,0 +1,91 @@
+package ir;
+
+import ast.ASTNode;
+import lexical.LexerEngine;
+import org.junit.jupiter.api.Test;
+import semantic.SemanticAnalyzer;
+import sintax.SintaxisAnalyzer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConstantPropagationTest {
+    @Test
+    void reassignedLocalIsConstantBetweenItsStores() {
+        List<String> reads = constantReads("""
+                class Main is
+                    method main() is
+                        var n: Integer := 1
+                        print(n.Plus(1))
+                        n := 5
+                        print(n.Plus(1))
+                    end
+                end
+                """);
+        assertEquals(List.of("n = 1", "n = 5"), reads);
+    }
+
+    @Test
+    void branchesThatStoreTheSameLiteralMerge() {
+        List<String> reads = constantReads("""
+                class Main is
+                    method pick(c: Boolean) Integer is
+                        var same: Integer
+                        var different: Integer
+                        if c then
+                            same := 4
+                            different := 1
+                        else
+                            same := 4
+                            different := 2
+                        end
+                        var sum: Integer := same.Plus(different)
+                        return sum
+                    end
+                end
+                """);
+        assertEquals(List.of("same = 4"), reads);
+    }
+
+    @Test
+    void argumentsAndLoopCarriedValuesAreNotConstant() {
+        List<String> reads = constantReads("""
+                class Main is
+                    method count(n: Integer) Integer is
+                        var i: Integer := 0
+                        var step: Integer := 1
+                        while i.LessEqual(n) loop
+                            i := i.Plus(step)
+                        end
+                        return i
+                    end
+                end
+                """);
+        assertEquals(List.of("step = 1"), reads);
+    }
+
+    // Constant reads in source order, as name = literal
+    private static List<String> constantReads(String source) {
+        ASTNode root = new SintaxisAnalyzer(new LexerEngine(source).tokenize()).parse();
+        new SemanticAnalyzer().analyze(root);
+        ControlFlowGraph cfg = new IRBuilder().build(root).getFirst();
+        Map<ASTNode, Instruction> constants = new ConstantPropagation(cfg, new SSABuilder().convert(cfg)).getConstantReads();
+
+        List<String> reads = new ArrayList<>();
+        collect(root, constants, reads);
+        return reads;
+    }
+
+    private static void collect(ASTNode node, Map<ASTNode, Instruction> constants, List<String> reads) {
+        Instruction constant = constants.get(node);
+        if (constant != null) {
+            reads.add(node.getNodeName() + " = " + constant.getName());
+        }
+        for (ASTNode child : node.getChildren()) {
+            collect(child, constants, reads);
+        }
+    }
+}
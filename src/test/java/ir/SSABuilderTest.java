@@ -0,0 +1,80 @@
+package ir;
+
+import ast.ASTNode;
+import lexical.LexerEngine;
+import org.junit.jupiter.api.Test;
+import semantic.SemanticAnalyzer;
+import sintax.SintaxisAnalyzer;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SSABuilderTest {
+    @Test
+    void ifJoinMergesTheVersionsOfBothBranches() {
+        ControlFlowGraph cfg = lower("""
+                class Main is
+                    method pick(c: Boolean) Integer is
+                        var x: Integer := 1
+                        if c then
+                            x := 2
+                        end
+                        return x
+                    end
+                end
+                """);
+        DominatorTree dominators = new SSABuilder().convert(cfg);
+
+        BasicBlock entry = cfg.getEntry();
+        BasicBlock join = entry.getSuccessors().get(1);
+        assertEquals("x.3 = phi x x.2, x.1", join.getInstructions().getFirst().toString());
+        assertEquals(entry, dominators.getImmediateDominator(join));
+        assertNull(dominators.getImmediateDominator(entry));
+        assertEquals(List.of(join), List.copyOf(dominators.getFrontier(entry.getSuccessors().get(0))));
+    }
+
+    @Test
+    void loopHeaderMergesTheEntryAndTheBackEdge() {
+        ControlFlowGraph cfg = lower("""
+                class Main is
+                    method count(n: Integer) Integer is
+                        var i: Integer := 0
+                        while i.LessEqual(n) loop
+                            i := i.Plus(1)
+                        end
+                        return i
+                    end
+                end
+                """);
+        DominatorTree dominators = new SSABuilder().convert(cfg);
+
+        BasicBlock header = cfg.getEntry().getSuccessors().getFirst();
+        BasicBlock body = header.getSuccessors().get(0);
+        assertEquals("i.2 = phi i i.1, i.3", header.getInstructions().getFirst().toString());
+        assertTrue(dominators.dominates(header, body));
+        assertTrue(dominators.getFrontier(body).contains(header));
+    }
+
+    @Test
+    void codeAfterReturnIsDropped() {
+        ControlFlowGraph cfg = lower("""
+                class Main is
+                    method early(n: Integer) Integer is
+                        return n
+                        var unused: Integer := n.Plus(1)
+                    end
+                end
+                """);
+        assertEquals(1, cfg.getBlocks().size());
+        assertEquals("return %0", cfg.getEntry().getInstructions().getLast().toString());
+    }
+
+    private static ControlFlowGraph lower(String source) {
+        ASTNode root = new SintaxisAnalyzer(new LexerEngine(source).tokenize()).parse();
+        new SemanticAnalyzer().analyze(root);
+        return new IRBuilder().build(root).getFirst();
+    }
+}
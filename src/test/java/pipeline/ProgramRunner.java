@@ -0,0 +1,66 @@
+package pipeline;
+
+import bytecode.OutputFormat;
+import bytecode.RuntimeClasses;
+import output.ClassOutput;
+import output.DirectoryOutput;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Compiles a program to class files next to the runtime classes and runs its main class in a JVM
+ * started with -Xverify:all, so that a test sees both what the generated code prints and whether
+ * the verifier accepts it.
+ */
+public final class ProgramRunner {
+    private ProgramRunner() {
+    }
+
+    // Lines the program prints; fails the test if the program does not verify or exits abnormally
+    public static List<String> run(Path directory, String source) throws IOException, InterruptedException {
+        String[] log = new String[1];
+        assertEquals(0, execute(directory, source, log), log[0]);
+        return log[0].lines().toList();
+    }
+
+    // Output of a program that is expected to stop with an exception, stack trace included
+    public static String runFailing(Path directory, String source) throws IOException, InterruptedException {
+        String[] log = new String[1];
+        assertNotEquals(0, execute(directory, source, log), log[0]);
+        return log[0];
+    }
+
+    private static int execute(Path directory, String source, String[] log) throws IOException, InterruptedException {
+        String mainClass = compile(directory, source);
+        assertNotNull(mainClass, "no class declares main");
+
+        Path java = Path.of(System.getProperty("java.home"), "bin", "java");
+        Process process = new ProcessBuilder(java.toString(), "-Xverify:all", "-cp", directory.toString(), mainClass)
+                .redirectErrorStream(true)
+                .start();
+        log[0] = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        return process.waitFor();
+    }
+
+    // Main class of the program, or null
+    public static String compile(Path directory, String source) throws IOException {
+        Path runtime = Path.of(RuntimeClasses.DEFAULT_DIRECTORY);
+        try (ClassOutput output = new DirectoryOutput(directory, DirectoryOutput.DEFAULT_BATCH_SIZE)) {
+            for (Map.Entry<String, byte[]> runtimeClass : RuntimeClasses.load(runtime, OutputFormat.CLASS).entrySet()) {
+                output.write(runtimeClass.getKey(), runtimeClass.getValue());
+            }
+            Compiler compiler = new Compiler(null, output, OutputFormat.CLASS);
+            compiler.compile("Main.txt", source);
+            compiler.finish();
+            return compiler.getMainClass();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package semantic;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pipeline.ProgramRunner;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConstantFolderTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void foldedReturnValuesAreBoxed() throws Exception {
+        String source = """
+                class Main is
+                    method number() Integer is
+                        var x: Integer := 5
+                        return x.Plus(1)
+                    end
+                    method flag() Boolean is
+                        var x: Integer := 5
+                        return x.LessEqual(3)
+                    end
+                    method main() is
+                        print(number())
+                        var f: Boolean := flag()
+                        if f then
+                            print("true")
+                        else
+                            print("false")
+                        end
+                    end
+                end
+                """;
+        assertEquals(List.of("6", "false"), ProgramRunner.run(directory, source));
+    }
+
+    @Test
+    void identitiesKeepTheValue() throws Exception {
+        String source = """
+                class Main is
+                    method compute(a: Integer) Integer is
+                        return a.Plus(0).Mult(1)
+                    end
+                    method main() is
+                        var a: Integer := 7
+                        print(compute(a))
+                        print(2.Mult(3).Plus(4))
+                    end
+                end
+                """;
+        assertEquals(List.of("7", "10"), ProgramRunner.run(directory, source));
+    }
+
+    // Neither local is assigned once, which only the SSA form of the method sees through
+    @Test
+    void reassignedAndMergedLocalsFoldToTheLiteralThatReaches() throws Exception {
+        String source = """
+                class Main is
+                    method pick(c: Boolean) Integer is
+                        var n: Integer := 1
+                        var sum: Integer := n.Plus(1)
+                        n := 5
+                        sum := sum.Plus(n.Mult(10))
+                        var step: Integer
+                        if c then
+                            step := 3
+                        else
+                            step := 3
+                        end
+                        sum := sum.Plus(step.Mult(100))
+                        return sum
+                    end
+                    method main() is
+                        var yes: Boolean := true
+                        var no: Boolean := false
+                        print(pick(yes))
+                        print(pick(no))
+                    end
+                end
+                """;
+        assertEquals(List.of("352", "352"), ProgramRunner.run(directory, source));
+    }
+}
@@ -0,0 +1,76 @@
+package semantic;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pipeline.ProgramRunner;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeadVariableEliminatorTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void deadStoresGoAndLiveValuesStay() throws Exception {
+        String source = """
+                class Main is
+                    method first() Integer is
+                        var x: Integer := 1
+                        x := 2
+                        var unused: Integer := x.Plus(40)
+                        return x
+                    end
+                    method second() Integer is
+                        var x: Integer := 3
+                        return x
+                    end
+                    method main() is
+                        print(first())
+                        print(second())
+                    end
+                end
+                """;
+        assertEquals(List.of("2", "3"), ProgramRunner.run(directory, source));
+    }
+
+    @Test
+    void unusedCallsWithSideEffectsStillRun() throws Exception {
+        String source = """
+                class Main is
+                    var count: Integer
+                    this() is
+                        this.count := 0
+                    end
+                    method bump() Integer is
+                        count := count.Plus(1)
+                        return count
+                    end
+                    method main() is
+                        var ignored: Integer := bump()
+                        var again: Integer := bump()
+                        print(count)
+                    end
+                end
+                """;
+        assertEquals(List.of("2"), ProgramRunner.run(directory, source));
+    }
+
+    @Test
+    void unusedLengthOfAMissingArrayStillThrows() throws Exception {
+        String source = """
+                class Main is
+                    var data: Array[Integer]
+                    method main() is
+                        var n: Integer := data.Length()
+                        print("after")
+                    end
+                end
+                """;
+        String log = ProgramRunner.runFailing(directory, source);
+        assertTrue(log.contains("NullPointerException"), log);
+    }
+}
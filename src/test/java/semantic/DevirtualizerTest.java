@@ -0,0 +1,104 @@
+package semantic;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pipeline.ProgramRunner;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DevirtualizerTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void overriddenMethodStaysVirtual() throws Exception {
+        String source = """
+                class Animal is
+                    method speak() String is
+                        return "Generic sound"
+                    end
+                end
+
+                class Dog extends Animal is
+                    method speak() String is
+                        return "Bark"
+                    end
+                end
+
+                class Main is
+                    method hear(animal: Animal) String is
+                        var sound: String := animal.speak()
+                        return sound
+                    end
+                    method main() is
+                        var animal: Animal := Animal()
+                        var dog: Dog := Dog()
+                        print(hear(animal))
+                        print(hear(dog))
+                    end
+                end
+                """;
+        assertEquals(List.of("Generic sound", "Bark"), ProgramRunner.run(directory, source));
+    }
+
+    @Test
+    void inheritedMethodCalledOnThisRunsTheSuperclassCode() throws Exception {
+        String source = """
+                class Base is
+                    method greeting() String is
+                        return "hello"
+                    end
+                end
+
+                class Derived extends Base is
+                    method greet() is
+                        print(greeting())
+                    end
+                end
+
+                class Main is
+                    method main() is
+                        var derived: Derived := Derived()
+                        derived.greet()
+                    end
+                end
+                """;
+        assertEquals(List.of("hello"), ProgramRunner.run(directory, source));
+    }
+
+    // Monomorphic, but the receiver is not this, which the verifier only allows invokevirtual on
+    @Test
+    void callOnAnotherInstanceOfTheSameClass() throws Exception {
+        String source = """
+                class Counter is
+                    var count: Integer
+                    this(count: Integer) is
+                        this.count := count
+                    end
+                    method get() Integer is
+                        return count
+                    end
+                    method sum(other: Counter) Integer is
+                        var mine: Integer := get()
+                        var theirs: Integer := other.get()
+                        var total: Integer := mine.Plus(theirs)
+                        return total
+                    end
+                end
+
+                class Main is
+                    method main() is
+                        var two: Integer := 2
+                        var three: Integer := 3
+                        var a: Counter := Counter(two)
+                        var b: Counter := Counter(three)
+                        print(a.sum(b))
+                    end
+                end
+                """;
+        assertEquals(List.of("5"), ProgramRunner.run(directory, source));
+    }
+}
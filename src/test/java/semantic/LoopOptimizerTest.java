@@ -0,0 +1,84 @@
+package semantic;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pipeline.ProgramRunner;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LoopOptimizerTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void strengthReducedProductsKeepTheirValues() throws Exception {
+        String source = """
+                class Main is
+                    method main() is
+                        var i: Integer := 1
+                        var sum: Integer := 0
+                        var step: Integer := 2
+                        while i.LessEqual(9) loop
+                            sum := sum.Plus(i.Mult(4))
+                            i := i.Plus(step)
+                        end
+                        print(sum)
+                        print(i)
+                    end
+                end
+                """;
+        // 4 * (1 + 3 + 5 + 7 + 9)
+        assertEquals(List.of("100", "11"), ProgramRunner.run(directory, source));
+    }
+
+    // Arguments rather than local constants, which ConstantFolder would fold before the loop pass
+    @Test
+    void invariantsHoistedOutOfNestedLoops() throws Exception {
+        String source = """
+                class Main is
+                    method count(a: Integer, b: Integer) Integer is
+                        var total: Integer := 0
+                        var i: Integer := 1
+                        var j: Integer
+                        while i.LessEqual(3) loop
+                            j := 1
+                            while j.LessEqual(2) loop
+                                total := total.Plus(a.Mult(b))
+                                j := j.Plus(1)
+                            end
+                            i := i.Plus(1)
+                        end
+                        return total
+                    end
+                    method main() is
+                        var a: Integer := 3
+                        var b: Integer := 4
+                        print(count(a, b))
+                    end
+                end
+                """;
+        assertEquals(List.of("72"), ProgramRunner.run(directory, source));
+    }
+
+    @Test
+    void lengthInASkippedLoopDoesNotThrow() throws Exception {
+        String source = """
+                class Main is
+                    var data: Array[Integer]
+                    method main() is
+                        var i: Integer := 5
+                        var n: Integer := 0
+                        while i.LessEqual(0) loop
+                            n := data.Length()
+                            i := i.Plus(1)
+                        end
+                        print(n)
+                    end
+                end
+                """;
+        assertEquals(List.of("0"), ProgramRunner.run(directory, source));
+    }
+}
@@ -0,0 +1,69 @@
+package semantic;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pipeline.ProgramRunner;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MethodInlinerTest {
+    @TempDir
+    Path directory;
+
+    // f(Boolean) comes first so that a lookup by arity alone picks the wrong overload
+    @Test
+    void inlinedBodyKeepsTheOverloadItCalls() throws Exception {
+        String source = """
+                class Main is
+                    method f(b: Boolean) Integer is
+                        var n: Integer := 100
+                        return n
+                    end
+                    method f(a: Integer) Integer is
+                        var b: Integer := a.Plus(1)
+                        return b
+                    end
+                    method g(x: Integer) Integer is
+                        return f(x)
+                    end
+                    method main() is
+                        var n: Integer := 5
+                        print(g(n))
+                    end
+                end
+                """;
+        assertEquals(List.of("6"), ProgramRunner.run(directory, source));
+    }
+
+    @Test
+    void inlinedGetterReadsTheReceiverField() throws Exception {
+        String source = """
+                class Box is
+                    var value: Integer
+                    this(value: Integer) is
+                        this.value := value
+                    end
+                    method get() Integer is
+                        return value
+                    end
+                end
+
+                class Main is
+                    method twice(n: Integer) Integer is
+                        return n.Mult(2)
+                    end
+                    method main() is
+                        var v: Integer := 21
+                        var box: Box := Box(v)
+                        print(box.get())
+                        var n: Integer := 4
+                        print(twice(n))
+                    end
+                end
+                """;
+        assertEquals(List.of("21", "8"), ProgramRunner.run(directory, source));
+    }
+}
@@ -0,0 +1,93 @@
+package semantic;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pipeline.ProgramRunner;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OverloadResolutionTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void callsPickTheOverloadForTheArgumentTypes() throws Exception {
+        String source = """
+                class Main is
+                    method describe(b: Boolean) String is
+                        return "boolean"
+                    end
+                    method describe(n: Integer) String is
+                        return "integer"
+                    end
+                    method main() is
+                        var n: Integer := 1
+                        var b: Boolean := true
+                        print(describe(n))
+                        print(describe(b))
+                    end
+                end
+                """;
+        assertEquals(List.of("integer", "boolean"), ProgramRunner.run(directory, source));
+    }
+
+    @Test
+    void inheritedOverloadsStayVisibleNextToNewOnes() throws Exception {
+        String source = """
+                class Base is
+                    method describe(n: Integer) String is
+                        return "base integer"
+                    end
+                end
+
+                class Derived extends Base is
+                    method describe(b: Boolean) String is
+                        return "derived boolean"
+                    end
+                end
+
+                class Main is
+                    method main() is
+                        var derived: Derived := Derived()
+                        var n: Integer := 1
+                        var b: Boolean := false
+                        print(derived.describe(n))
+                        print(derived.describe(b))
+                    end
+                end
+                """;
+        assertEquals(List.of("base integer", "derived boolean"), ProgramRunner.run(directory, source));
+    }
+
+    @Test
+    void subclassArgumentMatchesASuperclassParameter() throws Exception {
+        String source = """
+                class Shape is
+                    method name() String is
+                        return "shape"
+                    end
+                end
+
+                class Square extends Shape is
+                    method name() String is
+                        return "square"
+                    end
+                end
+
+                class Main is
+                    method describe(shape: Shape) String is
+                        var name: String := shape.name()
+                        return name
+                    end
+                    method main() is
+                        var square: Square := Square()
+                        print(describe(square))
+                    end
+                end
+                """;
+        assertEquals(List.of("square"), ProgramRunner.run(directory, source));
+    }
+}
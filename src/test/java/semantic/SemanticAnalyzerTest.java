@@ -0,0 +1,81 @@
+package semantic;
+
+import ast.ASTNode;
+import lexical.LexerEngine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pipeline.ProgramRunner;
+import sintax.SintaxisAnalyzer;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SemanticAnalyzerTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void unknownTypeIsRejected() {
+        RuntimeException error = assertThrows(RuntimeException.class, () -> analyze("""
+                class Main is
+                    var value: T
+                end
+                """));
+        assertEquals("Unknown type T", error.getMessage());
+    }
+
+    @Test
+    void constructorBodiesAreChecked() {
+        RuntimeException error = assertThrows(RuntimeException.class, () -> analyze("""
+                class Main is
+                    method twice(n: Integer) Integer is
+                        return n.Mult(2)
+                    end
+                    this() is
+                        var flag: Boolean := true
+                        var n: Integer := twice(flag)
+                    end
+                end
+                """));
+        assertEquals("No method twice(Boolean) in class Main", error.getMessage());
+    }
+
+    @Test
+    void variablesAssignedFromVariables() throws Exception {
+        String source = """
+                class Main is
+                    var total: Integer
+                    method main() is
+                        var a: Integer := 1
+                        var b: Integer := 2
+                        a := b
+                        total := a
+                        print(total)
+                    end
+                end
+                """;
+        assertEquals(List.of("2"), ProgramRunner.run(directory, source));
+    }
+
+    @Test
+    void assignmentFromAVariableOfAnotherTypeIsRejected() {
+        RuntimeException error = assertThrows(RuntimeException.class, () -> analyze("""
+                class Main is
+                    method main() is
+                        var a: Integer := 1
+                        var b: Boolean := true
+                        a := b
+                    end
+                end
+                """));
+        assertEquals("Type mismatch: Cannot assign b of type Boolean to variable a of type Integer", error.getMessage());
+    }
+
+    private static void analyze(String source) {
+        ASTNode root = new SintaxisAnalyzer(new LexerEngine(source).tokenize()).parse();
+        new SemanticAnalyzer().analyze(root);
+    }
+}
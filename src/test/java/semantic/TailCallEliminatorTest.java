@@ -0,0 +1,97 @@
+package semantic;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pipeline.ProgramRunner;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TailCallEliminatorTest {
+    @TempDir
+    Path directory;
+
+    // Deep enough to overflow the stack unless the recursion became a loop
+    @Test
+    void deepTailRecursionRunsInConstantStack() throws Exception {
+        String source = """
+                class Main is
+                    method sum(n: Integer, acc: Integer) Integer is
+                        if n.LessEqual(0) then
+                            return acc
+                        else
+                            return sum(n.Minus(1), acc.Plus(1))
+                        end
+                    end
+                    method main() is
+                        var n: Integer := 100000
+                        var zero: Integer := 0
+                        print(sum(n, zero))
+                    end
+                end
+                """;
+        assertEquals(List.of("100000"), ProgramRunner.run(directory, source));
+    }
+
+    @Test
+    void argumentsAreAllEvaluatedBeforeTheJump() throws Exception {
+        String source = """
+                class Main is
+                    method swap(a: Integer, b: Integer, n: Integer) Integer is
+                        var tens: Integer
+                        if n.LessEqual(0) then
+                            tens := a.Mult(10)
+                            return tens.Plus(b)
+                        else
+                            return swap(b, a, n.Minus(1))
+                        end
+                    end
+                    method main() is
+                        var a: Integer := 1
+                        var b: Integer := 2
+                        var odd: Integer := 3
+                        var even: Integer := 4
+                        print(swap(a, b, odd))
+                        print(swap(a, b, even))
+                    end
+                end
+                """;
+        assertEquals(List.of("21", "12"), ProgramRunner.run(directory, source));
+    }
+
+    @Test
+    void overriddenMethodStillDispatchesToTheSubclass() throws Exception {
+        String source = """
+                class Counter is
+                    method count(n: Integer) Integer is
+                        if n.LessEqual(0) then
+                            return n
+                        else
+                            return count(n.Minus(1))
+                        end
+                    end
+                end
+
+                class Stopper extends Counter is
+                    method count(n: Integer) Integer is
+                        return n.Mult(100)
+                    end
+                end
+
+                class Main is
+                    method countWith(counter: Counter, n: Integer) Integer is
+                        var result: Integer := counter.count(n)
+                        return result
+                    end
+                    method main() is
+                        var stopper: Stopper := Stopper()
+                        var n: Integer := 3
+                        print(countWith(stopper, n))
+                    end
+                end
+                """;
+        assertEquals(List.of("300"), ProgramRunner.run(directory, source));
+    }
+}